@@ -45,14 +45,22 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.ZipException;
 
 import net.flexmojos.oss.compatibilitykit.VersionUtils;
 import net.flexmojos.oss.compiler.command.Result;
+import net.flexmojos.oss.compiler.command.ResultListener;
 import net.flexmojos.oss.plugin.common.flexbridge.MavenLogger;
 import net.flexmojos.oss.plugin.common.flexbridge.MavenPathResolver;
 import net.flexmojos.oss.plugin.compiler.attributes.MavenRuntimeException;
 import net.flexmojos.oss.plugin.compiler.lazyload.Cacheable;
+import net.flexmojos.oss.plugin.compiler.lazyload.GetterCache;
 import net.flexmojos.oss.plugin.compiler.lazyload.NotCacheable;
+import net.flexmojos.oss.plugin.compiler.lazyload.Shareable;
+import net.flexmojos.oss.plugin.utilities.DependencyIndex;
+import net.flexmojos.oss.plugin.utilities.LazyArchive;
 import net.flexmojos.oss.plugin.utilities.MavenUtils;
 import net.flexmojos.oss.util.PathUtil;
 
@@ -133,7 +141,7 @@ public abstract class AbstractMavenMojo
      */
     private File basedir;
 
-    protected Map<String, Object> cache = new LinkedHashMap<String, Object>();
+    protected GetterCache cache = new GetterCache();
 
     /**
      * The maven configuration directory
@@ -215,8 +223,9 @@ public abstract class AbstractMavenMojo
     protected MavenProjectHelper projectHelper;
 
     /**
-     * Quick compile mode. When true, Flexmojos will check if the latest artifact available at maven repository for this
-     * project is newer then sources. If so, wont recompile.
+     * Quick compile mode. When true, Flexmojos journals size, last modification and content hash of every compilation
+     * input (pom, dependencies, sources, locales and resources) plus the compiler arguments on the target folder, and
+     * won't recompile while none of them changed.
      * 
      * @parameter default-value="false" expression="${flexmojos.quick}"
      */
@@ -454,22 +463,33 @@ public abstract class AbstractMavenMojo
 
     @Override
     @NotCacheable
-    public Map<String, Object> getCache()
+    public GetterCache getCache()
     {
         return cache;
     }
 
+    @Shareable
     public String getCompilerVersion()
     {
         Artifact compiler = MavenUtils.searchFor( pluginArtifacts, "com.adobe.flex", "compiler", null, "pom", null );
         return compiler.getVersion();
     }
 
+    @Shareable
     public Set<Artifact> getDependencies()
     {
         return Collections.unmodifiableSet( project.getArtifacts() );
     }
 
+    /**
+     * @return dependencies indexed by type, scope, groupId and classifier, prefer it over matchers on hot paths
+     */
+    @Shareable
+    public DependencyIndex getDependencyIndex()
+    {
+        return new DependencyIndex( getDependencies(), GLOBAL_MATCHER );
+    }
+
     protected Set<Artifact> getDependencies( Matcher<? super Artifact>... matchers )
     {
         Set<Artifact> dependencies = getDependencies();
@@ -483,6 +503,7 @@ public abstract class AbstractMavenMojo
     }
 
     @SuppressWarnings( "unchecked" )
+    @Shareable
     protected Artifact getFrameworkConfig()
     {
         Artifact frmkCfg =
@@ -498,6 +519,7 @@ public abstract class AbstractMavenMojo
     }
 
     @SuppressWarnings( "unchecked" )
+    @Shareable
     public String getFrameworkVersion()
     {
         Artifact dep = null;
@@ -644,33 +666,76 @@ public abstract class AbstractMavenMojo
     {
         Artifact artifact = resolve( groupId, artifactId, version, classifier, type );
 
-        String dirName = ( classifier == null ? "" : classifier ) + "_" + type;
+        LazyArchive archive = getArchive( artifact );
+        try
+        {
+            return archive.materializeAll();
+        }
+        catch ( ZipException e )
+        {
+            // not a zip, let plexus archiver deal with it
+            return unpack( artifact, archive.getDirectory() );
+        }
+        catch ( IOException e )
+        {
+            throw new MavenRuntimeException( "Failed to extract " + artifact, e );
+        }
+    }
 
-        File dir = new File( artifact.getFile().getParentFile(), dirName );
+    private File unpack( Artifact artifact, File dir )
+    {
         if ( dir.isDirectory() )
         {
             return dir;
         }
 
-        dir.mkdirs();
-
+        // unpacked aside and renamed, so a directory found is always complete
+        File tmp = new File( dir.getParentFile(), dir.getName() + "-" + System.nanoTime() + ".tmp" );
         try
         {
+            tmp.mkdirs();
+
             UnArchiver unarchive = archiverManager.getUnArchiver( artifact.getFile() );
             unarchive.setSourceFile( artifact.getFile() );
-            unarchive.setDestDirectory( dir );
+            unarchive.setDestDirectory( tmp );
             unarchive.extract();
+
+            if ( !tmp.renameTo( dir ) && !dir.isDirectory() )
+            {
+                throw new IOException( "Unable to move " + tmp + " to " + dir );
+            }
         }
         catch ( Exception e )
         {
             throw new MavenRuntimeException( "Failed to extract " + artifact, e );
         }
+        finally
+        {
+            try
+            {
+                FileUtils.deleteDirectory( tmp );
+            }
+            catch ( IOException e )
+            {
+                getLog().debug( "Unable to delete " + tmp, e );
+            }
+        }
 
         return dir;
     }
 
-    // TODO lazy load here would be awesome
-    protected File getUnpackedFrameworkConfig()
+    private LazyArchive getArchive( Artifact artifact )
+    {
+        String dirName = ( artifact.getClassifier() == null ? "" : artifact.getClassifier() ) + "_" + artifact.getType();
+
+        return new LazyArchive( artifact.getFile(), new File( artifact.getFile().getParentFile(), dirName ) );
+    }
+
+    /**
+     * @return framework configs zip, its entries are only extracted when they must be handed to the compiler as files
+     */
+    @Shareable
+    protected LazyArchive getFrameworkConfigArchive()
     {
         Artifact frmkCfg = getFrameworkConfig();
 
@@ -679,8 +744,7 @@ public abstract class AbstractMavenMojo
             return null;
         }
 
-        return getUnpackedArtifact( frmkCfg.getGroupId(), frmkCfg.getArtifactId(), frmkCfg.getVersion(),
-                                    frmkCfg.getClassifier(), frmkCfg.getType() );
+        return getArchive( frmkCfg );
     }
 
     @SuppressWarnings( "unchecked" )
@@ -824,21 +888,88 @@ public abstract class AbstractMavenMojo
         return fileIncludes;
     }
 
+    /**
+     * Waits all results, checking them in the order they finish. The first failure drops the compilations that are
+     * still queued and waits for the running ones to stop before failing.
+     */
     public void wait( Collection<Result> results )
         throws MojoFailureException, MojoExecutionException
     {
+        final BlockingQueue<Result> finished = new LinkedBlockingQueue<Result>();
+        ResultListener listener = new ResultListener()
+        {
+            public void completed( Result result )
+            {
+                finished.add( result );
+            }
+        };
         for ( Result result : results )
         {
-            checkResult( result );
+            result.addListener( listener );
+        }
+
+        try
+        {
+            for ( int i = 0; i < results.size(); i++ )
+            {
+                checkResult( finished.take() );
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            cancel( results );
+            throw new MojoExecutionException( "Interrupted while waiting compilations", e );
+        }
+        catch ( MojoFailureException e )
+        {
+            cancel( results );
+            throw e;
+        }
+        catch ( MojoExecutionException e )
+        {
+            cancel( results );
+            throw e;
+        }
+        catch ( RuntimeException e )
+        {
+            cancel( results );
+            throw e;
         }
     }
 
     protected void wait( Result... results )
         throws MojoFailureException, MojoExecutionException
     {
+        wait( Arrays.asList( results ) );
+    }
+
+    private void cancel( Collection<Result> results )
+    {
+        int cancelled = 0;
         for ( Result result : results )
         {
-            checkResult( result );
+            if ( result.cancel() )
+            {
+                cancelled++;
+            }
+        }
+
+        if ( cancelled > 0 )
+        {
+            getLog().warn( "Cancelled " + cancelled + " pending compilations" );
+        }
+
+        // started compilations still write outputs and use the shared compiler threads, don't fail the build under them
+        try
+        {
+            for ( Result result : results )
+            {
+                result.join();
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
         }
     }
 
@@ -0,0 +1,49 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.plugin.common.flexbridge;
+
+import net.flexmojos.oss.compiler.metrics.CompileMetrics;
+import net.flexmojos.oss.compiler.metrics.PhaseTimings;
+import flex2.tools.oem.Logger;
+import flex2.tools.oem.Message;
+
+/**
+ * Picks the -benchmark timings out of the compiler output before handing every message to the wrapped logger.
+ */
+public class BenchmarkLogger
+    implements Logger
+{
+
+    private Logger logger;
+
+    public BenchmarkLogger( Logger logger )
+    {
+        this.logger = logger;
+    }
+
+    public void log( Message message, int errorCode, String source )
+    {
+        if ( Message.INFO.equals( message.getLevel() ) && message.getPath() == null )
+        {
+            // tags are set on the thread running the compilation
+            PhaseTimings.getInstance().record( CompileMetrics.getTags(), message.toString() );
+        }
+
+        logger.log( message, errorCode, source );
+    }
+}
@@ -20,7 +20,6 @@ package net.flexmojos.oss.plugin.compiler;
 import static com.marvinformatics.kiss.matchers.maven.artifact.ArtifactMatchers.artifactId;
 import static com.marvinformatics.kiss.matchers.maven.artifact.ArtifactMatchers.classifier;
 import static com.marvinformatics.kiss.matchers.maven.artifact.ArtifactMatchers.groupId;
-import static com.marvinformatics.kiss.matchers.maven.artifact.ArtifactMatchers.scope;
 import static com.marvinformatics.kiss.matchers.maven.artifact.ArtifactMatchers.type;
 import static java.util.Arrays.asList;
 import static net.flexmojos.oss.plugin.common.FlexClassifier.CONFIGS;
@@ -41,16 +40,11 @@ import static net.flexmojos.oss.plugin.common.FlexScopes.MERGED;
 import static net.flexmojos.oss.plugin.common.FlexScopes.RSL;
 import static net.flexmojos.oss.util.PathUtil.files;
 import static net.flexmojos.oss.util.PathUtil.pathsList;
-import static org.hamcrest.CoreMatchers.allOf;
-import static org.hamcrest.CoreMatchers.anyOf;
-import static org.hamcrest.CoreMatchers.not;
-import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.awt.GraphicsEnvironment;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
@@ -90,11 +84,24 @@ import net.flexmojos.oss.compiler.INamespace;
 import net.flexmojos.oss.compiler.INamespacesConfiguration;
 import net.flexmojos.oss.compiler.IRuntimeSharedLibraryPath;
 import net.flexmojos.oss.compiler.IRuntimeSharedLibrarySettingsConfiguration;
+import net.flexmojos.oss.compiler.MxmlcConfigurationHolder;
+import net.flexmojos.oss.compiler.cache.CompilerOutputCache;
+import net.flexmojos.oss.compiler.command.CommandUtil;
+import net.flexmojos.oss.compiler.command.CompileExecutor;
 import net.flexmojos.oss.compiler.command.Result;
+import net.flexmojos.oss.compiler.daemon.CompilerDaemonClient;
+import net.flexmojos.oss.compiler.daemon.CompilerDaemonSettings;
+import net.flexmojos.oss.compiler.incremental.IncrementalCompiler;
+import net.flexmojos.oss.compiler.metrics.CompileMetrics;
+import net.flexmojos.oss.compiler.metrics.CompileTags;
+import net.flexmojos.oss.compiler.metrics.PhaseTimings;
+import net.flexmojos.oss.compiler.util.FlexCompilerArgumentParser;
 import net.flexmojos.oss.license.LicenseCalculator;
 import net.flexmojos.oss.plugin.AbstractMavenMojo;
 import net.flexmojos.oss.plugin.RuntimeMavenResolutionException;
 import net.flexmojos.oss.plugin.common.FlexScopes;
+import net.flexmojos.oss.plugin.common.flexbridge.BenchmarkLogger;
+import net.flexmojos.oss.plugin.common.flexbridge.MavenLogger;
 import net.flexmojos.oss.plugin.compiler.attributes.MavenArtifact;
 import net.flexmojos.oss.plugin.compiler.attributes.MavenDefaultScriptLimits;
 import net.flexmojos.oss.plugin.compiler.attributes.MavenDefaultSize;
@@ -105,23 +112,31 @@ import net.flexmojos.oss.plugin.compiler.attributes.MavenMetadataConfiguration;
 import net.flexmojos.oss.plugin.compiler.attributes.MavenNamespace;
 import net.flexmojos.oss.plugin.compiler.attributes.MavenRuntimeException;
 import net.flexmojos.oss.plugin.compiler.lazyload.Cacheable;
+import net.flexmojos.oss.plugin.compiler.lazyload.GetterCache;
+import net.flexmojos.oss.plugin.compiler.lazyload.NotCacheable;
+import net.flexmojos.oss.plugin.compiler.lazyload.Shareable;
 import net.flexmojos.oss.plugin.utilities.ConfigurationResolver;
+import net.flexmojos.oss.plugin.utilities.FileStateJournal;
+import net.flexmojos.oss.plugin.utilities.LazyArchive;
 import net.flexmojos.oss.plugin.utilities.MavenUtils;
 import net.flexmojos.oss.util.PathUtil;
 
-import org.apache.commons.io.filefilter.AgeFileFilter;
-import org.apache.commons.io.filefilter.TrueFileFilter;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.model.Contributor;
 import org.apache.maven.model.Developer;
+import org.apache.maven.model.Resource;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.codehaus.plexus.archiver.UnArchiver;
 import org.codehaus.plexus.util.FileUtils;
 import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.ReaderFactory;
+import org.codehaus.plexus.util.StringUtils;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.codehaus.plexus.util.xml.Xpp3DomBuilder;
-import org.hamcrest.Matcher;
+
+import flex2.compiler.Logger;
+import flex2.tools.oem.internal.OEMLogAdapter;
 
 public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompilerMojo<CFG, C>>
     extends AbstractMavenMojo
@@ -132,6 +147,10 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
 
     private static final Object lock = new Object();
 
+    public static final String BENCHMARK_REPORT = "flexmojos-benchmark.json";
+
+    private static final String[] LIBRARY_TYPES = { SWC, ANE };
+
     public static final String PROJECT_TYPE = "getProjectType";
 
     /**
@@ -241,6 +260,8 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
      * <p>
      * Equivalent to -benchmark
      * </p>
+     * The time spent on each compiler phase is also written to target/flexmojos-benchmark.json, use
+     * benchmarkCompilerDetails to get parse, analyze and generate times. See the benchmark-compare goal.
      * 
      * @parameter expression="${flex.benchmark}"
      */
@@ -291,6 +312,52 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
      */
     protected net.flexmojos.oss.compiler.FlexCompiler compiler;
 
+    /**
+     * @component
+     * @readonly
+     */
+    protected FlexCompilerArgumentParser compilerArgumentParser;
+
+    /**
+     * Directory used to cache compiler outputs. Outputs are keyed by the compiler arguments and the content of every
+     * file they refer to (sources, libraries, themes, configs), so a compilation with the same inputs is restored
+     * instead of compiled again, even after a clean or on another machine sharing this directory.
+     * <p>
+     * Disabled when not defined
+     * </p>
+     * 
+     * @parameter expression="${flex.compilerCacheDirectory}"
+     */
+    private File compilerCacheDirectory;
+
+    /**
+     * Run compilations on a long lived compiler daemon, shared by all builds using the same flex SDK version. The daemon
+     * keeps the compiler JIT-warm between builds and is started on demand. When it can't be reached compilation falls
+     * back to run inside maven VM.
+     * 
+     * @parameter default-value="false" expression="${flex.compilerDaemon}"
+     */
+    private boolean compilerDaemon;
+
+    /**
+     * @component
+     * @readonly
+     */
+    protected CompilerDaemonClient compilerDaemonClient;
+
+    /**
+     * Minutes the compiler daemon stays alive without receiving any compilation
+     * 
+     * @parameter default-value="30" expression="${flex.compilerDaemonIdleTimeout}"
+     */
+    private int compilerDaemonIdleTimeout;
+
+    /**
+     * @component
+     * @readonly
+     */
+    protected CompilerOutputCache compilerOutputCache;
+
     /**
      * A list of warnings that should be enabled/disabled
      * <p>
@@ -310,6 +377,22 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
      */
     private final Map<String, String> compilerWarnings = new LinkedHashMap<String, String>();
 
+    /**
+     * Arguments of the forked compiler workers VMs, usually heap size and garbage collector options
+     * 
+     * @parameter default-value="-Xmx1024m" expression="${flex.compilerWorkerJvmArgs}"
+     */
+    private String compilerWorkerJvmArgs;
+
+    /**
+     * Number of forked VMs compilations run on. Workers belong to the current build, are reused by every module and
+     * are stopped with it. Each one has its own heap (see compilerWorkerJvmArgs), so huge applications don't force the
+     * maven heap up. Compilations run inside maven VM when not positive, incremental compilations always do.
+     * 
+     * @parameter default-value="0" expression="${flex.compilerWorkers}"
+     */
+    private int compilerWorkers;
+
     /**
      * The maven compile source roots
      * <p>
@@ -686,6 +769,18 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
      */
     private Boolean generateAbstractSyntaxTree;
 
+    /**
+     * Directory where the long list options (library paths, source paths, include-classes...) are written as
+     * flex-config files loaded with -load-config+=, instead of being passed on the command line. Files are named after a
+     * hash of their content, so identical configurations (ie module and locale clones) share a single file.
+     * <p>
+     * Disabled when not defined
+     * </p>
+     * 
+     * @parameter expression="${flex.generatedConfigDirectory}"
+     */
+    private File generatedConfigDirectory;
+
     /**
      * DOCME Undocumented by adobe
      * <p>
@@ -767,11 +862,21 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
      * <p>
      * Equivalent to -compiler.incremental
      * </p>
+     * <p>
+     * The continuous compilation goals enable it by default and retain the compiler state between compilations on
+     * the same VM, saved to <tt>output.cache</tt> for later builds.
+     * </p>
      * 
      * @parameter expression="${flex.incremental}"
      */
     private Boolean incremental;
 
+    /**
+     * @component
+     * @readonly
+     */
+    protected IncrementalCompiler incrementalCompiler;
+
     /**
      * Enables the compiled application or module to set styles that only affect itself and its children.<BR>
      * Allow the user to decide if the compiled application/module should have its own style manager
@@ -793,6 +898,11 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
      */
     private String javaProfilerClass;
 
+    /**
+     * Inputs of the last successful compilation, used by quick mode
+     */
+    private FileStateJournal journal;
+
     /**
      * Disables the pruning of unused CSS type selectors
      * <p>
@@ -995,6 +1105,15 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
      */
     protected File localesSourcePath;
 
+    /**
+     * Maximum number of compilations running at same time (modules, runtime locales and resource bundles). The
+     * remaining ones wait on a queue. When not defined it is estimated from the available processors and the heap each
+     * compilation is expected to use, which grows with memoryUsageFactor.
+     * 
+     * @parameter expression="${flex.maxCompileThreads}"
+     */
+    private Integer maxCompileThreads;
+
     /**
      * DOCME undocumented by adobe
      * <p>
@@ -1103,6 +1222,14 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
      */
     private Boolean optimize;
 
+    /**
+     * Part of the compiler daemon key, daemons started by another flexmojos release speak a different protocol
+     * 
+     * @parameter expression="${plugin.version}"
+     * @readonly
+     */
+    private String pluginVersion;
+
     /**
      * policyFileUrls array of policy file URLs. Each entry in the rslUrls array must have a corresponding entry in this
      * array. A policy file may be needed in order to allow the player to read an RSL from another domain. If a policy
@@ -1181,6 +1308,34 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
      */
     private Boolean reportMissingRequiredSkinPartsAsWarnings;
 
+    /**
+     * Resource bundle SWCs looked up so far, including the missing ones. Shared with clones.
+     */
+    private final ResourceBundleArtifacts resourceBundleArtifacts =
+        new ResourceBundleArtifacts( new ResourceBundleArtifacts.Resolver()
+        {
+            public Artifact resolve( Artifact beacon, String locale )
+            {
+                try
+                {
+                    return AbstractFlexCompilerMojo.this.resolve( beacon.getGroupId(), beacon.getArtifactId(),
+                                                                  beacon.getVersion(), locale, beacon.getType() );
+                }
+                catch ( RuntimeMavenResolutionException e )
+                {
+                    return e.getArtifact();
+                }
+            }
+        } );
+
+    /**
+     * Machine wide cache of resource bundle SWCs adapted from another locale of a localization chain. Adapting requires
+     * a compilation, the cache makes it happen once per base SWC, locale and compiler version.
+     * 
+     * @parameter default-value="${user.home}/.flexmojos/resource-bundles" expression="${flex.resourceBundleCacheDirectory}"
+     */
+    private File resourceBundleCacheDirectory;
+
     /**
      * Prints a list of resource bundles to a file for input to the compc compiler to create a resource bundle SWC file.
      * <p>
@@ -1452,7 +1607,7 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
      */
     private Boolean verifyDigests;
 
-    protected Artifact adaptResourceBundle( final Artifact baseRbSwc, String requestedLocale )
+    protected Artifact adaptResourceBundle( final Artifact baseRbSwc, final String requestedLocale )
     {
         getLog().debug( "Adapting resource bundle " + baseRbSwc.getArtifactId() + ":" + baseRbSwc.getClassifier()
                             + " to " + requestedLocale );
@@ -1474,6 +1629,41 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
             return rbSwc;
         }
 
+        AdaptedResourceBundleCache.Adapter adapter = new AdaptedResourceBundleCache.Adapter()
+        {
+            public void adapt( File output )
+                throws Exception
+            {
+                compileAdaptedResourceBundle( baseRbSwc, requestedLocale, output );
+            }
+        };
+
+        File adapted;
+        try
+        {
+            String key =
+                AdaptedResourceBundleCache.getKey( baseRbSwc.getFile(), requestedLocale, getCompilerVersion() );
+            adapted = AdaptedResourceBundleCache.get( resourceBundleCacheDirectory, key, adapter );
+        }
+        catch ( MavenRuntimeException e )
+        {
+            throw e;
+        }
+        catch ( Exception e )
+        {
+            throw new MavenRuntimeException( "Unable to compile adapted resource bundle", e );
+        }
+
+        getLog().debug( "Adapted resource bundle " + rbSwc + " available at " + adapted );
+        rbSwc.setFile( adapted );
+        rbSwc.setResolved( true );
+        return rbSwc;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private void compileAdaptedResourceBundle( Artifact baseRbSwc, String requestedLocale, File output )
+        throws Exception
+    {
         File dest;
         try
         {
@@ -1497,8 +1687,7 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
         ICompcConfiguration cfg = mock( ICompcConfiguration.class, RETURNS_NULL );
         when( cfg.getLoadConfig() ).thenReturn( getLoadConfig() );
         when( cfg.getIncludeResourceBundles() ).thenReturn( bundles );
-        String output = PathUtil.path( baseRbSwc.getFile() ).replace( baseRbSwc.getClassifier(), rbSwc.getClassifier() );
-        when( cfg.getOutput() ).thenReturn( output );
+        when( cfg.getOutput() ).thenReturn( PathUtil.path( output ) );
 
         ICompilerConfiguration compilerCfg = mock( ICompilerConfiguration.class, RETURNS_NULL );
         when( compilerCfg.getTheme() ).thenReturn( Collections.EMPTY_LIST );
@@ -1510,18 +1699,7 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
 
         when( cfg.getCompilerConfiguration() ).thenReturn( compilerCfg );
 
-        try
-        {
-            checkResult( compiler.compileSwc( cfg, true ) );
-        }
-        catch ( Exception e )
-        {
-            throw new MavenRuntimeException( "Unable to compile adapted resource bundle", e );
-        }
-
-        rbSwc.setFile( new File( output ) );
-        rbSwc.setResolved( true );
-        return rbSwc;
+        checkResult( compiler.compileSwc( cfg, true ) );
     }
 
     protected Map<String, String> calculateRuntimeLibraryPath( Artifact artifact, String[] rslUrls,
@@ -1571,7 +1749,7 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
         try
         {
             C clone = (C) super.clone();
-            clone.cache = new LinkedHashMap<String, Object>();
+            clone.cache = cache.fork();
             return clone;
         }
         catch ( CloneNotSupportedException e )
@@ -1601,7 +1779,8 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
         }
 
         cfg.includeResourceBundles = getResourceBundleListContent();
-        cfg.getCache().put( EXTERNAL_LIBRARY_PATH, MavenUtils.getFiles( getDependencies( type( SWC ) ) ) );
+        cfg.getCache().put( EXTERNAL_LIBRARY_PATH,
+                            MavenUtils.getFiles( getDependencyIndex().select( new String[] { SWC }, null, true ) ) );
         cfg.getCache().put( LIBRARY_PATH, MavenUtils.getFiles( cfg.getCompiledResouceBundles() ) );
 
         if ( localesOutputPath != null )
@@ -1646,17 +1825,7 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
 
         for ( String locale : locales )
         {
-            Artifact rbSwc;
-            try
-            {
-                rbSwc =
-                    resolve( beacon.getGroupId(), beacon.getArtifactId(), beacon.getVersion(), locale, beacon.getType() );
-            }
-            catch ( RuntimeMavenResolutionException e )
-            {
-                rbSwc = e.getArtifact();
-            }
-
+            Artifact rbSwc = resourceBundleArtifacts.get( beacon, locale );
             if ( rbSwc.isResolved() )
             {
                 if ( !requestedLocale.equals( locale ) )
@@ -1677,7 +1846,14 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
     protected Result executeCompiler( CFG cfg, boolean synchronize )
         throws MojoExecutionException, MojoFailureException
     {
+        configureCompilerDaemon();
+        configureCompileExecutor();
+        compilerOutputCache.setDirectory( compilerCacheDirectory );
+        compilerArgumentParser.setConfigDirectory( generatedConfigDirectory );
+
         Result result;
+        CompileTags previousTags = CompileMetrics.getTags();
+        CompileMetrics.setTags( getCompileTags( cfg ) );
         try
         {
             result = doCompile( cfg, synchronize );
@@ -1686,6 +1862,10 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
         {
             throw new MojoExecutionException( e.getMessage(), e );
         }
+        finally
+        {
+            CompileMetrics.setTags( previousTags );
+        }
 
         if ( synchronize )
         {
@@ -1695,6 +1875,135 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
         return result;
     }
 
+    private CompileTags getCompileTags( CFG cfg )
+    {
+        Object configuration = cfg;
+        if ( cfg instanceof MxmlcConfigurationHolder )
+        {
+            configuration = ( (MxmlcConfigurationHolder) cfg ).getConfiguration();
+        }
+
+        AbstractFlexCompilerMojo<?, ?> mojo = this;
+        if ( configuration instanceof AbstractFlexCompilerMojo<?, ?> )
+        {
+            mojo = (AbstractFlexCompilerMojo<?, ?>) configuration;
+        }
+
+        String locale = null;
+        if ( mojo.localesCompiled != null && mojo.localesCompiled.length != 0 )
+        {
+            locale = StringUtils.join( mojo.localesCompiled, "," );
+        }
+
+        // runtime locales use the locale as classifier
+        String module = project.getArtifactId();
+        if ( mojo.classifier != null
+            && ( locale == null || !Arrays.asList( locale.split( "," ) ).contains( mojo.classifier ) ) )
+        {
+            module += ":" + mojo.classifier;
+        }
+
+        return new CompileTags( project.getId(), getClass().getSimpleName(), module, locale );
+    }
+
+    /**
+     * Writes resources used by every compilation of this project to target/flexmojos-compile-metrics.json and, when
+     * benchmark is on, the compiler phase timings to target/flexmojos-benchmark.json
+     */
+    public void writeCompileMetrics()
+    {
+        CompileMetrics metrics = CompileMetrics.getInstance();
+        if ( metrics.getRecords( project.getId() ).isEmpty() )
+        {
+            return;
+        }
+
+        File report = new File( project.getBuild().getDirectory(), "flexmojos-compile-metrics.json" );
+        try
+        {
+            metrics.write( project.getId(), report );
+        }
+        catch ( IOException e )
+        {
+            getLog().warn( "Unable to write compile metrics to " + report + ": " + e.getMessage() );
+        }
+
+        Map<String, Map<String, Long>> timings = PhaseTimings.getInstance().getTimings( project.getId() );
+        if ( timings.isEmpty() )
+        {
+            return;
+        }
+
+        File benchmarkReport = new File( project.getBuild().getDirectory(), BENCHMARK_REPORT );
+        try
+        {
+            PhaseTimings.write( timings, benchmarkReport );
+        }
+        catch ( IOException e )
+        {
+            getLog().warn( "Unable to write benchmark timings to " + benchmarkReport + ": " + e.getMessage() );
+        }
+    }
+
+    private void configureCompileExecutor()
+    {
+        int maxThreads;
+        if ( maxCompileThreads != null && maxCompileThreads > 0 )
+        {
+            maxThreads = maxCompileThreads;
+        }
+        else if ( compilerWorkers > 0 )
+        {
+            // compilations only wait on the workers, they don't use maven heap
+            maxThreads = compilerWorkers;
+        }
+        else
+        {
+            maxThreads = CompileExecutor.estimateMaxThreads( getMemoryUsageFactor() );
+        }
+
+        // the executor is shared by every module of the session, it is sized once for all of them. Sessions are cloned
+        // per module on parallel builds, the request is not
+        CompileExecutor executor = CommandUtil.getExecutor();
+        executor.reserve( session.getRequest(), maxThreads );
+        getLog().debug( "Running up to " + executor.getMaxThreads() + " concurrent compilations" );
+    }
+
+    private void configureCompilerDaemon()
+    {
+        if ( !compilerDaemon && compilerWorkers <= 0 )
+        {
+            compilerDaemonClient.setSettings( null );
+            return;
+        }
+
+        List<File> resourceDirectories = new ArrayList<File>();
+        for ( Resource resource : resources )
+        {
+            resourceDirectories.add( new File( resource.getDirectory() ) );
+        }
+
+        List<File> classpath = asList( MavenUtils.getFiles( pluginArtifacts ) );
+        String version = getCompilerVersion() + "-" + pluginVersion;
+        if ( compilerWorkers <= 0 )
+        {
+            compilerDaemonClient.setSettings( new CompilerDaemonSettings( "flex-" + version, classpath,
+                                                                          compilerDaemonIdleTimeout * 60000L,
+                                                                          resourceDirectories ) );
+            return;
+        }
+
+        List<String> jvmArgs = new ArrayList<String>();
+        if ( StringUtils.isNotBlank( compilerWorkerJvmArgs ) )
+        {
+            jvmArgs.addAll( asList( compilerWorkerJvmArgs.trim().split( "\\s+" ) ) );
+        }
+
+        compilerDaemonClient.setSettings( new CompilerDaemonSettings( "flex-worker-" + version, classpath,
+                                                                      compilerDaemonIdleTimeout * 60000L,
+                                                                      resourceDirectories, jvmArgs, compilerWorkers ) );
+    }
+
     public Boolean getAccessible()
     {
         return accessible;
@@ -1796,7 +2105,6 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
         return compatibilityVersion;
     }
 
-    @SuppressWarnings( "unchecked" )
     protected Collection<Artifact> getCompiledResouceBundles()
     {
         if ( this.getLocale() == null )
@@ -1804,9 +2112,7 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
             return null;
         }
 
-        Collection<Artifact> rbsSwc = new LinkedHashSet<Artifact>();
-
-        Set<Artifact> beacons = getDependencies( type( RB_SWC ) );
+        Set<Artifact> beacons = getDependencyIndex().select( new String[] { RB_SWC }, null, true );
 
         String[] localeChains = this.localesCompiled;
         if ( localeChains == null )
@@ -1814,34 +2120,42 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
             localeChains = getLocale();
         }
 
-        // TODO for for for for if for for, too many nested blocks, improve this
+        // requested locales first, the rest of the chain is only looked up for the missing ones
+        Map<Artifact, Set<String>> requested = new LinkedHashMap<Artifact, Set<String>>();
+        Map<Artifact, Set<String>> fallbacks = new LinkedHashMap<Artifact, Set<String>>();
         for ( Artifact beacon : beacons )
         {
+            requested.put( beacon, new LinkedHashSet<String>() );
+            fallbacks.put( beacon, new LinkedHashSet<String>() );
             for ( String localeChain : localeChains )
             {
-                String[] locales;
-                if ( localeChain.contains( "," ) )
-                {
-                    locales = localeChain.split( "," );
-                }
-                else
+                requested.get( beacon ).add( localeChain.split( "," )[0] );
+            }
+        }
+        resourceBundleArtifacts.prefetch( requested );
+
+        for ( Artifact beacon : beacons )
+        {
+            for ( String localeChain : localeChains )
+            {
+                String[] locales = localeChain.split( "," );
+                if ( !resourceBundleArtifacts.get( beacon, locales[0] ).isResolved() )
                 {
-                    locales = new String[] { localeChain };
+                    fallbacks.get( beacon ).addAll( Arrays.asList( locales ).subList( 1, locales.length ) );
                 }
+            }
+        }
+        resourceBundleArtifacts.prefetch( fallbacks );
 
+        Collection<Artifact> rbsSwc = new LinkedHashSet<Artifact>();
+        for ( Artifact beacon : beacons )
+        {
+            for ( String localeChain : localeChains )
+            {
+                String[] locales = localeChain.split( "," );
                 String requestedLocale = locales[0];
 
-                Artifact requestedRbSwc;
-                try
-                {
-                    requestedRbSwc =
-                        resolve( beacon.getGroupId(), beacon.getArtifactId(), beacon.getVersion(), requestedLocale,
-                                 beacon.getType() );
-                }
-                catch ( RuntimeMavenResolutionException e )
-                {
-                    requestedRbSwc = e.getArtifact();
-                }
+                Artifact requestedRbSwc = resourceBundleArtifacts.get( beacon, requestedLocale );
 
                 Artifact resultRbSwc;
                 if ( requestedRbSwc.isResolved() )
@@ -2123,25 +2437,20 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
         return this;
     }
 
-    @SuppressWarnings( "unchecked" )
+    @Shareable
     public File[] getExternalLibraryPath()
     {
+        String[] scopes;
         if ( SWC.equals( getProjectType() ) )
         {
-            Matcher<? super Artifact> swcs =
-                allOf( anyOf( type( SWC ), type( ANE ) ), //
-                       anyOf( scope( EXTERNAL ), scope( CACHING ), scope( RSL ), scope( COMPILE ),
-                              scope( nullValue( String.class ) ) )//
-                );
-            return MavenUtils.getFiles( getDependencies( swcs, not( GLOBAL_MATCHER ) ), getGlobalArtifactCollection() );
+            scopes = new String[] { EXTERNAL, CACHING, RSL, COMPILE, null };
         }
         else
         {
-            return MavenUtils.getFiles( getDependencies( not( GLOBAL_MATCHER ),//
-                                                         allOf( anyOf( type( SWC ), type( ANE ) ),//
-                                                                anyOf( scope( EXTERNAL ), scope( CACHING ), scope( RSL ) ) ) ),
-                                        getGlobalArtifactCollection() );
+            scopes = new String[] { EXTERNAL, CACHING, RSL };
         }
+        return MavenUtils.getFiles( getDependencyIndex().select( LIBRARY_TYPES, scopes, false ),
+                                    getGlobalArtifactCollection() );
     }
 
     public List<String> getExterns()
@@ -2204,6 +2513,7 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
         return generateFrameLoader;
     }
 
+    @Shareable
     public Collection<Artifact> getGlobalArtifactCollection()
     {
         synchronized ( lock )
@@ -2233,10 +2543,10 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
         return includeInheritanceDependenciesOnly;
     }
 
-    @SuppressWarnings( "unchecked" )
+    @Shareable
     public File[] getIncludeLibraries()
     {
-        return MavenUtils.getFiles( getDependencies( anyOf( type( SWC ), type( ANE ) ), scope( INTERNAL ), not( GLOBAL_MATCHER ) ) );
+        return MavenUtils.getFiles( getDependencyIndex().select( LIBRARY_TYPES, new String[] { INTERNAL }, false ) );
     }
 
     public List<String> getIncludes()
@@ -2253,6 +2563,20 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
         return incremental;
     }
 
+    /**
+     * Turns incremental compilation on, unless it was explicitly disabled. Incremental compilations keep the compiler
+     * state in memory, so subsequent compilations on this VM only recompile what changed.
+     */
+    protected void defaultToIncremental()
+    {
+        incrementalCompiler.setEnabled( true );
+        if ( incremental == null )
+        {
+            incremental = true;
+            getCache().invalidate( INCREMENTAL );
+        }
+    }
+
     public Boolean getIsolateStyles()
     {
         return isolateStyles;
@@ -2303,6 +2627,9 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
         return lazyInit;
     }
 
+    /**
+     * Not {@link Shareable}, runtime locale clones put their own compiled resource bundles on it
+     */
     public File[] getLibraryPath()
     {
         return getLibraryPath( true );
@@ -2313,19 +2640,16 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
     {
         Collection<Artifact> resourceBundle =
             includeResourceBundle ? getCompiledResouceBundles() : Collections.EMPTY_LIST;
+        String[] scopes;
         if ( SWC.equals( getProjectType() ) )
         {
-            return MavenUtils.getFiles( getDependencies( anyOf( type( SWC ), type( ANE ) ), scope( MERGED ), not( GLOBAL_MATCHER ) ),
-                                        resourceBundle );
+            scopes = new String[] { MERGED };
         }
         else
         {
-            return MavenUtils.getFiles( getDependencies( anyOf( type( SWC ), type( ANE ) ),//
-                                                         anyOf( scope( MERGED ), scope( COMPILE ),
-                                                                scope( nullValue( String.class ) ) ),//
-                                                         not( GLOBAL_MATCHER ) ),//
-                                        resourceBundle );
+            scopes = new String[] { MERGED, COMPILE, null };
         }
+        return MavenUtils.getFiles( getDependencyIndex().select( LIBRARY_TYPES, scopes, false ), resourceBundle );
     }
 
     public ILicense[] getLicense()
@@ -2506,6 +2830,17 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
         return null;
     }
 
+    @Override
+    public Logger getMavenLogger()
+    {
+        if ( !Boolean.TRUE.equals( benchmark ) )
+        {
+            return super.getMavenLogger();
+        }
+
+        return new OEMLogAdapter( new BenchmarkLogger( new MavenLogger( getLog() ) ) );
+    }
+
     public Integer getMemoryUsageFactor()
     {
         return memoryUsageFactor;
@@ -2539,9 +2874,9 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
             namespaces.addAll( Arrays.asList( this.namespaces ) );
         }
 
-        File dir = getUnpackedFrameworkConfig();
+        LazyArchive configs = getFrameworkConfigArchive();
 
-        if ( dir == null )
+        if ( configs == null )
         {
             return this.namespaces;
         }
@@ -2549,7 +2884,7 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
         Reader cfg = null;
         try
         {
-            cfg = new FileReader( new File( dir, "flex-config.xml" ) );
+            cfg = ReaderFactory.newXmlReader( configs.open( "flex-config.xml" ) );
 
             Xpp3Dom dom = Xpp3DomBuilder.build( cfg );
 
@@ -2562,7 +2897,7 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
             {
                 String uri = xpp3Dom.getChild( "uri" ).getValue();
                 String manifestName = xpp3Dom.getChild( "manifest" ).getValue();
-                File manifest = new File( dir, manifestName );
+                File manifest = configs.materialize( manifestName );
 
                 namespaces.add( new MavenNamespace( uri, manifest ) );
             }
@@ -2758,12 +3093,10 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
         return null;
     }
 
-    @SuppressWarnings( "unchecked" )
     public IRuntimeSharedLibraryPath[] getRuntimeSharedLibraryPath()
     {
         // get all the rsl dependencies
-        Set<Artifact> dependencies = getDependencies( not( GLOBAL_MATCHER ),//
-                                                      anyOf( scope( RSL ), scope( CACHING ) ) );
+        Set<Artifact> dependencies = getDependencyIndex().select( null, new String[] { RSL, CACHING }, false );
 
         if ( dependencies.isEmpty() )
         {
@@ -2955,12 +3288,12 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
         return targetPlayer;
     }
 
-    @SuppressWarnings( "unchecked" )
+    @Shareable
     public List<String> getTheme()
     {
         List<File> themes = new ArrayList<File>();
         Set<Artifact> themeDependencies =
-            getDependencies( anyOf( type( SWC ), type( CSS ) ), scope( FlexScopes.THEME ) );
+            getDependencyIndex().select( new String[] { SWC, CSS }, new String[] { FlexScopes.THEME }, true );
         themes.addAll( asList( MavenUtils.getFiles( themeDependencies ) ) );
 
         // if themes are specified in the <themes> configuration
@@ -3247,7 +3580,16 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
         return getCompilerWarnings().get( "warn-xml-class-has-changed" );
     }
 
-    @SuppressWarnings( "unchecked" )
+    /**
+     * Getters computed by scanning the source directories. Continuous compilation drops them when sources change and
+     * keeps the ones that only depend on the pom and the dependencies.
+     */
+    @NotCacheable
+    protected String[] getSourceDependentGetters()
+    {
+        return new String[] { SOURCE_PATH };
+    }
+
     public boolean isCompilationRequired()
     {
         if ( !quick )
@@ -3256,76 +3598,114 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
             return true;
         }
 
-        Artifact artifact;
-        try
+        if ( journal == null )
         {
-            artifact =
-                resolve( project.getGroupId(), project.getArtifactId(), project.getVersion(), getClassifier(),
-                         project.getPackaging() );
+            journal = new FileStateJournal( getJournalFile() );
         }
-        catch ( RuntimeMavenResolutionException e )
+
+        List<String> changes;
+        try
         {
-            artifact = e.getArtifact();
+            String arguments = FileStateJournal.renderArguments( getJournaledArguments() );
+            changes = journal.check( arguments, getJournaledInputs() );
         }
-
-        if ( !artifact.isResolved() || artifact.getFile() == null || !artifact.getFile().exists() )
+        catch ( Exception e )
         {
-            // Recompile, file doesn't exists
-            getLog().warn( "Can't find any older installed version." );
+            getLog().warn( "Unable to check for changes since last compilation: " + e.getMessage() );
             return true;
         }
 
-        long lastCompiledArtifact = artifact.getFile().lastModified();
-
-        boolean required = false;
-        Set<Artifact> dependencies = getDependencies();
-        for ( Artifact dependency : dependencies )
+        if ( !changes.isEmpty() )
         {
-            if ( org.apache.commons.io.FileUtils.isFileNewer( dependency.getFile(), lastCompiledArtifact ) )
+            getLog().warn( "Found " + changes.size() + " changes since last compilation, like " + changes.get( 0 ) );
+            if ( getLog().isDebugEnabled() )
             {
-                // a dependency is newer, recompile
-                getLog().warn( "Found a updated dependency: " + dependency );
-                required = true;
+                for ( String change : changes )
+                {
+                    getLog().debug( "  " + change );
+                }
             }
+            return true;
         }
 
-        if ( !required )
+        if ( !getCompilerOutput().isFile() )
         {
-            Collection<File> files =
-                org.apache.commons.io.FileUtils.listFiles( new File( project.getBuild().getSourceDirectory() ),
-                                                           new AgeFileFilter( lastCompiledArtifact, false ),
-                                                           TrueFileFilter.INSTANCE );
+            getLog().warn( "Can't find previous output " + getCompilerOutput() );
+            return true;
+        }
 
-            // If has any newer file
-            if ( files.size() > 0 )
-            {
-                getLog().warn( "Found some updated files." );
-                required = true;
-            }
+        // attach the previous output, the same way a compilation would
+        getOutput();
+
+        // nothing new was found.
+        return false;
+    }
+
+    /**
+     * Journals the inputs seen by the last {@link #isCompilationRequired()}, once the compilation succeeded.
+     */
+    public void journalCompilation()
+    {
+        if ( journal == null )
+        {
+            return;
         }
 
-        if ( !required )
+        try
         {
-            try
-            {
-                final File output = new File( getOutput() );
+            journal.commit();
+        }
+        catch ( IOException e )
+        {
+            getLog().warn( "Unable to write " + journal.getFile() + ", next build won't be quick", e );
+        }
+    }
 
-                FileUtils.copyFile( artifact.getFile(), output );
+    private File getJournalFile()
+    {
+        String name = getClass().getSimpleName();
+        if ( getClassifier() != null )
+        {
+            name += "-" + getClassifier();
+        }
+        return new File( project.getBuild().getDirectory(), "flexmojos/" + name + ".journal" );
+    }
 
-                if ( !output.setLastModified( artifact.getFile().lastModified() ) )
-                {
-                    getLog().warn( "Could not set modified on copied artifact. Unnecessary rebuilds will occur." );
-                }
-            }
-            catch ( IOException e )
+    /**
+     * @return rendered compiler arguments, journaled so configuration changes trigger a compilation on quick mode
+     */
+    @NotCacheable
+    protected List<String> getJournaledArguments()
+    {
+        return Collections.emptyList();
+    }
+
+    /**
+     * @return files and directories read by the compilation, journaled on quick mode
+     */
+    @NotCacheable
+    protected List<File> getJournaledInputs()
+    {
+        List<File> inputs = new ArrayList<File>();
+        if ( project.getFile() != null )
+        {
+            inputs.add( project.getFile() );
+        }
+        inputs.addAll( asList( MavenUtils.getFiles( getDependencies() ) ) );
+        inputs.addAll( asList( getSourcePath() ) );
+        if ( localesSourcePath != null && localesSourcePath.getParentFile() != null )
+        {
+            // runtime locales and property files of all locales
+            inputs.add( localesSourcePath.getParentFile() );
+        }
+        if ( resources != null )
+        {
+            for ( Resource resource : resources )
             {
-                getLog().error( "Unable to copy installed version to target folder.", e );
-                return true;
+                inputs.add( new File( resource.getDirectory() ) );
             }
         }
-
-        // nothing new was found.
-        return required;
+        return inputs;
     }
 
     @SuppressWarnings( "unchecked" )
@@ -3346,11 +3726,23 @@ public abstract class AbstractFlexCompilerMojo<CFG, C extends AbstractFlexCompil
         catch ( RuntimeMavenResolutionException e )
         {
             // then try to get it from framework-config.zip
-            File dir = getUnpackedFrameworkConfig();
-            sparkCss = new File( dir, "themes/" + path + "/" + themeName + "." + type );
+            sparkCss = null;
+            LazyArchive configs = getFrameworkConfigArchive();
+            String entry = "themes/" + path + "/" + themeName + "." + type;
+            try
+            {
+                if ( configs != null && configs.contains( entry ) )
+                {
+                    sparkCss = configs.materialize( entry );
+                }
+            }
+            catch ( IOException ioE )
+            {
+                throw new MavenRuntimeException( "Error extracting " + entry + " from " + configs.getArchive(), ioE );
+            }
 
             // if not possible get it from flexmojos jar
-            if ( !sparkCss.exists() )
+            if ( sparkCss == null )
             {
                 sparkCss = new File( getOutputDirectory(), themeName + "." + type );
                 sparkCss.getParentFile().mkdirs();
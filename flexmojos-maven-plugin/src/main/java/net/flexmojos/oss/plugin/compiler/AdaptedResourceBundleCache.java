@@ -0,0 +1,136 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.plugin.compiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import net.flexmojos.oss.compiler.util.Digests;
+
+/**
+ * Machine wide cache of resource bundle SWCs adapted from another locale, see
+ * {@link AbstractFlexCompilerMojo#adaptResourceBundle}. Entries are keyed by the checksum of the base SWC, the
+ * requested locale and the compiler version, so each adaptation is compiled once per machine.
+ * <p>
+ * Modules of a parallel reactor asking for the same adaptation wait for a single compilation. Entries are written
+ * through a rename, so other builds never read a half written SWC.
+ * </p>
+ */
+final class AdaptedResourceBundleCache
+{
+
+    interface Adapter
+    {
+        /**
+         * Compiles the adapted resource bundle to the given file
+         */
+        void adapt( File output )
+            throws Exception;
+    }
+
+    private static final ConcurrentMap<File, FutureTask<File>> IN_FLIGHT =
+        new ConcurrentHashMap<File, FutureTask<File>>();
+
+    private AdaptedResourceBundleCache()
+    {
+        super();
+    }
+
+    static String getKey( File baseRbSwc, String requestedLocale, String compilerVersion )
+        throws IOException
+    {
+        return Digests.sha1( baseRbSwc ) + "-" + requestedLocale + "-" + compilerVersion;
+    }
+
+    static File get( final File directory, String key, final Adapter adapter )
+        throws Exception
+    {
+        final File entry = new File( directory, key + ".swc" );
+        if ( entry.isFile() )
+        {
+            return entry;
+        }
+
+        FutureTask<File> task = new FutureTask<File>( new Callable<File>()
+        {
+            public File call()
+                throws Exception
+            {
+                if ( entry.isFile() )
+                {
+                    return entry;
+                }
+
+                directory.mkdirs();
+                File tmp = File.createTempFile( entry.getName(), ".tmp.swc", directory );
+                try
+                {
+                    adapter.adapt( tmp );
+                    if ( !tmp.renameTo( entry ) && !entry.isFile() )
+                    {
+                        throw new IOException( "Unable to store adapted resource bundle on " + entry );
+                    }
+                }
+                finally
+                {
+                    tmp.delete();
+                }
+                return entry;
+            }
+        } );
+
+        FutureTask<File> running = IN_FLIGHT.putIfAbsent( entry, task );
+        if ( running != null )
+        {
+            return get( running );
+        }
+
+        try
+        {
+            task.run();
+            return get( task );
+        }
+        finally
+        {
+            IN_FLIGHT.remove( entry, task );
+        }
+    }
+
+    private static File get( FutureTask<File> task )
+        throws Exception
+    {
+        try
+        {
+            return task.get();
+        }
+        catch ( ExecutionException e )
+        {
+            if ( e.getCause() instanceof Exception )
+            {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+}
@@ -0,0 +1,144 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.plugin.compiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import net.flexmojos.oss.compiler.metrics.PhaseTimings;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Goal which compares the compiler phase timings recorded by a benchmark build (-Dflex.benchmark=true) against a stored
+ * baseline and reports the phases that got slower.
+ * 
+ * @goal benchmark-compare
+ * @phase verify
+ * @threadSafe
+ */
+public class BenchmarkCompareMojo
+    extends AbstractMojo
+{
+
+    /**
+     * Timings to compare against
+     * 
+     * @parameter default-value="${basedir}/flexmojos-benchmark-baseline.json" expression="${flex.benchmarkBaseline}"
+     */
+    private File benchmarkBaseline;
+
+    /**
+     * Timings recorded by this build
+     * 
+     * @parameter default-value="${project.build.directory}/flexmojos-benchmark.json"
+     */
+    private File benchmarkReport;
+
+    /**
+     * Fail the build on regressions, otherwise they are only logged as warnings
+     * 
+     * @parameter default-value="false" expression="${flex.benchmarkFailOnRegression}"
+     */
+    private boolean failOnRegression;
+
+    /**
+     * Phases that got slower by less than this many milliseconds are never reported
+     * 
+     * @parameter default-value="100" expression="${flex.benchmarkRegressionMinimum}"
+     */
+    private long regressionMinimum;
+
+    /**
+     * How much (in percent) a phase may get slower before being reported
+     * 
+     * @parameter default-value="10" expression="${flex.benchmarkRegressionThreshold}"
+     */
+    private int regressionThreshold;
+
+    /**
+     * Replace the baseline with the timings of this build after comparing
+     * 
+     * @parameter default-value="false" expression="${flex.benchmarkUpdateBaseline}"
+     */
+    private boolean updateBaseline;
+
+    public void execute()
+        throws MojoExecutionException, MojoFailureException
+    {
+        if ( !benchmarkReport.isFile() )
+        {
+            getLog().info( "No benchmark timings found at " + benchmarkReport + ", is flex.benchmark on?" );
+            return;
+        }
+
+        try
+        {
+            if ( benchmarkBaseline.isFile() )
+            {
+                compare();
+            }
+            else
+            {
+                getLog().info( "No benchmark baseline found at " + benchmarkBaseline );
+            }
+
+            if ( updateBaseline )
+            {
+                getLog().info( "Updating benchmark baseline " + benchmarkBaseline );
+                FileUtils.copyFile( benchmarkReport, benchmarkBaseline );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Unable to compare benchmark timings: " + e.getMessage(), e );
+        }
+    }
+
+    private void compare()
+        throws IOException, MojoFailureException
+    {
+        Map<String, Map<String, Long>> baseline = PhaseTimings.read( benchmarkBaseline );
+        Map<String, Map<String, Long>> current = PhaseTimings.read( benchmarkReport );
+
+        List<String> regressions = PhaseTimings.compare( baseline, current, regressionThreshold, regressionMinimum );
+        if ( regressions.isEmpty() )
+        {
+            getLog().info( "No compiler phase got more than " + regressionThreshold + "% slower than "
+                               + benchmarkBaseline );
+            return;
+        }
+
+        for ( String regression : regressions )
+        {
+            getLog().warn( "Compiler phase regression: " + regression );
+        }
+
+        if ( failOnRegression && !updateBaseline )
+        {
+            throw new MojoFailureException( regressions.size() + " compiler phase(s) got more than "
+                + regressionThreshold + "% slower than " + benchmarkBaseline );
+        }
+    }
+
+}
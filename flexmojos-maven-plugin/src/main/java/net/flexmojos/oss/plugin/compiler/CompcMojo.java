@@ -35,6 +35,7 @@ import net.flexmojos.oss.compiler.IIncludeStylesheet;
 import net.flexmojos.oss.compiler.command.Result;
 import net.flexmojos.oss.plugin.compiler.attributes.MavenIncludeStylesheet;
 import net.flexmojos.oss.plugin.compiler.attributes.SimplifiablePattern;
+import net.flexmojos.oss.plugin.compiler.lazyload.NotCacheable;
 import net.flexmojos.oss.util.PathUtil;
 
 /**
@@ -454,4 +455,18 @@ public class CompcMojo
         return root;
     }
 
+    @Override
+    @NotCacheable
+    protected String[] getSourceDependentGetters()
+    {
+        return new String[] { SOURCE_PATH, INCLUDE_CLASSES, INCLUDE_FILE, INCLUDE_SOURCES };
+    }
+
+    @Override
+    @NotCacheable
+    protected List<String> getJournaledArguments()
+    {
+        return compilerArgumentParser.getArgumentsList( this, ICompcConfiguration.class );
+    }
+
 }
@@ -17,8 +17,6 @@
  */
 package net.flexmojos.oss.plugin.compiler;
 
-import static com.marvinformatics.kiss.matchers.maven.artifact.ArtifactMatchers.scope;
-import static com.marvinformatics.kiss.matchers.maven.artifact.ArtifactMatchers.type;
 import static net.flexmojos.oss.plugin.common.FlexExtension.SWC;
 import static net.flexmojos.oss.plugin.common.FlexExtension.SWF;
 import static net.flexmojos.oss.plugin.common.FlexScopes.CACHING;
@@ -26,9 +24,6 @@ import static net.flexmojos.oss.plugin.common.FlexScopes.EXTERNAL;
 import static net.flexmojos.oss.plugin.common.FlexScopes.INTERNAL;
 import static net.flexmojos.oss.plugin.common.FlexScopes.RSL;
 import static net.flexmojos.oss.util.PathUtil.file;
-import static org.hamcrest.Matchers.allOf;
-import static org.hamcrest.Matchers.anyOf;
-import static org.hamcrest.Matchers.not;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -39,6 +34,7 @@ import net.flexmojos.oss.compiler.ICommandLineConfiguration;
 import net.flexmojos.oss.compiler.MxmlcConfigurationHolder;
 import net.flexmojos.oss.compiler.command.Result;
 import net.flexmojos.oss.plugin.compiler.attributes.Module;
+import net.flexmojos.oss.plugin.compiler.lazyload.NotCacheable;
 import net.flexmojos.oss.plugin.utilities.MavenUtils;
 import net.flexmojos.oss.plugin.utilities.SourceFileResolver;
 import net.flexmojos.oss.truster.FlashPlayerTruster;
@@ -280,13 +276,11 @@ public class MxmlcMojo
         return modules;
     }
 
-    @SuppressWarnings( "unchecked" )
     private File[] getModulesExternalLibraryPath()
     {
-        return MavenUtils.getFiles( getDependencies( not( GLOBAL_MATCHER ),//
-                                                     allOf( type( SWC ),//
-                                                            anyOf( scope( EXTERNAL ), scope( CACHING ), scope( RSL ),
-                                                                   scope( INTERNAL ) ) ) ), getGlobalArtifactCollection() );
+        return MavenUtils.getFiles( getDependencyIndex().select( new String[] { SWC },
+                                                                 new String[] { EXTERNAL, CACHING, RSL, INTERNAL },
+                                                                 false ), getGlobalArtifactCollection() );
     }
 
     public String getProjector()
@@ -306,6 +300,21 @@ public class MxmlcMojo
                                                      project.getArtifactId() );
     }
 
+    @Override
+    @NotCacheable
+    protected String[] getSourceDependentGetters()
+    {
+        // main application may have been created or renamed
+        return new String[] { SOURCE_PATH, "getSourceFile" };
+    }
+
+    @Override
+    @NotCacheable
+    protected List<String> getJournaledArguments()
+    {
+        return compilerArgumentParser.getArgumentsList( this, ICommandLineConfiguration.class );
+    }
+
     public boolean isUpdateSecuritySandbox()
     {
         return updateSecuritySandbox;
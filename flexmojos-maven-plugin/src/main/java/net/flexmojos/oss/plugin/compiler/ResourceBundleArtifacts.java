@@ -0,0 +1,139 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.plugin.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.artifact.Artifact;
+
+/**
+ * Resource bundle SWCs of the beacons, looked up once per coordinate. Misses are remembered as well, most locales of a
+ * localization chain don't exist on any repository and each miss costs a remote lookup.
+ * <p>
+ * A mojo and the clones compiling its runtime locales share one instance, they look up the same coordinates.
+ * </p>
+ */
+final class ResourceBundleArtifacts
+{
+
+    interface Resolver
+    {
+        /**
+         * @return resource bundle SWC of the beacon for the locale, not resolved when missing
+         */
+        Artifact resolve( Artifact beacon, String locale );
+    }
+
+    private static final int THREADS = 4;
+
+    /**
+     * Lookups are network bound, one pool serves every build of this VM
+     */
+    private static final ThreadPoolExecutor EXECUTOR =
+        new ThreadPoolExecutor( THREADS, THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                                new ThreadFactory()
+                                {
+                                    public Thread newThread( Runnable r )
+                                    {
+                                        Thread thread = new Thread( r, "flexmojos-resource-bundle-resolver" );
+                                        thread.setDaemon( true );
+                                        return thread;
+                                    }
+                                } );
+
+    static
+    {
+        EXECUTOR.allowCoreThreadTimeOut( true );
+    }
+
+    private final ConcurrentMap<String, Artifact> artifacts = new ConcurrentHashMap<String, Artifact>();
+
+    private final Resolver resolver;
+
+    ResourceBundleArtifacts( Resolver resolver )
+    {
+        this.resolver = resolver;
+    }
+
+    /**
+     * @return resource bundle SWC of the beacon for the locale, not resolved when missing
+     */
+    Artifact get( Artifact beacon, String locale )
+    {
+        String key =
+            beacon.getGroupId() + ":" + beacon.getArtifactId() + ":" + beacon.getVersion() + ":" + locale + ":"
+                + beacon.getType();
+
+        Artifact rbSwc = artifacts.get( key );
+        if ( rbSwc == null )
+        {
+            rbSwc = resolver.resolve( beacon, locale );
+            artifacts.put( key, rbSwc );
+        }
+        return rbSwc;
+    }
+
+    /**
+     * Looks up the resource bundle SWCs of every beacon and locale at once, so the remote lookups overlap instead of
+     * running one after the other. Failures are ignored here, looking them up again reports them.
+     */
+    void prefetch( Map<Artifact, Set<String>> localesByBeacon )
+    {
+        List<Callable<Artifact>> tasks = new ArrayList<Callable<Artifact>>();
+        for ( final Entry<Artifact, Set<String>> entry : localesByBeacon.entrySet() )
+        {
+            for ( final String locale : entry.getValue() )
+            {
+                tasks.add( new Callable<Artifact>()
+                {
+                    public Artifact call()
+                    {
+                        return get( entry.getKey(), locale );
+                    }
+                } );
+            }
+        }
+
+        if ( tasks.size() < 2 )
+        {
+            // nothing worth a thread, whatever is left is looked up on demand
+            return;
+        }
+
+        try
+        {
+            EXECUTOR.invokeAll( tasks );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
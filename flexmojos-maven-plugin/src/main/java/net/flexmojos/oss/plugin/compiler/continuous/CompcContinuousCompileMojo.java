@@ -17,9 +17,12 @@
  */
 package net.flexmojos.oss.plugin.compiler.continuous;
 
+import static java.util.Arrays.asList;
+
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import net.flexmojos.oss.plugin.compiler.CompcMojo;
+import net.flexmojos.oss.plugin.utilities.MavenUtils;
 
 /**
  * @since 4.0
@@ -33,6 +36,23 @@ import net.flexmojos.oss.plugin.compiler.CompcMojo;
 public class CompcContinuousCompileMojo
     extends CompcMojo
 {
+
+    /**
+     * How often, in milliseconds, sources and resources are checked for changes when the JVM has no file system watch
+     * service (Java 6), libraries are checked every fifth time. On Java 7 and later changes are noticed as they happen
+     * 
+     * @parameter default-value="2000" expression="${flex.watchInterval}"
+     */
+    private long watchInterval;
+
+    /**
+     * How long, in milliseconds, files must stay unchanged before compiling, so a burst of saves triggers a single
+     * compilation
+     * 
+     * @parameter default-value="300" expression="${flex.watchDebounce}"
+     */
+    private long watchDebounce;
+
     /**
      * {@inheritDoc}
      */
@@ -47,6 +67,16 @@ public class CompcContinuousCompileMojo
 
         super.quick = true;
 
+        //
+        // Keep compiler state between compilations, so only changed units are
+        // recompiled.
+        //
+
+        defaultToIncremental();
+
+        SourceWatcher watcher =
+            new SourceWatcher( getJournaledInputs(), asList( MavenUtils.getFiles( getDependencies() ) ),
+                               watchInterval, watchDebounce );
         try
         {
             showInfo();
@@ -57,25 +87,27 @@ public class CompcContinuousCompileMojo
                 {
                     //
                     // We have to compile so let's hand the job to
-                    // the CompcMojo implementation and do the actual work.
+                    // the CompcMojo implementation and do the actual work. Only the
+                    // getters computed from sources are stale, keep the others.
                     //
 
+                    getCache().invalidate( getSourceDependentGetters() );
                     super.execute();
 
                     showInfo();
-
-                    Thread.sleep( 4000L );
-                }
-                else
-                {
-                    Thread.sleep( 2000L );
                 }
+
+                watcher.awaitChange();
             }
         }
         catch ( final InterruptedException interruptException )
         {
             // nothing to do here
         }
+        finally
+        {
+            watcher.close();
+        }
     }
 
     protected void showInfo()
@@ -17,11 +17,14 @@
  */
 package net.flexmojos.oss.plugin.compiler.continuous;
 
+import static java.util.Arrays.asList;
+
 import java.io.File;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import net.flexmojos.oss.plugin.compiler.MxmlcMojo;
+import net.flexmojos.oss.plugin.utilities.MavenUtils;
 import net.flexmojos.oss.test.TestRequest;
 import net.flexmojos.oss.test.launcher.AsVmLauncher;
 import net.flexmojos.oss.test.launcher.LaunchFlashPlayerException;
@@ -66,6 +69,22 @@ public class MxmlcContinuousCompileMojo
      */
     private AsVmLauncher vmLauncher;
 
+    /**
+     * How often, in milliseconds, sources and resources are checked for changes when the JVM has no file system watch
+     * service (Java 6), libraries are checked every fifth time. On Java 7 and later changes are noticed as they happen
+     * 
+     * @parameter default-value="2000" expression="${flex.watchInterval}"
+     */
+    private long watchInterval;
+
+    /**
+     * How long, in milliseconds, files must stay unchanged before compiling, so a burst of saves triggers a single
+     * compilation
+     * 
+     * @parameter default-value="300" expression="${flex.watchDebounce}"
+     */
+    private long watchDebounce;
+
     /**
      * {@inheritDoc}
      */
@@ -80,10 +99,20 @@ public class MxmlcContinuousCompileMojo
 
         super.quick = true;
 
+        //
+        // Keep compiler state between compilations, so only changed units are
+        // recompiled.
+        //
+
+        defaultToIncremental();
+
         //
         // Use default if Flash Player command has not been set.
         //
 
+        SourceWatcher watcher =
+            new SourceWatcher( getJournaledInputs(), asList( MavenUtils.getFiles( getDependencies() ) ),
+                               watchInterval, watchDebounce );
         try
         {
             showInfo();
@@ -94,9 +123,11 @@ public class MxmlcContinuousCompileMojo
                 {
                     //
                     // We have to compile so let's hand the job to
-                    // the MxmlcMojo implementation and do the actual work.
+                    // the MxmlcMojo implementation and do the actual work. Only the
+                    // getters computed from sources are stale, keep the others.
                     //
 
+                    getCache().invalidate( getSourceDependentGetters() );
                     super.execute();
 
                     showInfo();
@@ -108,19 +139,19 @@ public class MxmlcContinuousCompileMojo
                     {
                         getLog().warn( launchFlashPlayerException );
                     }
-
-                    Thread.sleep( 4000L );
-                }
-                else
-                {
-                    Thread.sleep( 2000L );
                 }
+
+                watcher.awaitChange();
             }
         }
         catch ( final InterruptedException interruptException )
         {
             // nothing to do here
         }
+        finally
+        {
+            watcher.close();
+        }
     }
 
     protected void showInfo()
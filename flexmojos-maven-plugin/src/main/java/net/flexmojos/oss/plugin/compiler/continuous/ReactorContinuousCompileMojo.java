@@ -0,0 +1,410 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.plugin.compiler.continuous;
+
+import static net.flexmojos.oss.plugin.common.FlexExtension.SWC;
+import static net.flexmojos.oss.plugin.common.FlexExtension.SWF;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.flexmojos.oss.compiler.incremental.IncrementalCompiler;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.ProjectDependencyGraph;
+import org.apache.maven.lifecycle.LifecycleExecutor;
+import org.apache.maven.lifecycle.MavenExecutionPlan;
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.BuildPluginManager;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+/**
+ * Goal which keeps every flex module of the reactor compiled. A single watcher covers all modules; once a module
+ * changes it is recompiled, followed by the reactor modules depending on it, in dependency order. Modules that don't
+ * depend on each other are compiled in parallel.
+ * <p>
+ * Modules are compiled by their own compile-swc/compile-swf configuration, on quick and incremental mode. Freshly
+ * compiled libraries replace the resolved ones on the modules depending on them, but reactor dependencies must still
+ * resolve when the goal starts, so build the reactor once before.
+ * </p>
+ * 
+ * @goal cc-reactor
+ * @aggregator
+ * @requiresDependencyResolution compile
+ * @requiresDirectInvocation
+ */
+public class ReactorContinuousCompileMojo
+    extends AbstractMojo
+{
+
+    /**
+     * @component
+     * @readonly
+     */
+    private BuildPluginManager buildPluginManager;
+
+    /**
+     * How many modules may be compiled at the same time
+     * 
+     * @parameter default-value="2" expression="${flex.reactorCompileThreads}"
+     */
+    private int compileThreads;
+
+    /**
+     * @component
+     * @readonly
+     */
+    private IncrementalCompiler incrementalCompiler;
+
+    /**
+     * @component
+     * @readonly
+     */
+    private LifecycleExecutor lifecycleExecutor;
+
+    /**
+     * @parameter expression="${plugin}"
+     * @required
+     * @readonly
+     */
+    private PluginDescriptor plugin;
+
+    /**
+     * @parameter expression="${reactorProjects}"
+     * @required
+     * @readonly
+     */
+    private List<MavenProject> reactorProjects;
+
+    /**
+     * @parameter expression="${session}"
+     * @required
+     * @readonly
+     */
+    private MavenSession session;
+
+    /**
+     * How long, in milliseconds, files must stay unchanged before compiling, so a burst of saves triggers a single
+     * compilation
+     * 
+     * @parameter default-value="300" expression="${flex.watchDebounce}"
+     */
+    private long watchDebounce;
+
+    /**
+     * How often, in milliseconds, sources and resources of all modules are checked for changes when the JVM has no
+     * file system watch service (Java 6). On Java 7 and later changes are noticed as they happen
+     * 
+     * @parameter default-value="2000" expression="${flex.watchInterval}"
+     */
+    private long watchInterval;
+
+    public void execute()
+        throws MojoExecutionException, MojoFailureException
+    {
+        List<MavenProject> modules = new ArrayList<MavenProject>();
+        for ( MavenProject project : reactorProjects )
+        {
+            if ( SWC.equals( project.getPackaging() ) || SWF.equals( project.getPackaging() ) )
+            {
+                modules.add( project );
+            }
+        }
+
+        if ( modules.isEmpty() )
+        {
+            getLog().info( "No flex modules found on the reactor." );
+            return;
+        }
+
+        // longest roots first, so nested modules own their own files
+        Map<String, MavenProject> owners = new TreeMap<String, MavenProject>( new Comparator<String>()
+        {
+            public int compare( String o1, String o2 )
+            {
+                int diff = o2.length() - o1.length();
+                return diff != 0 ? diff : o1.compareTo( o2 );
+            }
+        } );
+        for ( MavenProject module : modules )
+        {
+            for ( File root : getWatchedRoots( module ) )
+            {
+                owners.put( root.getPath(), module );
+            }
+        }
+
+        List<File> roots = new ArrayList<File>();
+        for ( String root : owners.keySet() )
+        {
+            roots.add( new File( root ) );
+        }
+        SourceWatcher watcher =
+            new SourceWatcher( roots, Collections.<File> emptyList(), watchInterval, watchDebounce );
+
+        ExecutorService executor = Executors.newFixedThreadPool( Math.max( 1, compileThreads ) );
+        try
+        {
+            compile( modules, executor );
+            showInfo();
+
+            while ( !Thread.interrupted() )
+            {
+                Set<MavenProject> changed = new HashSet<MavenProject>();
+                for ( String path : watcher.awaitChange() )
+                {
+                    MavenProject owner = getOwner( owners, path );
+                    if ( owner != null )
+                    {
+                        changed.add( owner );
+                    }
+                }
+
+                if ( !changed.isEmpty() )
+                {
+                    compile( getAffectedModules( modules, changed ), executor );
+                    showInfo();
+                }
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            // nothing to do here
+        }
+        finally
+        {
+            executor.shutdownNow();
+            watcher.close();
+        }
+    }
+
+    protected void showInfo()
+    {
+        getLog().info( "Waiting for files to compile ..." );
+    }
+
+    private List<File> getWatchedRoots( MavenProject module )
+    {
+        List<File> roots = new ArrayList<File>();
+        roots.add( module.getFile() );
+        for ( String root : module.getCompileSourceRoots() )
+        {
+            roots.add( new File( root ) );
+        }
+        for ( Resource resource : module.getResources() )
+        {
+            roots.add( new File( resource.getDirectory() ) );
+        }
+        roots.add( new File( module.getBasedir(), "src/main/locales" ) );
+        return roots;
+    }
+
+    private static MavenProject getOwner( Map<String, MavenProject> owners, String path )
+    {
+        for ( Map.Entry<String, MavenProject> owner : owners.entrySet() )
+        {
+            String root = owner.getKey();
+            if ( path.equals( root ) || path.startsWith( root + File.separator ) )
+            {
+                return owner.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return changed modules and the modules depending on them, on reactor order
+     */
+    private List<MavenProject> getAffectedModules( List<MavenProject> modules, Set<MavenProject> changed )
+    {
+        ProjectDependencyGraph graph = session.getProjectDependencyGraph();
+        Set<MavenProject> affected = new HashSet<MavenProject>( changed );
+        for ( MavenProject project : changed )
+        {
+            affected.addAll( graph.getDownstreamProjects( project, true ) );
+        }
+
+        List<MavenProject> ordered = new ArrayList<MavenProject>();
+        for ( MavenProject module : modules )
+        {
+            if ( affected.contains( module ) )
+            {
+                ordered.add( module );
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Compiles the modules level by level, a module only starts once all its upstream modules compiled. Modules
+     * depending on a failed one are skipped.
+     * 
+     * @param modules in reactor order
+     */
+    private void compile( List<MavenProject> modules, ExecutorService executor )
+        throws InterruptedException
+    {
+        ReactorSchedule schedule = new ReactorSchedule( session.getProjectDependencyGraph() );
+
+        Set<MavenProject> failed = new HashSet<MavenProject>();
+        for ( List<MavenProject> level : schedule.getLevels( modules ) )
+        {
+            Map<MavenProject, Future<Boolean>> results = new LinkedHashMap<MavenProject, Future<Boolean>>();
+            for ( final MavenProject module : level )
+            {
+                if ( schedule.isBlocked( module, failed ) )
+                {
+                    getLog().warn( "Skipping " + module.getId() + ", a module it depends on failed to compile." );
+                    failed.add( module );
+                    continue;
+                }
+
+                results.put( module, executor.submit( new Callable<Boolean>()
+                {
+                    public Boolean call()
+                    {
+                        return compile( module );
+                    }
+                } ) );
+            }
+
+            for ( Map.Entry<MavenProject, Future<Boolean>> result : results.entrySet() )
+            {
+                try
+                {
+                    if ( !result.getValue().get() )
+                    {
+                        failed.add( result.getKey() );
+                    }
+                }
+                catch ( ExecutionException e )
+                {
+                    getLog().error( "Unable to compile " + result.getKey().getId(), e.getCause() );
+                    failed.add( result.getKey() );
+                }
+            }
+        }
+    }
+
+    private boolean compile( MavenProject module )
+    {
+        String goal = SWC.equals( module.getPackaging() ) ? "compile-swc" : "compile-swf";
+        getLog().info( "Compiling " + module.getId() );
+
+        // mojos executed on this thread keep their compiler state between compilations
+        incrementalCompiler.setEnabled( true );
+
+        // every thread needs its own current project
+        MavenSession moduleSession = session.clone();
+        moduleSession.setCurrentProject( module );
+        try
+        {
+            MavenExecutionPlan plan =
+                lifecycleExecutor.calculateExecutionPlan( moduleSession, plugin.getGroupId() + ":"
+                    + plugin.getArtifactId() + ":" + plugin.getVersion() + ":" + goal );
+            for ( MojoExecution execution : plan.getMojoExecutions() )
+            {
+                Xpp3Dom configuration = execution.getConfiguration();
+                if ( configuration != null )
+                {
+                    // quick mode skips modules whose inputs didn't really change
+                    setValue( configuration, "quick", "true", false );
+                    setValue( configuration, "incremental", "true", false );
+                }
+                buildPluginManager.executeMojo( moduleSession, execution );
+            }
+        }
+        catch ( Exception e )
+        {
+            getLog().error( "Unable to compile " + module.getId() + ": " + e.getMessage() );
+            getLog().debug( e );
+            return false;
+        }
+
+        if ( SWC.equals( module.getPackaging() ) )
+        {
+            publish( module );
+        }
+        return true;
+    }
+
+    private static void setValue( Xpp3Dom configuration, String name, String value, boolean override )
+    {
+        Xpp3Dom child = configuration.getChild( name );
+        if ( child == null )
+        {
+            child = new Xpp3Dom( name );
+            configuration.addChild( child );
+        }
+        else if ( !override && child.getValue() != null && !child.getValue().startsWith( "${" ) )
+        {
+            // configured on the pom
+            return;
+        }
+        child.setValue( value );
+    }
+
+    /**
+     * Points the modules depending on library to its fresh output, instead of the version resolved when the goal
+     * started.
+     */
+    private void publish( MavenProject library )
+    {
+        File output = library.getArtifact().getFile();
+        if ( output == null || !output.isFile() )
+        {
+            return;
+        }
+
+        ProjectDependencyGraph graph = session.getProjectDependencyGraph();
+        for ( MavenProject downstream : graph.getDownstreamProjects( library, true ) )
+        {
+            for ( Artifact artifact : downstream.getArtifacts() )
+            {
+                if ( library.getGroupId().equals( artifact.getGroupId() )
+                    && library.getArtifactId().equals( artifact.getArtifactId() )
+                    && SWC.equals( artifact.getType() ) && artifact.getClassifier() == null )
+                {
+                    artifact.setFile( output );
+                    artifact.setResolved( true );
+                }
+            }
+        }
+    }
+
+}
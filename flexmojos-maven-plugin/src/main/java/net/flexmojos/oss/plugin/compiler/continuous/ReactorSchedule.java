@@ -0,0 +1,82 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.plugin.compiler.continuous;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.execution.ProjectDependencyGraph;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Orders reactor modules for compilation: a module sits one level above the deepest module it depends on, directly or
+ * through modules that aren't compiled, so modules of the same level can be compiled in parallel.
+ */
+class ReactorSchedule
+{
+
+    private final ProjectDependencyGraph graph;
+
+    ReactorSchedule( ProjectDependencyGraph graph )
+    {
+        this.graph = graph;
+    }
+
+    /**
+     * @param modules in reactor order
+     * @return modules grouped by level, lowest level first
+     */
+    List<List<MavenProject>> getLevels( List<MavenProject> modules )
+    {
+        Map<MavenProject, Integer> levels = new HashMap<MavenProject, Integer>();
+        List<List<MavenProject>> byLevel = new ArrayList<List<MavenProject>>();
+        for ( MavenProject module : modules )
+        {
+            int level = 0;
+            for ( MavenProject upstream : graph.getUpstreamProjects( module, true ) )
+            {
+                Integer upstreamLevel = levels.get( upstream );
+                if ( upstreamLevel != null )
+                {
+                    level = Math.max( level, upstreamLevel + 1 );
+                }
+            }
+            levels.put( module, level );
+
+            while ( byLevel.size() <= level )
+            {
+                byLevel.add( new ArrayList<MavenProject>() );
+            }
+            byLevel.get( level ).add( module );
+        }
+        return byLevel;
+    }
+
+    /**
+     * @return true when module depends, directly or not, on a module that failed to compile
+     */
+    boolean isBlocked( MavenProject module, Collection<MavenProject> failed )
+    {
+        return !Collections.disjoint( failed, graph.getUpstreamProjects( module, true ) );
+    }
+
+}
@@ -0,0 +1,411 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.plugin.compiler.continuous;
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Waits for changes on the files read by a continuous compilation. Scans only stat files, nothing is read or hashed,
+ * and a burst of saves is coalesced into a single change once the files are quiet for the debounce window.
+ * <p>
+ * On Java 7 and later the directories are registered on a {@code java.nio.file.WatchService}, looked up by
+ * reflection, and the files are only scanned once it reports an event. On Java 6, or when the directories can't be
+ * registered, the files are scanned every interval instead and libraries, which rarely change while coding, are
+ * stat'ed every {@value #LIBRARY_TICKS} scans only.
+ * </p>
+ */
+class SourceWatcher
+{
+
+    static final int LIBRARY_TICKS = 5;
+
+    private final List<File> roots;
+
+    private final List<File> libraries;
+
+    private final long interval;
+
+    private final long debounce;
+
+    private Watch watch;
+
+    private Map<String, Stamp> snapshot;
+
+    private Map<String, Stamp> libraryStamps;
+
+    private int ticks;
+
+    /**
+     * Takes the initial snapshot, so changes made while the first compilation runs are noticed too.
+     * 
+     * @param roots files and directories to watch, directories are walked
+     * @param libraries library files to watch, also ignored on roots
+     * @param interval how often files are scanned when no watch service is available
+     */
+    SourceWatcher( Collection<File> roots, Collection<File> libraries, long interval, long debounce )
+    {
+        this( roots, libraries, interval, debounce, Watch.open() );
+    }
+
+    SourceWatcher( Collection<File> roots, Collection<File> libraries, long interval, long debounce, Watch watch )
+    {
+        this.roots = new ArrayList<File>( roots );
+        this.roots.removeAll( libraries );
+        this.libraries = new ArrayList<File>( libraries );
+        this.interval = interval;
+        this.debounce = debounce;
+        this.watch = watch;
+        for ( File library : libraries )
+        {
+            register( library.getParentFile() );
+        }
+        this.snapshot = scan();
+    }
+
+    /**
+     * Blocks until a file is added, removed or modified under the roots and no further change happened for the
+     * debounce window.
+     * 
+     * @return paths of the added, removed and modified files
+     */
+    Set<String> awaitChange()
+        throws InterruptedException
+    {
+        Map<String, Stamp> current;
+        do
+        {
+            if ( watch != null )
+            {
+                watch.await();
+            }
+            else
+            {
+                Thread.sleep( interval );
+            }
+            current = scan();
+        }
+        while ( current.equals( snapshot ) );
+
+        // editors and refactorings save several files in a row, wait for them
+        Map<String, Stamp> settled;
+        while ( true )
+        {
+            Thread.sleep( debounce );
+            if ( watch != null )
+            {
+                watch.drain();
+            }
+            settled = scan();
+            if ( settled.equals( current ) )
+            {
+                break;
+            }
+            current = settled;
+        }
+
+        Set<String> changed = new HashSet<String>();
+        for ( Map.Entry<String, Stamp> entry : settled.entrySet() )
+        {
+            if ( !entry.getValue().equals( snapshot.get( entry.getKey() ) ) )
+            {
+                changed.add( entry.getKey() );
+            }
+        }
+        for ( String path : snapshot.keySet() )
+        {
+            if ( !settled.containsKey( path ) )
+            {
+                changed.add( path );
+            }
+        }
+
+        snapshot = settled;
+        return changed;
+    }
+
+    /**
+     * @return whether changes are reported by a watch service rather than polled
+     */
+    boolean isWatching()
+    {
+        return watch != null;
+    }
+
+    /**
+     * Releases the watch service, if any.
+     */
+    void close()
+    {
+        if ( watch != null )
+        {
+            watch.close();
+            watch = null;
+        }
+    }
+
+    private Map<String, Stamp> scan()
+    {
+        // scans are triggered by events when watching, libraries are cheap enough to stat every time then
+        if ( watch != null || ticks++ % LIBRARY_TICKS == 0 )
+        {
+            libraryStamps = new HashMap<String, Stamp>();
+            for ( File library : libraries )
+            {
+                libraryStamps.put( library.getPath(), new Stamp( library.lastModified(), library.length() ) );
+            }
+        }
+
+        Map<String, Stamp> stamps = new HashMap<String, Stamp>( libraryStamps );
+        for ( File root : roots )
+        {
+            if ( !root.isDirectory() )
+            {
+                // files and missing roots are noticed through their parent
+                register( root.getParentFile() );
+            }
+            scan( root, stamps );
+        }
+        return stamps;
+    }
+
+    private void scan( File file, Map<String, Stamp> stamps )
+    {
+        // registered before listing, so files added in between are either listed or reported
+        if ( file.isDirectory() )
+        {
+            register( file );
+        }
+
+        File[] children = file.listFiles();
+        if ( children != null )
+        {
+            for ( File child : children )
+            {
+                scan( child, stamps );
+            }
+        }
+        else if ( file.isFile() )
+        {
+            stamps.put( file.getPath(), new Stamp( file.lastModified(), file.length() ) );
+        }
+    }
+
+    private void register( File dir )
+    {
+        if ( watch == null || dir == null || !dir.isDirectory() )
+        {
+            return;
+        }
+
+        try
+        {
+            watch.register( dir );
+        }
+        catch ( Exception e )
+        {
+            if ( dir.isDirectory() )
+            {
+                // out of watches or an unsupported file system, changes could go unnoticed
+                close();
+            }
+        }
+    }
+
+    private static final class Stamp
+    {
+        private final long lastModified;
+
+        private final long length;
+
+        private Stamp( long lastModified, long length )
+        {
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( !( obj instanceof Stamp ) )
+            {
+                return false;
+            }
+            Stamp other = (Stamp) obj;
+            return lastModified == other.lastModified && length == other.length;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (int) ( lastModified ^ ( lastModified >>> 32 ) ) * 31 + (int) length;
+        }
+    }
+
+    /**
+     * {@code java.nio.file.WatchService} through reflection, the plugin still runs on Java 6. Events only tell that
+     * something changed, the scan that follows tells what.
+     */
+    static final class Watch
+    {
+        private final Object service;
+
+        private final Object[] kinds;
+
+        private final Method toPath;
+
+        private final Method register;
+
+        private final Method take;
+
+        private final Method poll;
+
+        private final Method pollEvents;
+
+        private final Method reset;
+
+        private final Method close;
+
+        private Watch( Object service, Object[] kinds, Method toPath, Method register, Method take, Method poll,
+                       Method pollEvents, Method reset, Method close )
+        {
+            this.service = service;
+            this.kinds = kinds;
+            this.toPath = toPath;
+            this.register = register;
+            this.take = take;
+            this.poll = poll;
+            this.pollEvents = pollEvents;
+            this.reset = reset;
+            this.close = close;
+        }
+
+        /**
+         * @return a new watch service on the default file system, or null before Java 7
+         */
+        static Watch open()
+        {
+            try
+            {
+                Object fileSystem =
+                    Class.forName( "java.nio.file.FileSystems" ).getMethod( "getDefault" ).invoke( null );
+                Object service =
+                    Class.forName( "java.nio.file.FileSystem" ).getMethod( "newWatchService" ).invoke( fileSystem );
+
+                Class<?> serviceType = Class.forName( "java.nio.file.WatchService" );
+                Class<?> keyType = Class.forName( "java.nio.file.WatchKey" );
+                Class<?> standardKinds = Class.forName( "java.nio.file.StandardWatchEventKinds" );
+                Object[] kinds = (Object[]) Array.newInstance( Class.forName( "java.nio.file.WatchEvent$Kind" ), 3 );
+                kinds[0] = standardKinds.getField( "ENTRY_CREATE" ).get( null );
+                kinds[1] = standardKinds.getField( "ENTRY_DELETE" ).get( null );
+                kinds[2] = standardKinds.getField( "ENTRY_MODIFY" ).get( null );
+
+                return new Watch( service, kinds, File.class.getMethod( "toPath" ),
+                                  Class.forName( "java.nio.file.Path" ).getMethod( "register", serviceType,
+                                                                                   kinds.getClass() ),
+                                  serviceType.getMethod( "take" ), serviceType.getMethod( "poll" ),
+                                  keyType.getMethod( "pollEvents" ), keyType.getMethod( "reset" ),
+                                  serviceType.getMethod( "close" ) );
+            }
+            catch ( Exception e )
+            {
+                return null;
+            }
+        }
+
+        void register( File dir )
+            throws Exception
+        {
+            register.invoke( toPath.invoke( dir ), service, kinds );
+        }
+
+        /**
+         * Blocks until at least one event is reported, then discards all pending events.
+         */
+        void await()
+            throws InterruptedException
+        {
+            try
+            {
+                clear( take.invoke( service ) );
+            }
+            catch ( InvocationTargetException e )
+            {
+                if ( e.getCause() instanceof InterruptedException )
+                {
+                    throw (InterruptedException) e.getCause();
+                }
+                throw new IllegalStateException( e.getCause() );
+            }
+            catch ( IllegalAccessException e )
+            {
+                throw new IllegalStateException( e );
+            }
+            drain();
+        }
+
+        /**
+         * Discards all pending events.
+         */
+        void drain()
+        {
+            try
+            {
+                Object key;
+                while ( ( key = poll.invoke( service ) ) != null )
+                {
+                    clear( key );
+                }
+            }
+            catch ( Exception e )
+            {
+                throw new IllegalStateException( e );
+            }
+        }
+
+        private void clear( Object key )
+            throws InvocationTargetException, IllegalAccessException
+        {
+            pollEvents.invoke( key );
+            // a key is only signalled again once reset, a deleted directory just stays invalid
+            reset.invoke( key );
+        }
+
+        void close()
+        {
+            try
+            {
+                close.invoke( service );
+            }
+            catch ( Exception e )
+            {
+                // nothing left to release
+            }
+        }
+    }
+
+}
@@ -17,12 +17,10 @@
  */
 package net.flexmojos.oss.plugin.compiler.lazyload;
 
-import java.util.Map;
-
 public interface Cacheable
 {
 
     @NotCacheable
-    public Map<String, Object> getCache();
+    public GetterCache getCache();
 
 }
@@ -0,0 +1,347 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.plugin.compiler.lazyload;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Values returned by the getters of a {@link Cacheable} mojo, keyed by method signature (ie
+ * <code>getLibraryPath()</code>).
+ * <p>
+ * Safe to use from several threads. Two threads may compute the same getter concurrently, getters are expected to
+ * return equivalent values, so the last one wins. Values computed while the cache was invalidated are not stored.
+ * </p>
+ * <p>
+ * Caches of cloned mojos are {@link #fork() forked}: they read {@link Shareable} values through an immutable snapshot
+ * of the original cache, shared by every clone, and keep whatever they compute or override on their own. Shared values
+ * are {@link #freeze(Object) copied} into the snapshot.
+ * </p>
+ */
+public final class GetterCache
+{
+
+    /**
+     * Returned by {@link #lookup(String)} when there is no value for a key
+     */
+    public static final Object MISS = new Object();
+
+    private static final Object NULL = new Object();
+
+    public static final class Statistics
+    {
+        private final String key;
+
+        private final AtomicLong hits = new AtomicLong();
+
+        private final AtomicLong misses = new AtomicLong();
+
+        private final AtomicLong computeNanos = new AtomicLong();
+
+        private Statistics( String key )
+        {
+            this.key = key;
+        }
+
+        public String getKey()
+        {
+            return key;
+        }
+
+        public long getHits()
+        {
+            return hits.get();
+        }
+
+        public long getMisses()
+        {
+            return misses.get();
+        }
+
+        /**
+         * @return total time spent computing this getter, including the getters it calls
+         */
+        public long getComputeNanos()
+        {
+            return computeNanos.get();
+        }
+
+        @Override
+        public String toString()
+        {
+            return key + ": " + getHits() + " hits, " + getMisses() + " misses, " + getComputeNanos() / 1000000
+                + "ms computing";
+        }
+    }
+
+    private final ConcurrentMap<String, Object> values = new ConcurrentHashMap<String, Object>();
+
+    private final ConcurrentMap<String, Statistics> statistics = new ConcurrentHashMap<String, Statistics>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Keys of the values computed by {@link Shareable} getters
+     */
+    private final ConcurrentMap<String, Boolean> shareable = new ConcurrentHashMap<String, Boolean>();
+
+    /**
+     * Shareable values of the cache this one was forked from, never modified
+     */
+    private volatile Map<String, Object> parent;
+
+    /**
+     * Parent keys invalidated on this cache
+     */
+    private final ConcurrentMap<String, Boolean> masked = new ConcurrentHashMap<String, Boolean>();
+
+    private Map<String, Object> snapshot;
+
+    private long snapshotGeneration = -1;
+
+    private int snapshotSize;
+
+    public GetterCache()
+    {
+        this( Collections.<String, Object> emptyMap() );
+    }
+
+    private GetterCache( Map<String, Object> parent )
+    {
+        this.parent = parent;
+    }
+
+    public static String key( String name, Class<?>... parameterTypes )
+    {
+        StringBuilder key = new StringBuilder( name ).append( '(' );
+        for ( int i = 0; i < parameterTypes.length; i++ )
+        {
+            if ( i != 0 )
+            {
+                key.append( ',' );
+            }
+            key.append( parameterTypes[i].getName() );
+        }
+        return key.append( ')' ).toString();
+    }
+
+    /**
+     * Accepts getter names, as the constants on the configuration interfaces (ie <code>getLibraryPath</code>), or keys
+     */
+    private static String toKey( String getter )
+    {
+        return getter.indexOf( '(' ) < 0 ? getter + "()" : getter;
+    }
+
+    /**
+     * @return cached value, which may be null, or {@link #MISS}
+     */
+    public Object lookup( String key )
+    {
+        Object value = values.get( key );
+        if ( value == null && !masked.containsKey( key ) )
+        {
+            value = parent.get( key );
+            if ( value instanceof Object[] )
+            {
+                // every clone reads the same array, none may change it under the others
+                value = ( (Object[]) value ).clone();
+            }
+        }
+        if ( value == null )
+        {
+            getStatistics( key ).misses.incrementAndGet();
+            return MISS;
+        }
+
+        getStatistics( key ).hits.incrementAndGet();
+        return value == NULL ? null : value;
+    }
+
+    /**
+     * @return current generation, to be handed back to {@link #store(String, Object, long, long, boolean)}
+     */
+    public long getGeneration()
+    {
+        return generation.get();
+    }
+
+    /**
+     * Stores a computed value, unless the cache was invalidated since <code>generation</code>
+     * 
+     * @param shareable true when computed by a {@link Shareable} getter
+     */
+    public void store( String key, Object value, long generation, long computeNanos, boolean shareable )
+    {
+        getStatistics( key ).computeNanos.addAndGet( computeNanos );
+        if ( this.generation.get() == generation )
+        {
+            values.put( key, value == null ? NULL : value );
+            // an override calling a shareable super getter is stored last and decides
+            if ( shareable )
+            {
+                this.shareable.put( key, Boolean.TRUE );
+            }
+            else
+            {
+                this.shareable.remove( key );
+            }
+        }
+    }
+
+    /**
+     * @return cache for a clone of the mojo owning this cache
+     */
+    public synchronized GetterCache fork()
+    {
+        // clones are usually created in a row, share the same snapshot unless something changed meanwhile
+        if ( snapshot == null || snapshotGeneration != generation.get() || snapshotSize != shareable.size() )
+        {
+            Map<String, Object> map = new HashMap<String, Object>();
+            for ( Map.Entry<String, Object> entry : parent.entrySet() )
+            {
+                if ( !masked.containsKey( entry.getKey() ) )
+                {
+                    map.put( entry.getKey(), entry.getValue() );
+                }
+            }
+            for ( String key : shareable.keySet() )
+            {
+                Object value = values.get( key );
+                if ( value != null )
+                {
+                    map.put( key, freeze( value ) );
+                }
+            }
+
+            snapshot = Collections.unmodifiableMap( map );
+            snapshotGeneration = generation.get();
+            snapshotSize = shareable.size();
+        }
+        return new GetterCache( snapshot );
+    }
+
+    /**
+     * Copies a value shared with clones, so neither the mojo that computed it nor the clones can change what the others
+     * see. Collections are handed out read only, arrays are copied again on every {@link #lookup(String)}.
+     */
+    static Object freeze( Object value )
+    {
+        if ( value instanceof Object[] )
+        {
+            return ( (Object[]) value ).clone();
+        }
+        if ( value instanceof List )
+        {
+            return Collections.unmodifiableList( new ArrayList<Object>( (List<?>) value ) );
+        }
+        if ( value instanceof Set )
+        {
+            return Collections.unmodifiableSet( new LinkedHashSet<Object>( (Set<?>) value ) );
+        }
+        if ( value instanceof Map )
+        {
+            return Collections.unmodifiableMap( new LinkedHashMap<Object, Object>( (Map<?, ?>) value ) );
+        }
+        if ( value instanceof Collection )
+        {
+            return Collections.unmodifiableCollection( new ArrayList<Object>( (Collection<?>) value ) );
+        }
+        return value;
+    }
+
+    /**
+     * Forces the value returned by a getter
+     */
+    public void put( String getter, Object value )
+    {
+        values.put( toKey( getter ), value == null ? NULL : value );
+    }
+
+    public boolean contains( String getter )
+    {
+        String key = toKey( getter );
+        return values.containsKey( key ) || ( !masked.containsKey( key ) && parent.containsKey( key ) );
+    }
+
+    /**
+     * Drops the values of the given getters, they are computed again on next call
+     */
+    public void invalidate( String... getters )
+    {
+        generation.incrementAndGet();
+        for ( String getter : getters )
+        {
+            String key = toKey( getter );
+            values.remove( key );
+            shareable.remove( key );
+            if ( parent.containsKey( key ) )
+            {
+                masked.put( key, Boolean.TRUE );
+            }
+        }
+    }
+
+    public void invalidateAll()
+    {
+        generation.incrementAndGet();
+        values.clear();
+        shareable.clear();
+        parent = Collections.emptyMap();
+    }
+
+    private Statistics getStatistics( String key )
+    {
+        Statistics stats = statistics.get( key );
+        if ( stats == null )
+        {
+            statistics.putIfAbsent( key, new Statistics( key ) );
+            stats = statistics.get( key );
+        }
+        return stats;
+    }
+
+    /**
+     * @return statistics of every getter called so far, the most expensive first
+     */
+    public List<Statistics> getStatistics()
+    {
+        List<Statistics> list = new ArrayList<Statistics>( statistics.values() );
+        Collections.sort( list, new Comparator<Statistics>()
+        {
+            public int compare( Statistics o1, Statistics o2 )
+            {
+                long diff = o2.getComputeNanos() - o1.getComputeNanos();
+                return diff == 0 ? o1.key.compareTo( o2.key ) : ( diff < 0 ? -1 : 1 );
+            }
+        } );
+        return list;
+    }
+
+}
@@ -0,0 +1,102 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.plugin.test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ports test runner swfs are compiled with, as { test port, control port }. Runners sharing ports can't run at the
+ * same time, they are queued.
+ */
+class RunnerPorts
+{
+
+    interface PortAllocator
+    {
+        Integer freePort();
+    }
+
+    private RunnerPorts()
+    {
+    }
+
+    /**
+     * A single runner uses the configured ports, or free ones when not configured. Several runners each get their own
+     * free ports, configured ones would be shared.
+     * 
+     * @return ports by runner, on runners order
+     */
+    static Map<String, Integer[]> allocate( List<String> runners, Integer testPort, Integer testControlPort,
+                                            PortAllocator allocator )
+    {
+        Map<String, Integer[]> ports = new LinkedHashMap<String, Integer[]>();
+        for ( String runner : runners )
+        {
+            Integer port = runners.size() == 1 && testPort != null ? testPort : allocator.freePort();
+            Integer controlPort =
+                runners.size() == 1 && testControlPort != null ? testControlPort : allocator.freePort();
+            ports.put( runner, new Integer[] { port, controlPort } );
+        }
+        return ports;
+    }
+
+    /**
+     * @param runnerPorts ports test-compile allocated for each runner, null when a single runner was compiled
+     * @return ports by swf, swfs without ports of their own use the shared ports
+     */
+    static Map<String, Integer[]> assign( String[] swfs, Map<String, Integer[]> runnerPorts, Integer testPort,
+                                          Integer testControlPort )
+    {
+        Map<String, Integer[]> ports = new LinkedHashMap<String, Integer[]>();
+        for ( String swf : swfs )
+        {
+            Integer[] swfPorts = runnerPorts == null ? null : runnerPorts.get( swf );
+            if ( swfPorts == null )
+            {
+                swfPorts = new Integer[] { testPort, testControlPort };
+            }
+            ports.put( swf, swfPorts );
+        }
+        return ports;
+    }
+
+    /**
+     * @return swfs grouped by ports, each group must run one swf after the other
+     */
+    static Collection<List<String>> queue( Map<String, Integer[]> ports )
+    {
+        Map<String, List<String>> queues = new LinkedHashMap<String, List<String>>();
+        for ( Map.Entry<String, Integer[]> entry : ports.entrySet() )
+        {
+            String key = entry.getValue()[0] + ":" + entry.getValue()[1];
+            List<String> queue = queues.get( key );
+            if ( queue == null )
+            {
+                queue = new ArrayList<String>();
+                queues.put( key, queue );
+            }
+            queue.add( entry.getKey() );
+        }
+        return queues.values();
+    }
+
+}
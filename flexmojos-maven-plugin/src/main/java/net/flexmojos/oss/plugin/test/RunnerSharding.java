@@ -0,0 +1,176 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.plugin.test;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FilenameFilter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.codehaus.plexus.util.xml.Xpp3DomBuilder;
+
+/**
+ * Splits the test classes between test runners, so each runner takes about the same time to run. Durations come from
+ * the surefire reports of the previous run, classes without a report are expected to take the average time.
+ */
+class RunnerSharding
+{
+
+    private RunnerSharding()
+    {
+        super();
+    }
+
+    /**
+     * @return test class name to duration (in seconds) of every readable TEST-*.xml report
+     */
+    public static Map<String, Double> readDurations( File reportsDirectory )
+    {
+        Map<String, Double> durations = new HashMap<String, Double>();
+
+        File[] reports = reportsDirectory == null ? null : reportsDirectory.listFiles( new FilenameFilter()
+        {
+            public boolean accept( File dir, String name )
+            {
+                return name.startsWith( "TEST-" ) && name.endsWith( ".xml" );
+            }
+        } );
+        if ( reports == null )
+        {
+            return durations;
+        }
+
+        for ( File report : reports )
+        {
+            FileReader reader = null;
+            try
+            {
+                reader = new FileReader( report );
+                Xpp3Dom dom = Xpp3DomBuilder.build( reader );
+                String name = dom.getAttribute( "name" );
+                String time = dom.getAttribute( "time" );
+                if ( name != null && time != null )
+                {
+                    durations.put( name.replace( "::", "." ), Double.parseDouble( time ) );
+                }
+            }
+            catch ( Exception e )
+            {
+                // stale or broken report, that class is just expected to take the average time
+            }
+            finally
+            {
+                IOUtil.close( reader );
+            }
+        }
+
+        return durations;
+    }
+
+    /**
+     * Longest processing time first: the slowest class goes to the least loaded runner. Classes keep their original
+     * order inside each runner.
+     */
+    public static List<List<String>> split( final List<String> testClasses, Map<String, Double> durations,
+                                            int runners )
+    {
+        final double[] weights = new double[testClasses.size()];
+        double known = 0;
+        int knownCount = 0;
+        for ( int i = 0; i < weights.length; i++ )
+        {
+            Double duration = durations.get( testClasses.get( i ) );
+            weights[i] = duration == null ? -1 : duration;
+            if ( duration != null )
+            {
+                known += duration;
+                knownCount++;
+            }
+        }
+        double average = knownCount == 0 ? 1 : known / knownCount;
+        for ( int i = 0; i < weights.length; i++ )
+        {
+            if ( weights[i] < 0 )
+            {
+                weights[i] = average;
+            }
+        }
+
+        Integer[] order = new Integer[weights.length];
+        for ( int i = 0; i < order.length; i++ )
+        {
+            order[i] = i;
+        }
+        Arrays.sort( order, new Comparator<Integer>()
+        {
+            public int compare( Integer a, Integer b )
+            {
+                int c = Double.compare( weights[b], weights[a] );
+                return c != 0 ? c : a.compareTo( b );
+            }
+        } );
+
+        double[] loads = new double[runners];
+        List<List<Integer>> shards = new ArrayList<List<Integer>>();
+        for ( int i = 0; i < runners; i++ )
+        {
+            shards.add( new ArrayList<Integer>() );
+        }
+        for ( Integer index : order )
+        {
+            int lightest = 0;
+            for ( int i = 1; i < runners; i++ )
+            {
+                if ( loads[i] < loads[lightest]
+                    || ( loads[i] == loads[lightest] && shards.get( i ).size() < shards.get( lightest ).size() ) )
+                {
+                    lightest = i;
+                }
+            }
+            loads[lightest] += weights[index];
+            shards.get( lightest ).add( index );
+        }
+
+        List<List<String>> result = new ArrayList<List<String>>();
+        for ( List<Integer> shard : shards )
+        {
+            if ( shard.isEmpty() )
+            {
+                continue;
+            }
+
+            Collections.sort( shard );
+            List<String> classes = new ArrayList<String>();
+            for ( Integer index : shard )
+            {
+                classes.add( testClasses.get( index ) );
+            }
+            result.add( classes );
+        }
+        return result;
+    }
+
+}
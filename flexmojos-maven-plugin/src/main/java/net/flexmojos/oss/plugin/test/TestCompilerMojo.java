@@ -99,6 +99,10 @@ public class TestCompilerMojo
 
     public static final String FLEXMOJOS_TEST_PORT = "flexmojos_test_port";
 
+    public static final String FLEXMOJOS_TEST_RUNNER_PORTS = "flexmojos_test_runner_ports";
+
+    private static final String TEST_RUNNER = "TestRunner";
+
     /**
      * Uses instruments the bytecode (using apparat) to create test coverage report. Only the test-swf is affected by
      * this.
@@ -171,6 +175,15 @@ public class TestCompilerMojo
      */
     private boolean skipTests;
 
+    /**
+     * Reports of the previous test run, the test durations found there are used to balance the test classes between
+     * the test runners.
+     * 
+     * @parameter default-value="${project.build.directory}/surefire-reports"
+     * @readonly
+     */
+    private File surefireReportsDirectory;
+
     /**
      * Specify this parameter to run individual tests by file name, overriding the includes/excludes parameters. Each
      * pattern you specify here will be used to create an include pattern formatted like **\/${test}.as and
@@ -229,6 +242,16 @@ public class TestCompilerMojo
      */
     protected List<Resource> testResources;
 
+    /**
+     * Number of test runners the test classes are split into. Each runner is compiled into its own swf listening on
+     * its own pair of ports, so test-run is able to execute them concurrently (see testRunnerThreads). The classes
+     * are balanced by the durations found on the surefire reports of the previous run. When more than one runner is
+     * used testPort and testControlPort are ignored and free ports are allocated for each runner.
+     * 
+     * @parameter default-value="1" expression="${flex.testRunners}"
+     */
+    private int testRunners;
+
     /**
      * @parameter
      */
@@ -259,21 +282,70 @@ public class TestCompilerMojo
     public void buildTests( List<String> testClasses )
         throws MojoFailureException, MojoExecutionException
     {
-        String testFilename = "TestRunner";
+        deleteStaleRunners();
 
-        if ( testControlPort == null )
+        int runners = Math.max( 1, Math.min( testRunners, testClasses.size() ) );
+        List<String> testFilenames = new ArrayList<String>();
+        if ( runners == 1 )
         {
-            testControlPort = freePort();
+            testFilenames.add( TEST_RUNNER );
         }
-        if ( testPort == null )
+        else
         {
-            testPort = freePort();
+            for ( int i = 0; i < runners; i++ )
+            {
+                testFilenames.add( TEST_RUNNER + "-" + ( i + 1 ) );
+            }
+
+            if ( testPort != null || testControlPort != null )
+            {
+                getLog().warn( "Ignoring testPort/testControlPort, allocating free ports for each of the " + runners
+                                   + " test runners" );
+            }
         }
-        putPluginContext( FLEXMOJOS_TEST_CONTROL_PORT, testControlPort );
-        putPluginContext( FLEXMOJOS_TEST_PORT, testPort );
-        getLog().debug( "Flexmojos test port: " + testPort + " - control: " + testControlPort );
 
-        checkResult( buildTest( testFilename, testClasses, testControlPort, testPort ) );
+        Map<String, Integer[]> ports =
+            RunnerPorts.allocate( testFilenames, testPort, testControlPort, new RunnerPorts.PortAllocator()
+            {
+                public Integer freePort()
+                {
+                    return TestCompilerMojo.this.freePort();
+                }
+            } );
+
+        if ( runners == 1 )
+        {
+            testPort = ports.get( TEST_RUNNER )[0];
+            testControlPort = ports.get( TEST_RUNNER )[1];
+            putPluginContext( FLEXMOJOS_TEST_CONTROL_PORT, testControlPort );
+            putPluginContext( FLEXMOJOS_TEST_PORT, testPort );
+            putPluginContext( FLEXMOJOS_TEST_RUNNER_PORTS, null );
+            getLog().debug( "Flexmojos test port: " + testPort + " - control: " + testControlPort );
+
+            checkResult( buildTest( TEST_RUNNER, testClasses, testControlPort, testPort ) );
+            return;
+        }
+
+        List<List<String>> shards = splitTestClasses( testClasses, runners );
+        Map<String, Integer[]> runnerPorts = new LinkedHashMap<String, Integer[]>();
+        List<Result> results = new ArrayList<Result>();
+        for ( int i = 0; i < shards.size(); i++ )
+        {
+            String testFilename = testFilenames.get( i );
+            Integer port = ports.get( testFilename )[0];
+            Integer controlPort = ports.get( testFilename )[1];
+            runnerPorts.put( testFilename + ".swf", new Integer[] { port, controlPort } );
+            getLog().debug( "Flexmojos test runner " + testFilename + " port: " + port + " - control: "
+                                + controlPort );
+
+            results.add( buildTest( testFilename, shards.get( i ), controlPort, port ) );
+        }
+        putPluginContext( FLEXMOJOS_TEST_RUNNER_PORTS, runnerPorts );
+
+        for ( Result result : results )
+        {
+            checkResult( result );
+        }
     }
 
     @Override
@@ -314,6 +386,24 @@ public class TestCompilerMojo
         buildTests( testClasses );
     }
 
+    private void deleteStaleRunners()
+    {
+        File[] runners = testOutputDirectory.listFiles();
+        if ( runners == null )
+        {
+            return;
+        }
+
+        for ( File runner : runners )
+        {
+            String name = runner.getName();
+            if ( name.equals( TEST_RUNNER + ".swf" ) || name.matches( TEST_RUNNER + "-\\d+\\.swf" ) )
+            {
+                runner.delete();
+            }
+        }
+    }
+
     protected Integer freePort()
     {
         try
@@ -708,4 +798,16 @@ public class TestCompilerMojo
         // not optional for tests, flexmojos needs sandbox security disabled
         return true;
     }
+
+    /**
+     * Splits the test classes between the test runners, balanced by the durations of the previous test run
+     */
+    protected List<List<String>> splitTestClasses( List<String> testClasses, int runners )
+    {
+        Map<String, Double> durations = RunnerSharding.readDurations( surefireReportsDirectory );
+        getLog().debug( "Known test durations: " + durations );
+
+        return RunnerSharding.split( testClasses, durations, runners );
+    }
+
 }
@@ -24,17 +24,25 @@ import java.io.StringReader;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.stream.XMLStreamException;
 
 import org.apache.maven.plugin.Mojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.codehaus.plexus.PlexusContainer;
 import org.codehaus.plexus.util.DirectoryScanner;
 import org.codehaus.plexus.util.FileUtils;
 import org.codehaus.plexus.util.IOUtil;
-import org.codehaus.plexus.util.xml.Xpp3DomBuilder;
-import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 import net.flexmojos.oss.coverage.CoverageReportException;
 import net.flexmojos.oss.coverage.CoverageReportRequest;
 import net.flexmojos.oss.coverage.CoverageReporter;
@@ -45,8 +53,7 @@ import net.flexmojos.oss.test.TestRequest;
 import net.flexmojos.oss.test.TestRunner;
 import net.flexmojos.oss.test.TestRunnerException;
 import net.flexmojos.oss.test.launcher.LaunchFlashPlayerException;
-import net.flexmojos.oss.test.report.TestCaseReport;
-import net.flexmojos.oss.test.report.TestCoverageReport;
+import net.flexmojos.oss.test.report.TestSuiteReader;
 import net.flexmojos.oss.util.PathUtil;
 
 /**
@@ -87,6 +94,12 @@ public class TestRunMojo
      */
     private boolean allowHeadlessMode;
 
+    /**
+     * @component
+     * @readonly
+     */
+    private PlexusContainer container;
+
     /**
      * Uses instruments the bytecode (using apparat) to create test coverage report. Only the test-swf is affected by
      * this.
@@ -230,6 +243,14 @@ public class TestRunMojo
      */
     private TestRunner testRunner;
 
+    /**
+     * How many test runner swfs are executed at the same time. Only runners listening on distinct ports can run
+     * concurrently, use test-compile testRunners to split the tests between several runners.
+     * 
+     * @parameter default-value="1" expression="${flex.testRunnerThreads}"
+     */
+    private int testRunnerThreads;
+
     /**
      * Test timeout to wait for socket responding
      * 
@@ -339,6 +360,13 @@ public class TestRunMojo
 
     public void runTest( String swfName, Integer testPort, Integer testControlPort, CoverageReporter reporter )
         throws MojoExecutionException
+    {
+        runTest( testRunner, swfName, testPort, testControlPort, reporter );
+    }
+
+    private void runTest( TestRunner testRunner, String swfName, Integer testPort, Integer testControlPort,
+                          CoverageReporter reporter )
+        throws MojoExecutionException
     {
         File swf = new File( testOutputDirectory, swfName );
 
@@ -366,28 +394,26 @@ public class TestRunMojo
 
         if ( coverage )
         {
-            reporter.instrument( swf, getSourcePath() );
+            synchronized ( reporter )
+            {
+                reporter.instrument( swf, getSourcePath() );
+            }
         }
 
         try
         {
-            List<String> results = runTest( testRequest );
+            List<String> results = testRunner.run( testRequest );
             for ( String result : results )
             {
-                TestCaseReport report = writeTestReport( result );
-                if ( coverage )
-                {
-                    List<TestCoverageReport> coverageResult = report.getCoverage();
-                    for ( TestCoverageReport testCoverageReport : coverageResult )
-                    {
-                        reporter.addResult( testCoverageReport.getClassname(), testCoverageReport.getTouchs() );
-                    }
-                }
+                writeTestReport( result, coverage ? reporter : null );
             }
         }
         catch ( TestRunnerException e )
         {
-            executionError = e;
+            synchronized ( this )
+            {
+                executionError = e;
+            }
         }
         catch ( LaunchFlashPlayerException e )
         {
@@ -425,11 +451,88 @@ public class TestRunMojo
             // in the "test-compile" goal.
             testControlPort = getFromPluginContext( TestCompilerMojo.FLEXMOJOS_TEST_CONTROL_PORT );
         }
+        Map<String, Integer[]> runnerPorts = getFromPluginContext( TestCompilerMojo.FLEXMOJOS_TEST_RUNNER_PORTS );
         getLog().debug( "Found " + swfs.length + " test runners:\n" + Arrays.toString( swfs ) );
         getLog().debug( "Using test port '" + testPort + "' and test control port '" + testControlPort + "'" );
-        for ( String swfName : swfs )
+
+        // runners compiled with the same ports must wait for each other
+        Map<String, Integer[]> ports = RunnerPorts.assign( swfs, runnerPorts, testPort, testControlPort );
+        Collection<List<String>> queues = RunnerPorts.queue( ports );
+
+        if ( testRunnerThreads <= 1 || queues.size() <= 1 )
+        {
+            for ( String swfName : swfs )
+            {
+                runTest( swfName, ports.get( swfName )[0], ports.get( swfName )[1], reporter );
+            }
+        }
+        else
         {
-            runTest( swfName, testPort, testControlPort, reporter );
+            runTestsConcurrently( queues, ports, reporter );
+        }
+    }
+
+    private void runTestsConcurrently( Collection<List<String>> queues, final Map<String, Integer[]> ports,
+                                       final CoverageReporter reporter )
+        throws MojoExecutionException
+    {
+        int threads = Math.min( testRunnerThreads, queues.size() );
+        getLog().info( "Running " + ports.size() + " test runners on " + threads + " threads" );
+
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+        try
+        {
+            List<Future<Object>> futures = new ArrayList<Future<Object>>();
+            for ( final List<String> queue : queues )
+            {
+                futures.add( executor.submit( new Callable<Object>()
+                {
+                    public Object call()
+                        throws Exception
+                    {
+                        // runners are stateful, each thread needs its own
+                        TestRunner runner = container.lookup( TestRunner.class );
+                        try
+                        {
+                            for ( String swfName : queue )
+                            {
+                                runTest( runner, swfName, ports.get( swfName )[0], ports.get( swfName )[1],
+                                         reporter );
+                            }
+                        }
+                        finally
+                        {
+                            container.release( runner );
+                        }
+                        return null;
+                    }
+                } ) );
+            }
+
+            for ( Future<Object> future : futures )
+            {
+                try
+                {
+                    future.get();
+                }
+                catch ( InterruptedException e )
+                {
+                    throw new MojoExecutionException( "Interrupted while waiting for test runners", e );
+                }
+                catch ( ExecutionException e )
+                {
+                    Throwable cause = e.getCause();
+                    if ( cause instanceof MojoExecutionException )
+                    {
+                        throw (MojoExecutionException) cause;
+                    }
+                    throw new MojoExecutionException( cause.getMessage(), cause );
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
         }
     }
 
@@ -468,80 +571,89 @@ public class TestRunMojo
 
     }
 
+    private synchronized void countResults( String name, int tests, int failures, int errors )
+    {
+        if ( failures + errors > 0 )
+        {
+            this.failures = true;
+
+            getLog().warn( "Unit test " + name + " failed." );
+        }
+
+        this.numTests += tests;
+        this.numErrors += errors;
+        this.numFailures += failures;
+    }
+
     /**
-     * Write a test report to disk.
+     * Write a test report to disk. The report is streamed, only the testsuite element (and the coverage data when a
+     * reporter is given) is actually parsed.
      * 
      * @param reportString the report to write.
-     * @return
+     * @param reporter receives the coverage data of the report, may be null
      * @throws MojoExecutionException
      */
-    private TestCaseReport writeTestReport( final String reportString )
+    private void writeTestReport( final String reportString, final CoverageReporter reporter )
         throws MojoExecutionException
     {
-        // Parse the report.
-        TestCaseReport report;
+        TestSuiteReader suite = null;
         try
         {
-            report = new TestCaseReport( Xpp3DomBuilder.build( new StringReader( reportString ) ) );
-        }
-        catch ( XmlPullParserException e )
-        {
-            // should never happen
-            throw new MojoExecutionException( e.getMessage(), e );
-        }
-        catch ( IOException e )
-        {
-            // should never happen
-            throw new MojoExecutionException( e.getMessage(), e );
-        }
+            suite = new TestSuiteReader( new StringReader( reportString ) );
 
-        // Get the test attributes.
-        final String name = report.getName();
-        final int numFailures = report.getFailures();
-        final int numErrors = report.getErrors();
-        final int totalProblems = numFailures + numErrors;
+            final String name = suite.getName();
 
-        getLog().debug( "[MOJO] Test report of " + name );
-        getLog().debug( reportString );
+            getLog().debug( "[MOJO] Test report of " + name );
+            getLog().debug( reportString );
 
-        // Get the output file name.
-        final File file = new File( reportPath, "TEST-" + name.replace( "::", "." ) + ".xml" );
+            // Get the output file name.
+            final File file = new File( reportPath, "TEST-" + name.replace( "::", "." ) + ".xml" );
 
-        FileWriter writer = null;
-        try
-        {
-            writer = new FileWriter( file );
-            IOUtil.copy( reportString, writer );
-            writer.flush();
+            FileWriter writer = null;
+            try
+            {
+                writer = new FileWriter( file );
+                IOUtil.copy( reportString, writer );
+                writer.flush();
+            }
+            catch ( IOException e )
+            {
+                throw new MojoExecutionException( "Unable to save test result report", e );
+            }
+            finally
+            {
+                IOUtil.close( writer );
+            }
+
+            if ( reporter != null )
+            {
+                suite.readCoverage( new TestSuiteReader.CoverageHandler()
+                {
+                    public void coverage( String classname, Integer[] touchs )
+                    {
+                        synchronized ( reporter )
+                        {
+                            reporter.addResult( classname, touchs );
+                        }
+                    }
+                } );
+            }
+
+            // First write the report, then fail the build if the test failed.
+            countResults( name, suite.getTests(), suite.getFailures(), suite.getErrors() );
         }
-        catch ( IOException e )
+        catch ( XMLStreamException e )
         {
-            throw new MojoExecutionException( "Unable to save test result report", e );
+            // should never happen
+            throw new MojoExecutionException( e.getMessage(), e );
         }
         finally
         {
-            IOUtil.close( writer );
-        }
-
-        // Pretty print the document to disk.
-        // final XMLWriter writer = new XMLWriter( new FileOutputStream( file ), format );
-        // writer.write( document );
-        // writer.close();
-
-        // First write the report, then fail the build if the test failed.
-        if ( totalProblems > 0 )
-        {
-            failures = true;
-
-            getLog().warn( "Unit test " + name + " failed." );
-
+            if ( suite != null )
+            {
+                suite.close();
+            }
         }
-
-        this.numTests += report.getTests();
-        this.numErrors += report.getErrors();
-        this.numFailures += report.getFailures();
-
-        return report;
     }
 
 }
@@ -0,0 +1,178 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.plugin.utilities;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.hamcrest.Matcher;
+
+/**
+ * Project dependencies indexed by type, scope, groupId and classifier. Matcher chains evaluate every matcher against
+ * every dependency on each query, which shows up on profiles of projects with hundreds of SWCs; the index answers the
+ * common queries with a few bit set operations instead.
+ * <p>
+ * Results keep the dependency order, the compiler resolves definitions in library path order.
+ * </p>
+ */
+public class DependencyIndex
+{
+
+    private final Artifact[] artifacts;
+
+    private final Set<Artifact> all;
+
+    private final BitSet globals = new BitSet();
+
+    private final Map<String, BitSet> byType = new HashMap<String, BitSet>();
+
+    private final Map<String, BitSet> byScope = new HashMap<String, BitSet>();
+
+    private final Map<String, BitSet> byGroupId = new HashMap<String, BitSet>();
+
+    private final Map<String, BitSet> byClassifier = new HashMap<String, BitSet>();
+
+    /**
+     * @param globalMatcher matches playerglobal/airglobal, which are excluded from most queries
+     */
+    public DependencyIndex( Collection<Artifact> dependencies, Matcher<? super Artifact> globalMatcher )
+    {
+        // project dependencies already come as an ordered set, only copy other collections
+        if ( dependencies instanceof Set )
+        {
+            all = Collections.unmodifiableSet( (Set<Artifact>) dependencies );
+        }
+        else
+        {
+            all = Collections.unmodifiableSet( new LinkedHashSet<Artifact>( dependencies ) );
+        }
+        artifacts = all.toArray( new Artifact[all.size()] );
+        for ( int i = 0; i < artifacts.length; i++ )
+        {
+            Artifact artifact = artifacts[i];
+            add( byType, artifact.getType(), i );
+            add( byScope, artifact.getScope(), i );
+            add( byGroupId, artifact.getGroupId(), i );
+            add( byClassifier, artifact.getClassifier(), i );
+            if ( globalMatcher != null && globalMatcher.matches( artifact ) )
+            {
+                globals.set( i );
+            }
+        }
+    }
+
+    private static void add( Map<String, BitSet> index, String key, int ordinal )
+    {
+        BitSet ordinals = index.get( key );
+        if ( ordinals == null )
+        {
+            ordinals = new BitSet();
+            index.put( key, ordinals );
+        }
+        ordinals.set( ordinal );
+    }
+
+    public Set<Artifact> getAll()
+    {
+        return all;
+    }
+
+    public boolean isGlobal( Artifact artifact )
+    {
+        for ( int i = globals.nextSetBit( 0 ); i >= 0; i = globals.nextSetBit( i + 1 ) )
+        {
+            if ( artifacts[i].equals( artifact ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param types accepted types, any when null
+     * @param scopes accepted scopes, may include null for dependencies without scope, any when null
+     * @param includeGlobals false to leave playerglobal/airglobal out
+     */
+    public Set<Artifact> select( String[] types, String[] scopes, boolean includeGlobals )
+    {
+        BitSet selected;
+        if ( types != null )
+        {
+            selected = lookup( byType, types );
+        }
+        else
+        {
+            selected = new BitSet();
+            selected.set( 0, artifacts.length );
+        }
+
+        if ( scopes != null )
+        {
+            selected.and( lookup( byScope, scopes ) );
+        }
+
+        if ( !includeGlobals )
+        {
+            selected.andNot( globals );
+        }
+
+        return toSet( selected );
+    }
+
+    public Set<Artifact> selectByGroupId( String groupId )
+    {
+        return toSet( lookup( byGroupId, groupId ) );
+    }
+
+    public Set<Artifact> selectByClassifier( String classifier )
+    {
+        return toSet( lookup( byClassifier, classifier ) );
+    }
+
+    private static BitSet lookup( Map<String, BitSet> index, String... keys )
+    {
+        BitSet ordinals = new BitSet();
+        for ( String key : keys )
+        {
+            BitSet bucket = index.get( key );
+            if ( bucket != null )
+            {
+                ordinals.or( bucket );
+            }
+        }
+        return ordinals;
+    }
+
+    private Set<Artifact> toSet( BitSet ordinals )
+    {
+        Set<Artifact> result = new LinkedHashSet<Artifact>();
+        for ( int i = ordinals.nextSetBit( 0 ); i >= 0; i = ordinals.nextSetBit( i + 1 ) )
+        {
+            result.add( artifacts[i] );
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,334 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.plugin.utilities;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.flexmojos.oss.compiler.util.Digests;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Remembers size, last modification and content hash of every input of a compilation, plus a digest of the rendered
+ * compiler arguments, so quick mode can tell whether anything changed since the last successful compilation.
+ * <p>
+ * Files are only hashed when their size or last modification changed, so an up to date check costs a stat per file.
+ * {@link #check(String, Collection)} takes the snapshot and {@link #commit()} stores it once the compilation
+ * succeeds, so files changed while compiling are still seen as changed on the next build.
+ * </p>
+ */
+public class FileStateJournal
+{
+
+    private static final String HEADER = "# flexmojos file state journal 1";
+
+    private static final String ARGUMENTS = "arguments";
+
+    private static final String UTF_8 = "UTF-8";
+
+    /**
+     * Compiler options whose value changes on every build without changing the compiled code
+     */
+    private static final String[] VOLATILE_OPTIONS = { "metadata.date" };
+
+    private final File file;
+
+    private String arguments;
+
+    private Map<String, FileState> states = new HashMap<String, FileState>();
+
+    private String pendingArguments;
+
+    private Map<String, FileState> pendingStates;
+
+    private boolean refreshed;
+
+    /**
+     * Loads the journal from file, a missing or unreadable journal is just empty.
+     */
+    public FileStateJournal( File file )
+    {
+        this.file = file;
+        load();
+    }
+
+    public File getFile()
+    {
+        return file;
+    }
+
+    /**
+     * Renders compiler arguments for {@link #check(String, Collection)}, leaving out the volatile ones.
+     */
+    public static String renderArguments( List<String> arguments )
+    {
+        StringBuilder rendered = new StringBuilder();
+        for ( String argument : arguments )
+        {
+            if ( isVolatile( argument ) )
+            {
+                continue;
+            }
+            rendered.append( argument ).append( '\n' );
+        }
+        return rendered.toString();
+    }
+
+    private static boolean isVolatile( String argument )
+    {
+        for ( String option : VOLATILE_OPTIONS )
+        {
+            if ( argument.startsWith( "-" + option + "=" ) || argument.startsWith( "-" + option + "+=" ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Snapshots the inputs and compares them with the journal.
+     * 
+     * @param arguments the rendered compiler arguments
+     * @param inputs files and directories read by the compilation, directories are walked
+     * @return what changed since the journaled compilation, empty when up to date
+     */
+    public List<String> check( String arguments, Collection<File> inputs )
+        throws IOException
+    {
+        String argumentsDigest = Digests.sha1( String.valueOf( arguments ) );
+        Map<String, FileState> snapshot = new LinkedHashMap<String, FileState>();
+        List<String> changes = new ArrayList<String>();
+        refreshed = false;
+
+        if ( !argumentsDigest.equals( this.arguments ) )
+        {
+            changes.add( "compiler arguments changed" );
+        }
+
+        for ( File input : inputs )
+        {
+            collect( input, snapshot, changes );
+        }
+
+        for ( String path : states.keySet() )
+        {
+            if ( !snapshot.containsKey( path ) )
+            {
+                changes.add( "removed " + path );
+            }
+        }
+
+        pendingArguments = argumentsDigest;
+        pendingStates = snapshot;
+
+        if ( changes.isEmpty() && refreshed )
+        {
+            // only touched, keep the new timestamps so these aren't hashed again
+            commit();
+        }
+        return changes;
+    }
+
+    /**
+     * Stores the snapshot taken by the last {@link #check(String, Collection)}.
+     */
+    public void commit()
+        throws IOException
+    {
+        if ( pendingStates == null )
+        {
+            return;
+        }
+
+        arguments = pendingArguments;
+        states = pendingStates;
+        pendingArguments = null;
+        pendingStates = null;
+        save();
+    }
+
+    private void collect( File input, Map<String, FileState> snapshot, List<String> changes )
+        throws IOException
+    {
+        if ( input.isDirectory() )
+        {
+            File[] children = input.listFiles();
+            if ( children != null )
+            {
+                for ( File child : children )
+                {
+                    collect( child, snapshot, changes );
+                }
+            }
+            return;
+        }
+
+        if ( !input.isFile() )
+        {
+            return;
+        }
+
+        String path = input.getAbsolutePath();
+        if ( snapshot.containsKey( path ) )
+        {
+            return;
+        }
+
+        long length = input.length();
+        long lastModified = input.lastModified();
+        FileState previous = states.get( path );
+        if ( previous != null && previous.length == length && previous.lastModified == lastModified )
+        {
+            snapshot.put( path, previous );
+            return;
+        }
+
+        FileState current = new FileState( length, lastModified, Digests.sha1( input ) );
+        snapshot.put( path, current );
+        if ( previous == null )
+        {
+            changes.add( "added " + path );
+        }
+        else if ( !previous.hash.equals( current.hash ) )
+        {
+            changes.add( "modified " + path );
+        }
+        else
+        {
+            refreshed = true;
+        }
+    }
+
+    private void load()
+    {
+        if ( !file.isFile() )
+        {
+            return;
+        }
+
+        BufferedReader reader = null;
+        try
+        {
+            reader = new BufferedReader( new InputStreamReader( new FileInputStream( file ), UTF_8 ) );
+            if ( !HEADER.equals( reader.readLine() ) )
+            {
+                return;
+            }
+
+            Map<String, FileState> loaded = new HashMap<String, FileState>();
+            String loadedArguments = null;
+            String line;
+            while ( ( line = reader.readLine() ) != null )
+            {
+                String[] fields = line.split( "\t", 4 );
+                if ( fields.length == 2 && ARGUMENTS.equals( fields[0] ) )
+                {
+                    loadedArguments = fields[1];
+                }
+                else if ( fields.length == 4 )
+                {
+                    loaded.put( fields[3],
+                                new FileState( Long.parseLong( fields[0] ), Long.parseLong( fields[1] ), fields[2] ) );
+                }
+                else
+                {
+                    // truncated journal, start over
+                    return;
+                }
+            }
+
+            arguments = loadedArguments;
+            states = loaded;
+        }
+        catch ( IOException e )
+        {
+            // start over
+        }
+        catch ( NumberFormatException e )
+        {
+            // start over
+        }
+        finally
+        {
+            IOUtil.close( reader );
+        }
+    }
+
+    private void save()
+        throws IOException
+    {
+        file.getParentFile().mkdirs();
+
+        // write and rename, an interrupted build must not leave a partial journal behind
+        File tmp = new File( file.getPath() + ".tmp" );
+        Writer writer = new OutputStreamWriter( new FileOutputStream( tmp ), UTF_8 );
+        try
+        {
+            writer.write( HEADER + "\n" );
+            writer.write( ARGUMENTS + "\t" + arguments + "\n" );
+            for ( Map.Entry<String, FileState> entry : states.entrySet() )
+            {
+                FileState state = entry.getValue();
+                writer.write( state.length + "\t" + state.lastModified + "\t" + state.hash + "\t" + entry.getKey()
+                    + "\n" );
+            }
+        }
+        finally
+        {
+            IOUtil.close( writer );
+        }
+
+        file.delete();
+        if ( !tmp.renameTo( file ) )
+        {
+            tmp.delete();
+            throw new IOException( "Unable to write " + file );
+        }
+    }
+
+    private static class FileState
+    {
+        private final long length;
+
+        private final long lastModified;
+
+        private final String hash;
+
+        private FileState( long length, long lastModified, String hash )
+        {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+
+}
@@ -0,0 +1,285 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.plugin.utilities;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Zip archive whose entries are read straight from the archive and only extracted, one by one, when they must exist as
+ * real files (ie files handed to the compiler).
+ * <p>
+ * Entries are extracted to a temporary file and renamed, so a file found on the directory is always complete, even
+ * when several builds extract the same archive at once. A marker file tells the whole archive was extracted.
+ * </p>
+ */
+public class LazyArchive
+{
+
+    private static final String COMPLETE_MARKER = ".flexmojos-complete";
+
+    private static final String TEMP_PREFIX = ".flexmojos-";
+
+    private final File archive;
+
+    private final File directory;
+
+    public LazyArchive( File archive, File directory )
+    {
+        this.archive = archive;
+        this.directory = directory;
+    }
+
+    public File getArchive()
+    {
+        return archive;
+    }
+
+    public File getDirectory()
+    {
+        return directory;
+    }
+
+    public boolean contains( String entry )
+        throws IOException
+    {
+        if ( new File( directory, normalize( entry ) ).isFile() )
+        {
+            return true;
+        }
+
+        ZipFile zip = new ZipFile( archive );
+        try
+        {
+            return zip.getEntry( normalize( entry ) ) != null;
+        }
+        finally
+        {
+            zip.close();
+        }
+    }
+
+    /**
+     * Reads an entry without extracting it, closing the stream closes the archive
+     * 
+     * @throws FileNotFoundException when the archive has no such entry
+     */
+    public InputStream open( String entry )
+        throws IOException
+    {
+        final ZipFile zip = new ZipFile( archive );
+        ZipEntry zipEntry = zip.getEntry( normalize( entry ) );
+        if ( zipEntry == null )
+        {
+            zip.close();
+            throw new FileNotFoundException( "Entry " + entry + " not found on " + archive );
+        }
+
+        return new FilterInputStream( zip.getInputStream( zipEntry ) )
+        {
+            @Override
+            public void close()
+                throws IOException
+            {
+                try
+                {
+                    super.close();
+                }
+                finally
+                {
+                    zip.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * Extracts a single entry. Until the whole archive is extracted a file found on the directory may have been left
+     * there by an interrupted build, so it is only trusted once the completion marker exists.
+     * 
+     * @throws FileNotFoundException when the archive has no such entry
+     */
+    public File materialize( String entry )
+        throws IOException
+    {
+        String name = normalize( entry );
+        if ( !isSafe( name ) )
+        {
+            throw new FileNotFoundException( "Entry " + entry + " is outside " + directory );
+        }
+
+        File file = new File( directory, name );
+        if ( file.isFile() && isComplete() )
+        {
+            return file;
+        }
+
+        ZipFile zip = new ZipFile( archive );
+        try
+        {
+            ZipEntry zipEntry = zip.getEntry( name );
+            if ( zipEntry == null || zipEntry.isDirectory() )
+            {
+                throw new FileNotFoundException( "Entry " + entry + " not found on " + archive );
+            }
+
+            extract( zip, zipEntry, file );
+        }
+        finally
+        {
+            zip.close();
+        }
+        return file;
+    }
+
+    /**
+     * Extracts every entry, unless the completion marker tells it was already done
+     * 
+     * @throws ZipException when the archive is not a zip
+     */
+    public File materializeAll()
+        throws IOException
+    {
+        if ( isComplete() )
+        {
+            return directory;
+        }
+
+        ZipFile zip = new ZipFile( archive );
+        try
+        {
+            directory.mkdirs();
+
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while ( entries.hasMoreElements() )
+            {
+                ZipEntry zipEntry = entries.nextElement();
+                String name = normalize( zipEntry.getName() );
+                if ( !isSafe( name ) )
+                {
+                    // never write outside the directory
+                    continue;
+                }
+
+                File file = new File( directory, name );
+                if ( zipEntry.isDirectory() )
+                {
+                    file.mkdirs();
+                }
+                else
+                {
+                    extract( zip, zipEntry, file );
+                }
+            }
+        }
+        finally
+        {
+            zip.close();
+        }
+
+        File tmp = File.createTempFile( TEMP_PREFIX, ".tmp", directory );
+        if ( !tmp.renameTo( getMarker() ) )
+        {
+            tmp.delete();
+        }
+        return directory;
+    }
+
+    private File getMarker()
+    {
+        return new File( directory, COMPLETE_MARKER );
+    }
+
+    private boolean isComplete()
+    {
+        return getMarker().isFile();
+    }
+
+    private static void extract( ZipFile zip, ZipEntry zipEntry, File file )
+        throws IOException
+    {
+        file.getParentFile().mkdirs();
+        File tmp = File.createTempFile( TEMP_PREFIX, ".tmp", file.getParentFile() );
+        try
+        {
+            InputStream in = zip.getInputStream( zipEntry );
+            OutputStream out = new FileOutputStream( tmp );
+            try
+            {
+                IOUtil.copy( in, out );
+            }
+            finally
+            {
+                IOUtil.close( in );
+                IOUtil.close( out );
+            }
+
+            if ( zipEntry.getTime() != -1 )
+            {
+                tmp.setLastModified( zipEntry.getTime() );
+            }
+
+            // renameTo does not replace an existing file on every platform
+            if ( !tmp.renameTo( file ) && !( file.delete() && tmp.renameTo( file ) ) && !file.isFile() )
+            {
+                throw new IOException( "Unable to extract " + zipEntry.getName() + " to " + file );
+            }
+        }
+        finally
+        {
+            tmp.delete();
+        }
+    }
+
+    /**
+     * @return false when a path segment climbs out of the directory
+     */
+    private static boolean isSafe( String name )
+    {
+        for ( String segment : name.split( "/" ) )
+        {
+            if ( "..".equals( segment ) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String normalize( String entry )
+    {
+        String name = entry.replace( '\\', '/' );
+        while ( name.startsWith( "./" ) || name.startsWith( "/" ) )
+        {
+            name = name.substring( name.indexOf( '/' ) + 1 );
+        }
+        return name;
+    }
+
+}
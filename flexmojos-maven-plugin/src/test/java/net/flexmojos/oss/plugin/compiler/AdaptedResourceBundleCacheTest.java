@@ -0,0 +1,83 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.plugin.compiler;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class AdaptedResourceBundleCacheTest
+{
+
+    @Test
+    public void concurrentRequestsCoalesce()
+        throws Exception
+    {
+        final File dir = new File( "target/rb-cache" );
+        FileUtils.deleteDirectory( dir );
+
+        final AtomicInteger compilations = new AtomicInteger();
+        final AdaptedResourceBundleCache.Adapter adapter = new AdaptedResourceBundleCache.Adapter()
+        {
+            public void adapt( File output )
+                throws Exception
+            {
+                compilations.incrementAndGet();
+                Thread.sleep( 200 );
+                FileUtils.fileWrite( output.getAbsolutePath(), "swc" );
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+        List<Future<File>> results = new ArrayList<Future<File>>();
+        for ( int i = 0; i < 4; i++ )
+        {
+            results.add( executor.submit( new Callable<File>()
+            {
+                public File call()
+                    throws Exception
+                {
+                    return AdaptedResourceBundleCache.get( dir, "abc-pt_BR-4.5.1", adapter );
+                }
+            } ) );
+        }
+        for ( Future<File> result : results )
+        {
+            Assert.assertEquals( FileUtils.fileRead( result.get() ), "swc" );
+        }
+        executor.shutdown();
+
+        Assert.assertEquals( compilations.get(), 1 );
+        // only the entry is left behind
+        Assert.assertEquals( dir.list().length, 1 );
+
+        // later builds just read it
+        AdaptedResourceBundleCache.get( dir, "abc-pt_BR-4.5.1", adapter );
+        Assert.assertEquals( compilations.get(), 1 );
+    }
+
+}
@@ -0,0 +1,102 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.plugin.compiler;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.artifact.Artifact;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ResourceBundleArtifactsTest
+{
+
+    private static Artifact beacon( String artifactId )
+    {
+        Artifact beacon = mock( Artifact.class );
+        when( beacon.getGroupId() ).thenReturn( "com.adobe.flex.framework" );
+        when( beacon.getArtifactId() ).thenReturn( artifactId );
+        when( beacon.getVersion() ).thenReturn( "4.5.1" );
+        when( beacon.getType() ).thenReturn( "rb.swc" );
+        return beacon;
+    }
+
+    @Test
+    public void missesAreLookedUpOnce()
+    {
+        final AtomicInteger lookups = new AtomicInteger();
+        ResourceBundleArtifacts artifacts = new ResourceBundleArtifacts( new ResourceBundleArtifacts.Resolver()
+        {
+            public Artifact resolve( Artifact beacon, String locale )
+            {
+                lookups.incrementAndGet();
+                // unresolved, missing on every repository
+                return mock( Artifact.class );
+            }
+        } );
+
+        Artifact framework = beacon( "framework" );
+        Artifact missing = artifacts.get( framework, "pt_BR" );
+        Assert.assertFalse( missing.isResolved() );
+        Assert.assertSame( artifacts.get( framework, "pt_BR" ), missing );
+        // another mojo clone asking for the same coordinate
+        Assert.assertSame( artifacts.get( beacon( "framework" ), "pt_BR" ), missing );
+        Assert.assertEquals( lookups.get(), 1 );
+
+        artifacts.get( framework, "en_US" );
+        Assert.assertEquals( lookups.get(), 2 );
+    }
+
+    @Test
+    public void prefetchLooksUpEveryCoordinateOnce()
+    {
+        final AtomicInteger lookups = new AtomicInteger();
+        ResourceBundleArtifacts artifacts = new ResourceBundleArtifacts( new ResourceBundleArtifacts.Resolver()
+        {
+            public Artifact resolve( Artifact beacon, String locale )
+            {
+                lookups.incrementAndGet();
+                return mock( Artifact.class );
+            }
+        } );
+
+        Artifact framework = beacon( "framework" );
+        Artifact spark = beacon( "spark" );
+        Map<Artifact, Set<String>> locales = new LinkedHashMap<Artifact, Set<String>>();
+        locales.put( framework, new LinkedHashSet<String>( Arrays.asList( "en_US", "pt_BR" ) ) );
+        locales.put( spark, new LinkedHashSet<String>( Arrays.asList( "en_US", "pt_BR" ) ) );
+
+        artifacts.prefetch( locales );
+        Assert.assertEquals( lookups.get(), 4 );
+
+        artifacts.prefetch( locales );
+        artifacts.prefetch( Collections.singletonMap( spark, Collections.singleton( "pt_BR" ) ) );
+        artifacts.get( framework, "en_US" );
+        Assert.assertEquals( lookups.get(), 4 );
+    }
+
+}
@@ -0,0 +1,92 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.plugin.compiler.continuous;
+
+import static java.util.Arrays.asList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.execution.ProjectDependencyGraph;
+import org.apache.maven.project.MavenProject;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ReactorScheduleTest
+{
+
+    private MavenProject lib;
+
+    private MavenProject core;
+
+    private MavenProject ui;
+
+    private MavenProject app;
+
+    private MavenProject other;
+
+    private ReactorSchedule schedule;
+
+    /**
+     * app depends on core through ui, a java module that isn't compiled; core depends on lib
+     */
+    @BeforeMethod
+    public void createReactor()
+    {
+        lib = mock( MavenProject.class );
+        core = mock( MavenProject.class );
+        ui = mock( MavenProject.class );
+        app = mock( MavenProject.class );
+        other = mock( MavenProject.class );
+
+        ProjectDependencyGraph graph = mock( ProjectDependencyGraph.class );
+        when( graph.getUpstreamProjects( lib, true ) ).thenReturn( Collections.<MavenProject> emptyList() );
+        when( graph.getUpstreamProjects( other, true ) ).thenReturn( Collections.<MavenProject> emptyList() );
+        when( graph.getUpstreamProjects( core, true ) ).thenReturn( asList( lib ) );
+        when( graph.getUpstreamProjects( ui, true ) ).thenReturn( asList( core, lib ) );
+        when( graph.getUpstreamProjects( app, true ) ).thenReturn( asList( ui, core, lib ) );
+
+        schedule = new ReactorSchedule( graph );
+    }
+
+    @Test
+    public void modulesWaitForTransitiveUpstreams()
+    {
+        List<List<MavenProject>> levels = schedule.getLevels( asList( lib, other, core, app ) );
+
+        Assert.assertEquals( levels.size(), 3 );
+        Assert.assertEquals( levels.get( 0 ), asList( lib, other ) );
+        Assert.assertEquals( levels.get( 1 ), asList( core ) );
+        Assert.assertEquals( levels.get( 2 ), asList( app ) );
+    }
+
+    @Test
+    public void modulesDependingOnAFailedOneAreBlocked()
+    {
+        List<MavenProject> failed = asList( lib );
+
+        Assert.assertTrue( schedule.isBlocked( core, failed ) );
+        Assert.assertTrue( schedule.isBlocked( app, failed ) );
+        Assert.assertFalse( schedule.isBlocked( other, failed ) );
+        Assert.assertFalse( schedule.isBlocked( lib, failed ) );
+    }
+
+}
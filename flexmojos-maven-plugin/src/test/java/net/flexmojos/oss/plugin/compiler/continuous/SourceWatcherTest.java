@@ -0,0 +1,147 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.plugin.compiler.continuous;
+
+import java.io.File;
+import java.util.Collections;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class SourceWatcherTest
+{
+
+    private File sources;
+
+    @BeforeMethod
+    public void createSources()
+        throws Exception
+    {
+        sources = new File( "target/source-watcher/src" );
+        FileUtils.deleteDirectory( sources );
+        new File( sources, "com/acme" ).mkdirs();
+        FileUtils.fileWrite( new File( sources, "Main.mxml" ).getPath(), "<Application/>" );
+    }
+
+    private Thread writeLater( final File file, final String content, final long delay )
+    {
+        Thread writer = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    Thread.sleep( delay );
+                    FileUtils.fileWrite( file.getPath(), content );
+                }
+                catch ( Exception e )
+                {
+                    throw new RuntimeException( e );
+                }
+            }
+        };
+        writer.start();
+        return writer;
+    }
+
+    @Test( timeOut = 10000 )
+    public void returnsOnceANewFileSettles()
+        throws Exception
+    {
+        SourceWatcher watcher = new SourceWatcher( Collections.singletonList( sources ), Collections.<File> emptyList(), 20, 100 );
+        File added = new File( sources, "com/acme/Added.as" );
+        writeLater( added, "package com.acme {}", 200 );
+
+        Assert.assertEquals( watcher.awaitChange(), Collections.singleton( added.getPath() ) );
+    }
+
+    @Test( timeOut = 10000 )
+    public void changesMadeBeforeWaitingAreNotLost()
+        throws Exception
+    {
+        SourceWatcher watcher = new SourceWatcher( Collections.singletonList( sources ), Collections.<File> emptyList(), 20, 50 );
+
+        // as if saved while the compiler was running
+        FileUtils.fileWrite( new File( sources, "Main.mxml" ).getPath(), "<Application>\n</Application>" );
+
+        watcher.awaitChange();
+    }
+
+    @Test( timeOut = 10000 )
+    public void burstOfSavesIsASingleChange()
+        throws Exception
+    {
+        SourceWatcher watcher = new SourceWatcher( Collections.singletonList( sources ), Collections.<File> emptyList(), 20, 300 );
+        File util = new File( sources, "com/acme/Util.as" );
+        writeLater( util, "package com.acme {}", 100 );
+        Thread last = writeLater( new File( sources, "com/acme/Other.as" ), "package com.acme {}", 200 );
+
+        Assert.assertEquals( watcher.awaitChange().size(), 2 );
+        Assert.assertFalse( last.isAlive() );
+        Assert.assertTrue( util.isFile() );
+    }
+
+    @Test( timeOut = 10000 )
+    public void librariesAreCheckedOnASlowerSchedule()
+        throws Exception
+    {
+        File library = new File( sources.getParentFile(), "lib.swc" );
+        FileUtils.fileWrite( library.getPath(), "swc" );
+
+        // only polling has a schedule, without a watch service
+        SourceWatcher watcher = new SourceWatcher( Collections.singletonList( sources ),
+                                                   Collections.singletonList( library ), 100, 20, null );
+        long start = System.currentTimeMillis();
+        FileUtils.fileWrite( library.getPath(), "new swc" );
+
+        Assert.assertEquals( watcher.awaitChange(), Collections.singleton( library.getPath() ) );
+        Assert.assertTrue( System.currentTimeMillis() - start >= ( SourceWatcher.LIBRARY_TICKS - 1 ) * 100 );
+    }
+
+    @Test( timeOut = 5000 )
+    public void watchServiceReportsChangesWithoutPolling()
+        throws Exception
+    {
+        // an interval longer than the test timeout, only the watch service can notice the change in time
+        SourceWatcher watcher =
+            new SourceWatcher( Collections.singletonList( sources ), Collections.<File> emptyList(), 60000, 50 );
+        try
+        {
+            Assert.assertTrue( watcher.isWatching() );
+
+            File dir = new File( sources, "com/acme/view" );
+            dir.mkdirs();
+            File view = new File( dir, "View.mxml" );
+            writeLater( view, "<Group/>", 100 );
+            Assert.assertEquals( watcher.awaitChange(), Collections.singleton( view.getPath() ) );
+
+            // directories created since are watched too
+            File other = new File( dir, "Other.mxml" );
+            writeLater( other, "<Group/>", 100 );
+            Assert.assertEquals( watcher.awaitChange(), Collections.singleton( other.getPath() ) );
+        }
+        finally
+        {
+            watcher.close();
+        }
+    }
+
+}
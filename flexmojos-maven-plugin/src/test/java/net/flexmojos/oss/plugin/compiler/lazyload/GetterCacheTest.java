@@ -0,0 +1,117 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.plugin.compiler.lazyload;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class GetterCacheTest
+{
+
+    @Test
+    public void nullValuesAndStatistics()
+    {
+        GetterCache cache = new GetterCache();
+        String key = GetterCache.key( "getLocale" );
+        Assert.assertEquals( key, "getLocale()" );
+
+        Assert.assertSame( cache.lookup( key ), GetterCache.MISS );
+        cache.store( key, null, cache.getGeneration(), 5000000, false );
+        Assert.assertNull( cache.lookup( key ) );
+        Assert.assertNull( cache.lookup( key ) );
+
+        GetterCache.Statistics statistics = cache.getStatistics().get( 0 );
+        Assert.assertEquals( statistics.getHits(), 2 );
+        Assert.assertEquals( statistics.getMisses(), 1 );
+        Assert.assertEquals( statistics.getComputeNanos(), 5000000 );
+    }
+
+    @Test
+    public void invalidate()
+    {
+        GetterCache cache = new GetterCache();
+        cache.put( "getSourcePath", "src" );
+        cache.put( "getLocale", "en_US" );
+
+        long generation = cache.getGeneration();
+        cache.invalidate( "getSourcePath" );
+        Assert.assertFalse( cache.contains( "getSourcePath" ) );
+        Assert.assertTrue( cache.contains( "getLocale()" ) );
+
+        // computed before the invalidation, may be stale
+        cache.store( "getSourcePath()", "old", generation, 0, false );
+        Assert.assertSame( cache.lookup( "getSourcePath()" ), GetterCache.MISS );
+    }
+
+    @Test
+    public void forkSharesOnlyShareableValues()
+    {
+        GetterCache cache = new GetterCache();
+        cache.store( "getDependencies()", "deps", cache.getGeneration(), 0, true );
+        cache.store( "getOutput()", "main.swf", cache.getGeneration(), 0, false );
+
+        GetterCache clone = cache.fork();
+        Assert.assertSame( cache.fork().lookup( "getDependencies()" ), clone.lookup( "getDependencies()" ) );
+        Assert.assertEquals( clone.lookup( "getDependencies()" ), "deps" );
+        Assert.assertSame( clone.lookup( "getOutput()" ), GetterCache.MISS );
+
+        // copy on write
+        clone.put( "getDependencies", "module deps" );
+        Assert.assertEquals( clone.lookup( "getDependencies()" ), "module deps" );
+        Assert.assertEquals( cache.lookup( "getDependencies()" ), "deps" );
+
+        GetterCache other = cache.fork();
+        other.invalidate( "getDependencies" );
+        Assert.assertFalse( other.contains( "getDependencies" ) );
+        Assert.assertTrue( cache.contains( "getDependencies" ) );
+    }
+
+    @Test
+    public void sharedValuesAreCopies()
+    {
+        GetterCache cache = new GetterCache();
+        File[] libraries = { new File( "a.swc" ) };
+        List<String> themes = new ArrayList<String>( Arrays.asList( "spark.css" ) );
+        cache.store( "getLibraries()", libraries, cache.getGeneration(), 0, true );
+        cache.store( "getTheme()", themes, cache.getGeneration(), 0, true );
+
+        GetterCache clone = cache.fork();
+        File[] shared = (File[]) clone.lookup( "getLibraries()" );
+        shared[0] = new File( "b.swc" );
+        libraries[0] = new File( "c.swc" );
+        themes.add( "halo.css" );
+
+        Assert.assertEquals( ( (File[]) clone.lookup( "getLibraries()" ) )[0], new File( "a.swc" ) );
+        Assert.assertEquals( clone.lookup( "getTheme()" ), Arrays.asList( "spark.css" ) );
+        try
+        {
+            ( (List<?>) clone.lookup( "getTheme()" ) ).clear();
+            Assert.fail( "Shared lists are read only" );
+        }
+        catch ( UnsupportedOperationException e )
+        {
+            // expected
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.plugin.test;
+
+import static java.util.Arrays.asList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class RunnerPortsTest
+{
+
+    private static final RunnerPorts.PortAllocator ALLOCATOR = new RunnerPorts.PortAllocator()
+    {
+        private int port = 9000;
+
+        public Integer freePort()
+        {
+            return port++;
+        }
+    };
+
+    @Test
+    public void singleRunnerKeepsConfiguredPorts()
+    {
+        Map<String, Integer[]> ports = RunnerPorts.allocate( asList( "TestRunner" ), 1024, null, ALLOCATOR );
+
+        Assert.assertEquals( ports.get( "TestRunner" )[0], Integer.valueOf( 1024 ) );
+        Assert.assertNotNull( ports.get( "TestRunner" )[1] );
+    }
+
+    @Test
+    public void severalRunnersGetTheirOwnPorts()
+    {
+        Map<String, Integer[]> ports =
+            RunnerPorts.allocate( asList( "TestRunner-1", "TestRunner-2" ), 1024, 1025, ALLOCATOR );
+
+        List<Integer> all = new ArrayList<Integer>();
+        for ( Integer[] runnerPorts : ports.values() )
+        {
+            all.addAll( asList( runnerPorts ) );
+        }
+        Assert.assertEquals( all.size(), 4 );
+        Assert.assertFalse( all.contains( 1024 ) );
+        Assert.assertFalse( all.contains( 1025 ) );
+        Assert.assertEquals( new HashSet<Integer>( all ).size(), 4 );
+    }
+
+    @Test
+    public void swfsWithoutPortsUseTheSharedOnes()
+    {
+        Map<String, Integer[]> runnerPorts = new HashMap<String, Integer[]>();
+        runnerPorts.put( "TestRunner-1.swf", new Integer[] { 9001, 9002 } );
+
+        Map<String, Integer[]> ports =
+            RunnerPorts.assign( new String[] { "TestRunner-1.swf", "Custom.swf" }, runnerPorts, 1024, 1025 );
+        Assert.assertEquals( ports.get( "TestRunner-1.swf" ), new Integer[] { 9001, 9002 } );
+        Assert.assertEquals( ports.get( "Custom.swf" ), new Integer[] { 1024, 1025 } );
+
+        ports = RunnerPorts.assign( new String[] { "TestRunner.swf" }, null, 1024, 1025 );
+        Assert.assertEquals( ports.get( "TestRunner.swf" ), new Integer[] { 1024, 1025 } );
+    }
+
+    @Test
+    public void swfsSharingPortsAreQueuedTogether()
+    {
+        Map<String, Integer[]> runnerPorts = new HashMap<String, Integer[]>();
+        runnerPorts.put( "TestRunner-1.swf", new Integer[] { 9001, 9002 } );
+        runnerPorts.put( "TestRunner-2.swf", new Integer[] { 9003, 9004 } );
+
+        Map<String, Integer[]> ports =
+            RunnerPorts.assign( new String[] { "A.swf", "TestRunner-1.swf", "B.swf", "TestRunner-2.swf" },
+                                runnerPorts, 1024, 1025 );
+
+        Assert.assertEquals( new ArrayList<List<String>>( RunnerPorts.queue( ports ) ),
+                             asList( asList( "A.swf", "B.swf" ), Collections.singletonList( "TestRunner-1.swf" ),
+                                     Collections.singletonList( "TestRunner-2.swf" ) ) );
+    }
+
+}
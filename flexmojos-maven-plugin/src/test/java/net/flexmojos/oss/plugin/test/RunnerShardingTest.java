@@ -0,0 +1,93 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.plugin.test;
+
+import static java.util.Arrays.asList;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class RunnerShardingTest
+{
+
+    @Test
+    public void balanceByDuration()
+    {
+        Map<String, Double> durations = new HashMap<String, Double>();
+        durations.put( "a.SlowTest", 10.0 );
+        durations.put( "a.MediumTest", 6.0 );
+        durations.put( "a.FastTest", 4.0 );
+
+        List<List<String>> shards =
+            RunnerSharding.split( asList( "a.FastTest", "a.MediumTest", "a.SlowTest" ), durations, 2 );
+
+        Assert.assertEquals( shards.size(), 2 );
+        Assert.assertEquals( shards.get( 0 ), asList( "a.SlowTest" ) );
+        Assert.assertEquals( shards.get( 1 ), asList( "a.FastTest", "a.MediumTest" ) );
+    }
+
+    @Test
+    public void unknownDurationsAreAverage()
+    {
+        Map<String, Double> durations = new HashMap<String, Double>();
+        durations.put( "a.OneTest", 2.0 );
+        durations.put( "a.TwoTest", 2.0 );
+
+        List<List<String>> shards =
+            RunnerSharding.split( asList( "a.OneTest", "a.TwoTest", "a.NewTest", "a.OtherTest" ), durations, 2 );
+
+        Assert.assertEquals( shards.get( 0 ).size(), 2 );
+        Assert.assertEquals( shards.get( 1 ).size(), 2 );
+    }
+
+    @Test
+    public void noDurationsSpreadEvenly()
+    {
+        List<List<String>> shards =
+            RunnerSharding.split( asList( "A", "B", "C", "D", "E" ), new HashMap<String, Double>(), 3 );
+
+        Assert.assertEquals( shards.size(), 3 );
+        Assert.assertEquals( shards.get( 0 ), asList( "A", "D" ) );
+        Assert.assertEquals( shards.get( 1 ), asList( "B", "E" ) );
+        Assert.assertEquals( shards.get( 2 ), asList( "C" ) );
+    }
+
+    @Test
+    public void readSurefireReports()
+        throws Exception
+    {
+        File reports = new File( "target/runner-sharding/surefire-reports" );
+        FileUtils.deleteDirectory( reports );
+        reports.mkdirs();
+        FileUtils.fileWrite( new File( reports, "TEST-com.acme.MyTest.xml" ).getPath(),
+                             "<testsuite name=\"com.acme::MyTest\" tests=\"1\" time=\"1.5\"/>" );
+        FileUtils.fileWrite( new File( reports, "TEST-com.acme.BrokenTest.xml" ).getPath(), "<testsuite" );
+
+        Map<String, Double> durations = RunnerSharding.readDurations( reports );
+
+        Assert.assertEquals( durations.size(), 1 );
+        Assert.assertEquals( durations.get( "com.acme.MyTest" ), 1.5 );
+    }
+
+}
@@ -0,0 +1,162 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.plugin.utilities;
+
+import static com.marvinformatics.kiss.matchers.maven.artifact.ArtifactMatchers.artifactId;
+import static com.marvinformatics.kiss.matchers.maven.artifact.ArtifactMatchers.groupId;
+import static com.marvinformatics.kiss.matchers.maven.artifact.ArtifactMatchers.scope;
+import static com.marvinformatics.kiss.matchers.maven.artifact.ArtifactMatchers.type;
+import static org.hamcrest.CoreMatchers.allOf;
+import static org.hamcrest.CoreMatchers.anyOf;
+import static org.hamcrest.CoreMatchers.not;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.hamcrest.Matcher;
+
+/**
+ * Compares the matcher chains the compiler mojos used to run on every dependency query against
+ * {@link DependencyIndex} lookups, on a reactor with a few hundred SWC dependencies.
+ * <p>
+ * Usage: java -cp target/test-classes:target/classes:&lt;dependencies&gt;
+ * net.flexmojos.oss.plugin.utilities.DependencyIndexBenchmark [dependencies] [iterations]
+ * </p>
+ */
+public class DependencyIndexBenchmark
+{
+
+    private static final String[] SCOPES = { "external", "internal", "merged", "rsl", "caching", "compile", null };
+
+    private static final String[] LIBRARY_TYPES = { "swc", "ane" };
+
+    private static final String[] EXTERNAL_SCOPES = { "external", "caching", "rsl" };
+
+    private static final String[] LIBRARY_SCOPES = { "merged", "compile", null };
+
+    @SuppressWarnings( "unchecked" )
+    public static void main( String[] args )
+    {
+        int size = args.length > 0 ? Integer.parseInt( args[0] ) : 320;
+        int iterations = args.length > 1 ? Integer.parseInt( args[1] ) : 2000;
+
+        Set<Artifact> dependencies = createDependencies( size );
+
+        Matcher<? super Artifact> global =
+            allOf( groupId( "com.adobe.flex.framework" ), type( "swc" ),
+                   anyOf( artifactId( "playerglobal" ), artifactId( "airglobal" ) ) );
+        Matcher<? super Artifact> external =
+            allOf( not( global ), anyOf( type( "swc" ), type( "ane" ) ),
+                   anyOf( scope( "external" ), scope( "caching" ), scope( "rsl" ) ) );
+        Matcher<? super Artifact> library =
+            allOf( not( global ), anyOf( type( "swc" ), type( "ane" ) ),
+                   anyOf( scope( "merged" ), scope( "compile" ), scope( (String) null ) ) );
+
+        DependencyIndex index = new DependencyIndex( dependencies, global );
+        if ( !filter( dependencies, external ).equals( index.select( LIBRARY_TYPES, EXTERNAL_SCOPES, false ) )
+            || !filter( dependencies, library ).equals( index.select( LIBRARY_TYPES, LIBRARY_SCOPES, false ) ) )
+        {
+            throw new IllegalStateException( "Index and matchers disagree" );
+        }
+
+        // warm up the JIT on both paths
+        runMatchers( dependencies, external, library, iterations );
+        runIndex( index, iterations );
+        build( dependencies, global, iterations );
+
+        long matchers = runMatchers( dependencies, external, library, iterations );
+        long indexed = runIndex( index, iterations );
+        long built = build( dependencies, global, iterations );
+
+        System.out.println( "dependencies: " + dependencies.size() );
+        System.out.println( "matcher queries: " + ( matchers / iterations ) + " ns/op" );
+        System.out.println( "index queries:   " + ( indexed / iterations ) + " ns/op" );
+        System.out.println( "index build:     " + ( built / iterations ) + " ns, once per execution" );
+    }
+
+    private static long runMatchers( Set<Artifact> dependencies, Matcher<? super Artifact> external,
+                                     Matcher<? super Artifact> library, int iterations )
+    {
+        long start = System.nanoTime();
+        for ( int i = 0; i < iterations; i++ )
+        {
+            filter( dependencies, external );
+            filter( dependencies, library );
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long runIndex( DependencyIndex index, int iterations )
+    {
+        long start = System.nanoTime();
+        for ( int i = 0; i < iterations; i++ )
+        {
+            index.select( LIBRARY_TYPES, EXTERNAL_SCOPES, false );
+            index.select( LIBRARY_TYPES, LIBRARY_SCOPES, false );
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long build( Set<Artifact> dependencies, Matcher<? super Artifact> global, int iterations )
+    {
+        long start = System.nanoTime();
+        for ( int i = 0; i < iterations; i++ )
+        {
+            new DependencyIndex( dependencies, global );
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static Set<Artifact> filter( Set<Artifact> dependencies, Matcher<? super Artifact> matcher )
+    {
+        Set<Artifact> result = new LinkedHashSet<Artifact>();
+        for ( Artifact artifact : dependencies )
+        {
+            if ( matcher.matches( artifact ) )
+            {
+                result.add( artifact );
+            }
+        }
+        return result;
+    }
+
+    private static Set<Artifact> createDependencies( int size )
+    {
+        Set<Artifact> dependencies = new LinkedHashSet<Artifact>();
+        dependencies.add( createArtifact( "com.adobe.flex.framework", "playerglobal", "provided", "swc", "11.1" ) );
+        for ( int i = 0; i < size; i++ )
+        {
+            String type = i % 10 == 0 ? "rb.swc" : ( i % 25 == 0 ? "ane" : "swc" );
+            dependencies.add( createArtifact( "org.example.g" + ( i % 12 ), "module" + i, SCOPES[i % SCOPES.length],
+                                              type, null ) );
+        }
+        return dependencies;
+    }
+
+    private static Artifact createArtifact( String groupId, String artifactId, String scope, String type,
+                                            String classifier )
+    {
+        return new DefaultArtifact( groupId, artifactId, VersionRange.createFromVersion( "1.0" ), scope, type,
+                                    classifier, new DefaultArtifactHandler( type ) );
+    }
+
+}
@@ -0,0 +1,137 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.plugin.utilities;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class FileStateJournalTest
+{
+
+    private File sources;
+
+    private File journalFile;
+
+    private Collection<File> inputs;
+
+    @BeforeMethod
+    public void createSources()
+        throws Exception
+    {
+        File root = new File( "target/file-state-journal" );
+        FileUtils.deleteDirectory( root );
+
+        sources = new File( root, "src" );
+        new File( sources, "com/acme" ).mkdirs();
+        FileUtils.fileWrite( new File( sources, "Main.mxml" ).getPath(), "<Application/>" );
+        FileUtils.fileWrite( new File( sources, "com/acme/Util.as" ).getPath(), "package com.acme {}" );
+
+        journalFile = new File( root, "target/Mxmlc.journal" );
+        inputs = Collections.singletonList( sources );
+    }
+
+    private List<String> checkAndCommit( String arguments )
+        throws Exception
+    {
+        FileStateJournal journal = new FileStateJournal( journalFile );
+        List<String> changes = journal.check( arguments, inputs );
+        journal.commit();
+        return changes;
+    }
+
+    @Test
+    public void upToDateOnceJournaled()
+        throws Exception
+    {
+        Assert.assertFalse( checkAndCommit( "-debug=true" ).isEmpty() );
+        Assert.assertTrue( journalFile.isFile() );
+        Assert.assertEquals( checkAndCommit( "-debug=true" ), Collections.emptyList() );
+    }
+
+    @Test
+    public void argumentsAreJournaled()
+        throws Exception
+    {
+        checkAndCommit( "-debug=true" );
+        Assert.assertEquals( checkAndCommit( "-debug=false" ), Arrays.asList( "compiler arguments changed" ) );
+    }
+
+    @Test
+    public void metadataDateIsNotJournaled()
+        throws Exception
+    {
+        List<String> tenOClock = Arrays.asList( "-debug=true", "-metadata.date=Oct 18, 2026 10:00" );
+        List<String> aMinuteLater = Arrays.asList( "-debug=true", "-metadata.date+=Oct 18, 2026 10:01" );
+
+        checkAndCommit( FileStateJournal.renderArguments( tenOClock ) );
+        Assert.assertEquals( checkAndCommit( FileStateJournal.renderArguments( aMinuteLater ) ),
+                             Collections.emptyList() );
+        Assert.assertEquals( checkAndCommit( FileStateJournal.renderArguments( Arrays.asList( "-debug=false" ) ) ),
+                             Arrays.asList( "compiler arguments changed" ) );
+    }
+
+    @Test
+    public void detectsAddedModifiedAndRemovedFiles()
+        throws Exception
+    {
+        checkAndCommit( null );
+
+        File util = new File( sources, "com/acme/Util.as" );
+        FileUtils.fileWrite( util.getPath(), "package com.acme { public class Util {} }" );
+        Assert.assertEquals( checkAndCommit( null ), Arrays.asList( "modified " + util.getAbsolutePath() ) );
+
+        File added = new File( sources, "com/acme/Added.as" );
+        FileUtils.fileWrite( added.getPath(), "package com.acme {}" );
+        Assert.assertEquals( checkAndCommit( null ), Arrays.asList( "added " + added.getAbsolutePath() ) );
+
+        added.delete();
+        Assert.assertEquals( checkAndCommit( null ), Arrays.asList( "removed " + added.getAbsolutePath() ) );
+    }
+
+    @Test
+    public void touchedFilesAreNotChanges()
+        throws Exception
+    {
+        checkAndCommit( null );
+
+        File main = new File( sources, "Main.mxml" );
+        main.setLastModified( main.lastModified() - 60000 );
+        Assert.assertEquals( new FileStateJournal( journalFile ).check( null, inputs ), Collections.emptyList() );
+    }
+
+    @Test
+    public void uncommittedSnapshotsAreForgotten()
+        throws Exception
+    {
+        checkAndCommit( null );
+        FileUtils.fileWrite( new File( sources, "Main.mxml" ).getPath(), "<Application>" );
+
+        // compilation failed, nothing committed
+        Assert.assertEquals( new FileStateJournal( journalFile ).check( null, inputs ).size(), 1 );
+        Assert.assertEquals( new FileStateJournal( journalFile ).check( null, inputs ).size(), 1 );
+    }
+
+}
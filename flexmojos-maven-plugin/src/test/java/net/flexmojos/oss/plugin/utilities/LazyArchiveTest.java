@@ -0,0 +1,127 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.plugin.utilities;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class LazyArchiveTest
+{
+
+    private File zip;
+
+    private File dir;
+
+    @BeforeMethod
+    public void createZip()
+        throws Exception
+    {
+        File root = new File( "target/lazy-archive" );
+        FileUtils.deleteDirectory( root );
+        root.mkdirs();
+
+        zip = new File( root, "configs.zip" );
+        ZipOutputStream out = new ZipOutputStream( new FileOutputStream( zip ) );
+        out.putNextEntry( new ZipEntry( "flex-config.xml" ) );
+        out.write( "<flex-config/>".getBytes( "UTF-8" ) );
+        out.putNextEntry( new ZipEntry( "themes/Spark/spark.css" ) );
+        out.write( "css".getBytes( "UTF-8" ) );
+        out.putNextEntry( new ZipEntry( "themes/a..b.css" ) );
+        out.write( "ab".getBytes( "UTF-8" ) );
+        out.putNextEntry( new ZipEntry( "x" ) );
+        out.write( "x".getBytes( "UTF-8" ) );
+        out.putNextEntry( new ZipEntry( "../escape.txt" ) );
+        out.write( "escape".getBytes( "UTF-8" ) );
+        out.close();
+
+        dir = new File( root, "configs_zip" );
+    }
+
+    @Test
+    public void readWithoutExtracting()
+        throws Exception
+    {
+        LazyArchive archive = new LazyArchive( zip, dir );
+        Assert.assertEquals( IOUtil.toString( archive.open( "flex-config.xml" ) ), "<flex-config/>" );
+        Assert.assertTrue( archive.contains( "themes/Spark/spark.css" ) );
+        Assert.assertFalse( archive.contains( "themes/Halo/halo.swc" ) );
+        Assert.assertFalse( dir.exists() );
+    }
+
+    @Test
+    public void materializeSingleEntries()
+        throws Exception
+    {
+        LazyArchive archive = new LazyArchive( zip, dir );
+        File css = archive.materialize( "./themes/Spark/spark.css" );
+        Assert.assertEquals( css, new File( dir, "themes/Spark/spark.css" ) );
+        Assert.assertEquals( FileUtils.fileRead( css ), "css" );
+        Assert.assertFalse( new File( dir, "flex-config.xml" ).exists() );
+        Assert.assertEquals( css.getParentFile().list().length, 1 );
+
+        try
+        {
+            archive.materialize( "missing.xml" );
+            Assert.fail();
+        }
+        catch ( FileNotFoundException e )
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void materializeAll()
+        throws Exception
+    {
+        LazyArchive archive = new LazyArchive( zip, dir );
+        archive.materialize( "flex-config.xml" );
+        Assert.assertEquals( archive.materializeAll(), dir );
+        Assert.assertTrue( new File( dir, "themes/Spark/spark.css" ).isFile() );
+        Assert.assertTrue( new File( dir, ".flexmojos-complete" ).isFile() );
+        Assert.assertEquals( FileUtils.fileRead( new File( dir, "themes/a..b.css" ) ), "ab" );
+        Assert.assertEquals( FileUtils.fileRead( new File( dir, "x" ) ), "x" );
+        Assert.assertFalse( new File( dir.getParentFile(), "escape.txt" ).exists() );
+    }
+
+    @Test
+    public void reextractLeftoversUntilComplete()
+        throws Exception
+    {
+        File css = new File( dir, "themes/Spark/spark.css" );
+        css.getParentFile().mkdirs();
+        FileUtils.fileWrite( css.getAbsolutePath(), "c" );
+
+        LazyArchive archive = new LazyArchive( zip, dir );
+        Assert.assertEquals( FileUtils.fileRead( archive.materialize( "themes/Spark/spark.css" ) ), "css" );
+
+        FileUtils.fileWrite( css.getAbsolutePath(), "c" );
+        archive.materializeAll();
+        Assert.assertEquals( FileUtils.fileRead( css ), "css" );
+    }
+
+}
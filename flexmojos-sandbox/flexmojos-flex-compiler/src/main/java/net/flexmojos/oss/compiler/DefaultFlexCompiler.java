@@ -17,17 +17,26 @@
  */
 package net.flexmojos.oss.compiler;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Method;
 import java.util.List;
 
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.component.annotations.Requirement;
 import org.codehaus.plexus.logging.AbstractLogEnabled;
+import net.flexmojos.oss.compiler.cache.CompilerOutputCache;
 import net.flexmojos.oss.compiler.command.Command;
 import net.flexmojos.oss.compiler.command.CommandUtil;
 import net.flexmojos.oss.compiler.command.Result;
+import net.flexmojos.oss.compiler.daemon.CompilerDaemonClient;
+import net.flexmojos.oss.compiler.daemon.CompilerDaemonSettings;
+import net.flexmojos.oss.compiler.incremental.IncrementalCompiler;
 import net.flexmojos.oss.compiler.util.FlexCompilerArgumentParser;
+import net.flexmojos.oss.compiler.util.ThreadLocalToolkitHelper;
 
+import flex2.compiler.Logger;
+import flex2.compiler.util.ThreadLocalToolkit;
 import flex2.tools.ASDoc;
 import flex2.tools.Compc;
 import flex2.tools.DigestTool;
@@ -40,20 +49,50 @@ public class DefaultFlexCompiler
     implements FlexCompiler
 {
 
+    @Requirement
+    private CompilerDaemonClient daemon;
+
+    @Requirement
+    private IncrementalCompiler incrementalCompiler;
+
+    @Requirement
+    private CompilerOutputCache outputCache;
+
     @Requirement
     private FlexCompilerArgumentParser parser;
 
     public Result compileSwc( final ICompcConfiguration configuration, boolean sychronize )
         throws Exception
     {
+        final CompilerDaemonSettings settings = daemon.getSettings();
+        final boolean incremental = incrementalCompiler.isEnabled();
+        final File cacheDirectory = outputCache.getDirectory();
+        final File configDirectory = parser.getConfigDirectory();
         return CommandUtil.execute( new Command()
         {
             public void command()
                 throws Exception
             {
-                String[] args = parser.parseArguments( configuration, ICompcConfiguration.class );
+                List<String> argsList = getArguments( configuration, ICompcConfiguration.class, configDirectory );
+                final String[] args = argsList.toArray( new String[argsList.size()] );
                 logArgs( args );
-                Compc.compc( args );
+                runCached( cacheDirectory, CompilerDaemonClient.COMPC, args, new Command()
+                {
+                    public void command()
+                        throws Exception
+                    {
+                        if ( incremental && configuration.getOutput() != null
+                            && isIncremental( configuration.getCompilerConfiguration() ) )
+                        {
+                            incrementalCompiler.compileSwc( args, new File( configuration.getOutput() ),
+                                                            getCompilerLogger() );
+                        }
+                        else if ( !runOnDaemon( settings, CompilerDaemonClient.COMPC, args ) )
+                        {
+                            Compc.compc( args );
+                        }
+                    }
+                } );
             }
         }, sychronize );
     }
@@ -61,19 +100,44 @@ public class DefaultFlexCompiler
     public Result compileSwf( MxmlcConfigurationHolder cfgHolder, boolean sychronize )
         throws Exception
     {
+        final ICommandLineConfiguration configuration = cfgHolder.configuration;
+        final File sourceFile = cfgHolder.sourceFile;
         final List<String> argsList =
-            parser.getArgumentsList( cfgHolder.configuration, ICommandLineConfiguration.class );
-        if ( cfgHolder.sourceFile != null )
+            getArguments( configuration, ICommandLineConfiguration.class, parser.getConfigDirectory() );
+        // OEM application takes the source file apart
+        final String[] incrementalArgs = argsList.toArray( new String[argsList.size()] );
+        if ( sourceFile != null )
         {
-            argsList.add( cfgHolder.sourceFile.getAbsolutePath() );
+            argsList.add( sourceFile.getAbsolutePath() );
         }
+        final CompilerDaemonSettings settings = daemon.getSettings();
+        final boolean incremental = incrementalCompiler.isEnabled();
+        final File cacheDirectory = outputCache.getDirectory();
         return CommandUtil.execute( new Command()
         {
             public void command()
+                throws Exception
             {
-                String[] args = argsList.toArray( new String[argsList.size()] );
+                final String[] args = argsList.toArray( new String[argsList.size()] );
                 logArgs( args );
-                Mxmlc.mxmlc( args );
+                runCached( cacheDirectory, CompilerDaemonClient.MXMLC, args, new Command()
+                {
+                    public void command()
+                        throws Exception
+                    {
+                        if ( incremental && sourceFile != null && configuration.getOutput() != null
+                            && isIncremental( configuration.getCompilerConfiguration() ) )
+                        {
+                            incrementalCompiler.compileSwf( sourceFile, incrementalArgs,
+                                                            new File( configuration.getOutput() ),
+                                                            getCompilerLogger() );
+                        }
+                        else if ( !runOnDaemon( settings, CompilerDaemonClient.MXMLC, args ) )
+                        {
+                            Mxmlc.mxmlc( args );
+                        }
+                    }
+                } );
             }
         }, sychronize );
     }
@@ -81,30 +145,39 @@ public class DefaultFlexCompiler
     public Result asdoc( final IASDocConfiguration configuration, boolean sychronize )
         throws Exception
     {
+        final CompilerDaemonSettings settings = daemon.getSettings();
         return CommandUtil.execute( new Command()
         {
             public void command()
             {
                 String[] args = parser.parseArguments( configuration, IASDocConfiguration.class );
                 logArgs( args );
-                // Force the XML Transformer to the Xalan version that comes with Flex
-                String defaultTransfomer = System.getProperty( "javax.xml.transform.TransformerFactory" );
-                System.setProperty( "javax.xml.transform.TransformerFactory",
-                                    "org.apache.xalan.processor.TransformerFactoryImpl" );
-                ASDoc.asdoc( args );
-                // and set it back to the default
-                if ( defaultTransfomer == null )
+                if ( !runOnDaemon( settings, CompilerDaemonClient.ASDOC, args ) )
                 {
-                    System.getProperties().remove( "javax.xml.transform.TransformerFactory" );
-                }
-                else
-                {
-                    System.setProperty( "javax.xml.transform.TransformerFactory", defaultTransfomer );
+                    runAsdoc( args );
                 }
             }
         }, sychronize );
     }
 
+    public static void runAsdoc( String[] args )
+    {
+        // Force the XML Transformer to the Xalan version that comes with Flex
+        String defaultTransfomer = System.getProperty( "javax.xml.transform.TransformerFactory" );
+        System.setProperty( "javax.xml.transform.TransformerFactory",
+                            "org.apache.xalan.processor.TransformerFactoryImpl" );
+        ASDoc.asdoc( args );
+        // and set it back to the default
+        if ( defaultTransfomer == null )
+        {
+            System.getProperties().remove( "javax.xml.transform.TransformerFactory" );
+        }
+        else
+        {
+            System.setProperty( "javax.xml.transform.TransformerFactory", defaultTransfomer );
+        }
+    }
+
     public Result digest( final IDigestConfiguration configuration, boolean sychronize )
         throws Exception
     {
@@ -137,6 +210,110 @@ public class DefaultFlexCompiler
         }, sychronize );
     }
 
+    private <E> List<String> getArguments( E configuration, Class<? extends E> configClass, File configDirectory )
+        throws IOException
+    {
+        if ( configDirectory == null )
+        {
+            return parser.getArgumentsList( configuration, configClass );
+        }
+
+        return parser.getArgumentsList( configuration, configClass, configDirectory );
+    }
+
+    /**
+     * Restores the outputs from the compiler cache when possible, otherwise compiles and stores the outputs there.
+     */
+    private void runCached( File cacheDirectory, String tool, String[] args, Command compilation )
+        throws Exception
+    {
+        String key = null;
+        if ( cacheDirectory != null )
+        {
+            try
+            {
+                key = outputCache.getKey( cacheDirectory, tool, args );
+                if ( outputCache.restore( cacheDirectory, key, args ) )
+                {
+                    getLogger().info( "Compiler outputs restored from cache " + key );
+                    return;
+                }
+            }
+            catch ( IOException e )
+            {
+                getLogger().warn( "Unable to read compiler cache: " + e.getMessage() );
+                key = null;
+            }
+        }
+
+        int errors = getErrorCount();
+        compilation.command();
+
+        if ( key != null && getErrorCount() == errors )
+        {
+            try
+            {
+                outputCache.store( cacheDirectory, key, args );
+            }
+            catch ( IOException e )
+            {
+                getLogger().warn( "Unable to write compiler cache: " + e.getMessage() );
+            }
+        }
+    }
+
+    private static int getErrorCount()
+    {
+        Logger logger = ThreadLocalToolkitHelper.getMavenLogger();
+        return logger == null ? 0 : logger.errorCount();
+    }
+
+    private static boolean isIncremental( ICompilerConfiguration configuration )
+    {
+        return configuration != null && Boolean.TRUE.equals( configuration.getIncremental() );
+    }
+
+    private Logger getCompilerLogger()
+    {
+        Logger logger = ThreadLocalToolkitHelper.getMavenLogger();
+        ThreadLocalToolkit.setLogger( logger );
+        return logger;
+    }
+
+    /**
+     * @return false when the compilation must run in-process (daemon disabled or unreachable)
+     */
+    private boolean runOnDaemon( CompilerDaemonSettings settings, String tool, String[] args )
+    {
+        if ( settings == null )
+        {
+            return false;
+        }
+
+        // messages relayed by the daemon are counted by this logger, so errorCount() still works
+        Logger logger = getCompilerLogger();
+        int before = logger.errorCount();
+        int errors;
+        try
+        {
+            errors = daemon.execute( settings, tool, args, logger );
+        }
+        catch ( IOException e )
+        {
+            getLogger().warn( "Compiler daemon unavailable, compiling in-process: " + e.getMessage() );
+            getLogger().debug( e.getMessage(), e );
+            return false;
+        }
+
+        // a failed compilation must never look like a successful one, even if its messages got lost
+        if ( errors > logger.errorCount() - before )
+        {
+            logger.logError( "Compiler daemon reported " + errors + " error(s), only "
+                + ( logger.errorCount() - before ) + " were relayed, see " + settings.getKey() + " daemon log" );
+        }
+        return true;
+    }
+
     private void logArgs( String[] args )
     {
         if ( getLogger().isDebugEnabled() )
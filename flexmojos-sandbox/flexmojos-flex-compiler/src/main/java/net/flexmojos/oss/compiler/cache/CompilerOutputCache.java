@@ -0,0 +1,61 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.cache;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Content addressed cache of compiler outputs. Compilations are identified by the rendered arguments plus the digest of
+ * every file or directory those arguments refer to, so the same inputs always produce the same key no matter where the
+ * project is checked out. The cache directory may be shared (ie, on a network mount) by several machines.
+ */
+public interface CompilerOutputCache
+{
+
+    /**
+     * @return cache directory used by compilations submitted by the current thread or null when cache is disabled
+     */
+    File getDirectory();
+
+    /**
+     * Sets the cache directory used by compilations submitted by the current thread.
+     */
+    void setDirectory( File directory );
+
+    /**
+     * @return key for the compilation described by the given arguments
+     */
+    String getKey( File directory, String tool, String[] args )
+        throws IOException;
+
+    /**
+     * Copies the cached outputs to the locations requested by args.
+     * 
+     * @return false if nothing is cached under this key
+     */
+    boolean restore( File directory, String key, String[] args )
+        throws IOException;
+
+    /**
+     * Stores the outputs produced by a successful compilation.
+     */
+    void store( File directory, String key, String[] args )
+        throws IOException;
+
+}
@@ -0,0 +1,391 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import net.flexmojos.oss.compiler.daemon.CompilerDaemonSettings;
+import net.flexmojos.oss.compiler.util.CompileContext;
+import net.flexmojos.oss.compiler.util.Digests;
+
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.logging.AbstractLogEnabled;
+import org.codehaus.plexus.util.FileUtils;
+
+@Component( role = CompilerOutputCache.class )
+public class DefaultCompilerOutputCache
+    extends AbstractLogEnabled
+    implements CompilerOutputCache
+{
+
+    /**
+     * Options that point to files written by the compiler, those are cached instead of digested
+     */
+    private static final String[] OUTPUT_OPTIONS = { "output", "link-report", "size-report", "dump-config",
+        "resource-bundle-list" };
+
+    /**
+     * Options whose value changes on every build without changing the compiled code
+     */
+    private static final String[] VOLATILE_OPTIONS = { "metadata.date" };
+
+    /**
+     * Classes locating the compiler and the flexmojos wrappers woven into it, when compiling in-process
+     */
+    private static final String[] COMPILER_CLASSES = { "flex2.tools.Mxmlc", DefaultCompilerOutputCache.class.getName() };
+
+    private static final Pattern ELEMENT_VALUE = Pattern.compile( ">([^<>]+)</" );
+
+    private static final int MAX_DIGESTS = 4096;
+
+    /**
+     * Files modified this recently may still change without changing size nor last modification (file systems with
+     * coarse timestamps), they are always digested
+     */
+    private static final long SETTLE_TIME = 3000;
+
+    /**
+     * Digests by path, size and last modification, framework SWCs are shared by every compilation on a build. Least
+     * recently used entries are dropped, daemons live for days.
+     */
+    private static final Map<String, String> DIGESTS =
+        Collections.synchronizedMap( new LinkedHashMap<String, String>( 16, 0.75f, true )
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<String, String> eldest )
+            {
+                return size() > MAX_DIGESTS;
+            }
+        } );
+
+    public File getDirectory()
+    {
+        return CompileContext.current().getCacheDirectory();
+    }
+
+    public void setDirectory( File directory )
+    {
+        CompileContext.current().withCacheDirectory( directory ).install();
+    }
+
+    public String getKey( File directory, String tool, String[] args )
+        throws IOException
+    {
+        MessageDigest key = Digests.newSha1();
+        update( key, tool );
+
+        // a different compiler produces different outputs from the same arguments
+        for ( File file : getCompilerClasspath() )
+        {
+            // exploded class directories only happen while developing flexmojos itself
+            update( key, file.isFile() ? "#" + digest( file ) : file.getAbsolutePath() );
+        }
+
+        for ( String arg : args )
+        {
+            String option = getOption( arg );
+            if ( option != null && isOutput( option ) )
+            {
+                // output location doesn't change the output content
+                update( key, "-" + option + "=@output" );
+                continue;
+            }
+            if ( option != null && Arrays.asList( VOLATILE_OPTIONS ).contains( option ) )
+            {
+                update( key, "-" + option + "=@" + option );
+                continue;
+            }
+
+            String value = option == null ? arg : arg.substring( arg.indexOf( '=' ) + 1 );
+            update( key, option == null ? "" : arg.substring( 0, arg.length() - value.length() ) );
+            for ( String element : value.split( "," ) )
+            {
+                File file = new File( element );
+                if ( element.length() != 0 && file.isAbsolute() && file.exists() )
+                {
+                    update( key, "#" + digest( file ) );
+                    if ( "load-config".equals( option ) && file.isFile() )
+                    {
+                        digestReferences( key, file );
+                    }
+                }
+                else
+                {
+                    update( key, element );
+                }
+                update( key, "," );
+            }
+        }
+
+        return Digests.toHex( key.digest() );
+    }
+
+    public boolean restore( File directory, String key, String[] args )
+        throws IOException
+    {
+        File entry = getEntry( directory, key );
+        Map<String, File> outputs = getOutputs( args );
+        if ( !isComplete( entry, outputs ) )
+        {
+            return false;
+        }
+
+        for ( Map.Entry<String, File> output : outputs.entrySet() )
+        {
+            FileUtils.copyFile( new File( entry, output.getKey() ), output.getValue() );
+        }
+
+        // keep recently used entries around if someone purges by age
+        entry.setLastModified( System.currentTimeMillis() );
+        return true;
+    }
+
+    public void store( File directory, String key, String[] args )
+        throws IOException
+    {
+        File entry = getEntry( directory, key );
+        Map<String, File> outputs = getOutputs( args );
+        // directory outputs (compc -directory) aren't cached, nor compilations missing some declared output
+        if ( entry.exists() || outputs.get( "output" ) == null || !isComplete( null, outputs ) )
+        {
+            return;
+        }
+
+        // entries must show up complete, other builds may be reading this directory
+        File tmp = new File( entry.getParentFile(), key + ".tmp-" + System.nanoTime() );
+        tmp.mkdirs();
+        try
+        {
+            for ( Map.Entry<String, File> output : outputs.entrySet() )
+            {
+                FileUtils.copyFile( output.getValue(), new File( tmp, output.getKey() ) );
+            }
+
+            if ( !tmp.renameTo( entry ) && !entry.exists() )
+            {
+                getLogger().warn( "Unable to store compiler output on cache " + entry );
+            }
+        }
+        finally
+        {
+            if ( tmp.exists() )
+            {
+                FileUtils.deleteDirectory( tmp );
+            }
+        }
+    }
+
+    /**
+     * @param entry cache entry holding the outputs, null to check the compiler outputs themselves
+     * @return true when every declared output is there
+     */
+    private boolean isComplete( File entry, Map<String, File> outputs )
+    {
+        for ( Map.Entry<String, File> output : outputs.entrySet() )
+        {
+            File file = entry == null ? output.getValue() : new File( entry, output.getKey() );
+            if ( !file.isFile() )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return classpath of the daemon compiling, or the jars of the compiler loaded on this VM
+     */
+    private List<File> getCompilerClasspath()
+    {
+        CompilerDaemonSettings settings = CompileContext.current().getDaemonSettings();
+        if ( settings != null )
+        {
+            return settings.getClasspath();
+        }
+
+        List<File> classpath = new ArrayList<File>();
+        for ( String name : COMPILER_CLASSES )
+        {
+            try
+            {
+                CodeSource source =
+                    Class.forName( name, false, getClass().getClassLoader() ).getProtectionDomain().getCodeSource();
+                if ( source != null && source.getLocation() != null )
+                {
+                    classpath.add( new File( source.getLocation().toURI() ) );
+                }
+            }
+            catch ( Exception e )
+            {
+                // not on a file, it can't change under us either
+            }
+            catch ( LinkageError e )
+            {
+                // compiler not loadable here
+            }
+        }
+        return classpath;
+    }
+
+    private File getEntry( File directory, String key )
+    {
+        return new File( directory, key.substring( 0, 2 ) + "/" + key );
+    }
+
+    private Map<String, File> getOutputs( String[] args )
+    {
+        Map<String, File> outputs = new LinkedHashMap<String, File>();
+        for ( String arg : args )
+        {
+            String option = getOption( arg );
+            if ( option != null && isOutput( option ) )
+            {
+                outputs.put( option.substring( option.lastIndexOf( '.' ) + 1 ),
+                             new File( arg.substring( arg.indexOf( '=' ) + 1 ) ) );
+            }
+        }
+        return outputs;
+    }
+
+    private static String getOption( String arg )
+    {
+        if ( !arg.startsWith( "-" ) || arg.indexOf( '=' ) < 0 )
+        {
+            return null;
+        }
+
+        String option = arg.substring( 1, arg.indexOf( '=' ) );
+        if ( option.endsWith( "+" ) )
+        {
+            option = option.substring( 0, option.length() - 1 );
+        }
+        return option;
+    }
+
+    private static boolean isOutput( String option )
+    {
+        String name = option.substring( option.lastIndexOf( '.' ) + 1 );
+        return Arrays.asList( OUTPUT_OPTIONS ).contains( name );
+    }
+
+    private String digest( File file )
+        throws IOException
+    {
+        long lastModified = file.lastModified();
+        boolean settled = System.currentTimeMillis() - lastModified > SETTLE_TIME;
+        String id = file.getAbsolutePath() + '|' + file.length() + '|' + lastModified;
+        String digest = settled ? DIGESTS.get( id ) : null;
+        if ( digest != null )
+        {
+            return digest;
+        }
+
+        MessageDigest md = Digests.newSha1();
+        if ( file.isDirectory() )
+        {
+            digestDirectory( md, file, "" );
+        }
+        else
+        {
+            Digests.update( md, file );
+        }
+
+        digest = Digests.toHex( md.digest() );
+        // directories change without changing their own last modification, never memoize them
+        if ( settled && file.isFile() )
+        {
+            DIGESTS.put( id, digest );
+        }
+        return digest;
+    }
+
+    /**
+     * Generated load-config files only hold paths, libraries they point to must be part of the key as well
+     */
+    private void digestReferences( MessageDigest key, File config )
+        throws IOException
+    {
+        Matcher m = ELEMENT_VALUE.matcher( FileUtils.fileRead( config, "UTF-8" ) );
+        while ( m.find() )
+        {
+            File file = new File( m.group( 1 ).trim() );
+            if ( file.isAbsolute() && file.exists() )
+            {
+                update( key, "#" + digest( file ) );
+            }
+        }
+    }
+
+    private void digestDirectory( MessageDigest md, File directory, String path )
+        throws IOException
+    {
+        String[] names = directory.list();
+        if ( names == null )
+        {
+            return;
+        }
+
+        Arrays.sort( names );
+        for ( String name : names )
+        {
+            File file = new File( directory, name );
+            if ( name.startsWith( "." ) )
+            {
+                continue;
+            }
+
+            update( md, path + name );
+            if ( file.isDirectory() )
+            {
+                digestDirectory( md, file, path + name + "/" );
+            }
+            else
+            {
+                update( md, digest( file ) );
+            }
+        }
+    }
+
+    private static void update( MessageDigest md, String value )
+    {
+        try
+        {
+            md.update( value.getBytes( "UTF-8" ) );
+            md.update( (byte) 0 );
+        }
+        catch ( UnsupportedEncodingException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+
+}
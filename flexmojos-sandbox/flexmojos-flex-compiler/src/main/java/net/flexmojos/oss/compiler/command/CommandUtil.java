@@ -17,84 +17,115 @@
  */
 package net.flexmojos.oss.compiler.command;
 
-import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
+import net.flexmojos.oss.compiler.metrics.CompileMetrics;
+import net.flexmojos.oss.compiler.metrics.CompileRecord;
+import net.flexmojos.oss.compiler.util.CompileContext;
+import net.flexmojos.oss.compiler.util.CompilerLoggerAdapter;
+
+import flex2.compiler.Logger;
 import flex2.compiler.util.ThreadLocalToolkit;
+import flex2.tools.oem.internal.OEMLogAdapter;
 
 public class CommandUtil
 {
 
+    private static final CompileExecutor EXECUTOR =
+        new CompileExecutor( Runtime.getRuntime().availableProcessors() );
+
+    public static CompileExecutor getExecutor()
+    {
+        return EXECUTOR;
+    }
+
     public static Result execute( final Command command, boolean sychronize )
-            throws Exception
+        throws Exception
+    {
+        final Result r = new Result();
+        // logger, resolver and tags of the requesting mojo execution
+        final CompileContext context = CompileContext.current();
+        FutureTask<Object> task = new FutureTask<Object>( new Runnable()
         {
-            final Result r = new Result();
-            Thread t = new Thread( new Runnable()
+            public void run()
             {
-                public void run()
+                if ( !r.start() )
                 {
-    //                SecurityManager sm = System.getSecurityManager();
-    //
-    //                System.setSecurityManager( new SecurityManager()
-    //                {
-    //                    public void checkPermission( java.security.Permission perm )
-    //                    {
-    //                        if ( perm.getName().contains( "exitVM" ) )
-    //                        {
-    //                            throw new CompilerSecurityException();
-    //                        }
-    //                    }
-    //                } );
-    
+                    // cancelled while queued
+                    return;
+                }
+
+                // counted on its own, runtime locales and modules of the same mojo share the maven logger
+                Logger mavenLogger = context.getLogger();
+                Logger logger =
+                    mavenLogger == null ? null : new OEMLogAdapter( new CompilerLoggerAdapter( mavenLogger ) );
+                CompileContext previous = context.withLogger( logger ).install();
+                try
+                {
+                    // daemons and workers compile on another VM, this thread only waits for them
+                    boolean forked = context.getDaemonSettings() != null;
+                    CompileRecord record = CompileMetrics.getInstance().start( context.getTags(), forked );
                     try
                     {
                         command.command();
                     }
-    //                catch ( CompilerSecurityException e )
-    //                {
-    //                    // that is fine, just we preventing adobe from killing the VM
-    //                }
                     catch ( Exception e )
                     {
                         r.setException( e );
                     }
-    //                finally
-    //                {
-    //                    System.setSecurityManager( sm );
-    //                }
-    
-                    r.setExitCode( ThreadLocalToolkit.errorCount() );
-                }
-            } );
-            t.setUncaughtExceptionHandler( new UncaughtExceptionHandler()
-            {
-                public void uncaughtException( Thread t, Throwable e )
-                {
-                    if ( e instanceof Exception )
-                    {
-                        r.setException( (Exception) e );
-                    }
-                    else
+                    catch ( Throwable e )
                     {
                         r.setException( new Exception( e ) );
                     }
+
+                    r.setExitCode( ThreadLocalToolkit.errorCount() );
+
+                    CompileMetrics.getInstance().finish( record, logger == null ? 0 : logger.errorCount(),
+                                                         logger == null ? 0 : logger.warningCount(),
+                                                         r.getException() != null );
                 }
-            } );
-            t.start();
-            r.setThread( t );
-    
-            if ( sychronize )
-            {
-                Thread.yield();
-                try
-                {
-                    t.join();
-                }
-                catch ( InterruptedException e )
+                finally
                 {
+                    // pooled threads outlive the mojo, don't keep its logger and resolver reachable
+                    ThreadLocalToolkit.setLogger( null );
+                    ThreadLocalToolkit.setPathResolver( null );
+                    CompileContext.restore( previous );
+                    r.stop();
                 }
             }
-    
-            return r;
+        }, null )
+        {
+            @Override
+            protected void done()
+            {
+                r.fireCompleted();
+            }
+        };
+        r.setFuture( task );
+        EXECUTOR.submit( task, sychronize );
+
+        if ( sychronize )
+        {
+            try
+            {
+                task.get();
+            }
+            catch ( InterruptedException e )
+            {
+            }
+            catch ( ExecutionException e )
+            {
+                // task itself never throws, exceptions are kept on result
+            }
+            catch ( CancellationException e )
+            {
+                // reported by result
+            }
         }
 
+        return r;
+    }
+
 }
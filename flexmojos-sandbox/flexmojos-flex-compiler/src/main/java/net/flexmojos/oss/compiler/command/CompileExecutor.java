@@ -0,0 +1,154 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.command;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs compilations on a bounded pool of threads. Compilations above the limit wait on a queue instead of all
+ * competing for heap at the same time.
+ */
+public class CompileExecutor
+{
+
+    /**
+     * Rough heap used by a single compilation with the default memory usage factor
+     */
+    public static final long HEAP_PER_COMPILE = 256L * 1024 * 1024;
+
+    public static final int DEFAULT_MEMORY_USAGE_FACTOR = 1000;
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final ThreadPoolExecutor executor;
+
+    private WeakReference<Object> session;
+
+    public CompileExecutor( int maxThreads )
+    {
+        executor =
+            new ThreadPoolExecutor( maxThreads, maxThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                                    new ThreadFactory()
+                                    {
+                                        public Thread newThread( Runnable r )
+                                        {
+                                            return new CompilerThread( r );
+                                        }
+                                    } );
+        executor.allowCoreThreadTimeOut( true );
+    }
+
+    /**
+     * Largest number of concurrent compilations that fit on this VM, limited by available processors and by the heap
+     * each compilation is expected to use.
+     * 
+     * @param memoryUsageFactor compiler memory usage factor, null for the compiler default
+     */
+    public static int estimateMaxThreads( Integer memoryUsageFactor )
+    {
+        int factor = memoryUsageFactor == null ? DEFAULT_MEMORY_USAGE_FACTOR : memoryUsageFactor;
+        long heapPerCompile = Math.max( 1, HEAP_PER_COMPILE * factor / DEFAULT_MEMORY_USAGE_FACTOR );
+        long byHeap = Runtime.getRuntime().maxMemory() / heapPerCompile;
+        int byCores = Runtime.getRuntime().availableProcessors();
+
+        return (int) Math.max( 1, Math.min( byCores, byHeap ) );
+    }
+
+    public int getMaxThreads()
+    {
+        return executor.getMaximumPoolSize();
+    }
+
+    public synchronized void setMaxThreads( int maxThreads )
+    {
+        maxThreads = Math.max( 1, maxThreads );
+        // core size can never be bigger than max size
+        if ( maxThreads > executor.getMaximumPoolSize() )
+        {
+            executor.setMaximumPoolSize( maxThreads );
+            executor.setCorePoolSize( maxThreads );
+        }
+        else
+        {
+            executor.setCorePoolSize( maxThreads );
+            executor.setMaximumPoolSize( maxThreads );
+        }
+    }
+
+    /**
+     * Sizes the pool for a build session. Within a session the pool only grows, to the largest value requested by any
+     * module, so modules configured differently don't keep resizing it under each other's compilations. A new session
+     * starts over from its first request.
+     * 
+     * @param owner object identifying the build session
+     */
+    public synchronized void reserve( Object owner, int maxThreads )
+    {
+        if ( session == null || session.get() != owner )
+        {
+            session = new WeakReference<Object>( owner );
+            setMaxThreads( maxThreads );
+        }
+        else if ( maxThreads > getMaxThreads() )
+        {
+            setMaxThreads( maxThreads );
+        }
+    }
+
+    /**
+     * Queues the task. When invoked synchronously from a compiler thread (nested compilations, like adapting resource
+     * bundles while resolving arguments) the task runs right away on the calling thread, waiting for a free thread
+     * there could deadlock the pool.
+     */
+    public Future<?> submit( Runnable task, boolean sychronize )
+    {
+        return submit( new FutureTask<Object>( task, null ), sychronize );
+    }
+
+    public <T> FutureTask<T> submit( FutureTask<T> task, boolean sychronize )
+    {
+        if ( sychronize && Thread.currentThread() instanceof CompilerThread )
+        {
+            task.run();
+        }
+        else
+        {
+            executor.execute( task );
+        }
+        return task;
+    }
+
+    private static class CompilerThread
+        extends Thread
+    {
+        CompilerThread( Runnable r )
+        {
+            super( r, "flexmojos-compiler-" + THREAD_COUNT.incrementAndGet() );
+            // never hold maven VM open
+            setDaemon( true );
+        }
+    }
+
+}
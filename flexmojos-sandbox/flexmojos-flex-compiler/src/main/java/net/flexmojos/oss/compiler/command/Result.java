@@ -17,13 +17,40 @@
  */
 package net.flexmojos.oss.compiler.command;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Handle to a compilation that may still be queued or running.
+ */
 public class Result
 {
-    private Exception exception;
+    private static final int QUEUED = 0;
+
+    private static final int RUNNING = 1;
+
+    private static final int DROPPED = 2;
+
+    private final AtomicInteger state = new AtomicInteger( QUEUED );
+
+    private final CountDownLatch stopped = new CountDownLatch( 1 );
+
+    private volatile Exception exception;
+
+    private volatile int exitCode;
 
-    private int exitCode;
+    private Future<?> future;
 
-    private Thread thread;
+    private final List<ResultListener> listeners = new ArrayList<ResultListener>();
+
+    private boolean completed;
 
     public int getExitCode()
         throws Exception
@@ -33,6 +60,17 @@ public class Result
         return exitCode;
     }
 
+    /**
+     * @throws TimeoutException if the compilation didn't finish on time, it keeps running
+     */
+    public int getExitCode( long timeout, TimeUnit unit )
+        throws Exception
+    {
+        await( timeout, unit );
+
+        return getExitCode();
+    }
+
     public void setExitCode( int exitCode )
     {
         this.exitCode = exitCode;
@@ -41,7 +79,18 @@ public class Result
     public void checkException()
         throws Exception
     {
-        thread.join();
+        try
+        {
+            future.get();
+        }
+        catch ( ExecutionException e )
+        {
+            // task itself never throws, exceptions are kept on result
+        }
+        catch ( CancellationException e )
+        {
+            throw new CancellationException( "Compilation was cancelled" );
+        }
 
         if ( exception != null )
         {
@@ -49,13 +98,117 @@ public class Result
         }
     }
 
+    public void await( long timeout, TimeUnit unit )
+        throws InterruptedException, TimeoutException
+    {
+        try
+        {
+            future.get( timeout, unit );
+        }
+        catch ( CancellationException e )
+        {
+            // done
+        }
+        catch ( ExecutionException e )
+        {
+            // done
+        }
+    }
+
+    /**
+     * Drops a queued compilation and interrupts a running one. The future reports a running compilation as done right
+     * away, {@link #join()} waits for it to really stop.
+     * 
+     * @return false if the compilation was already done
+     */
+    public boolean cancel()
+    {
+        state.compareAndSet( QUEUED, DROPPED );
+        return future.cancel( true );
+    }
+
+    /**
+     * Waits for a started compilation to leave the compiler thread, cancelled ones included. Returns right away for
+     * compilations dropped before starting.
+     */
+    public void join()
+        throws InterruptedException
+    {
+        if ( state.get() == RUNNING )
+        {
+            stopped.await();
+        }
+    }
+
+    /**
+     * @return false if the compilation was dropped and must not run
+     */
+    boolean start()
+    {
+        return state.compareAndSet( QUEUED, RUNNING );
+    }
+
+    void stop()
+    {
+        stopped.countDown();
+    }
+
+    public boolean isCancelled()
+    {
+        return future.isCancelled();
+    }
+
+    public boolean isDone()
+    {
+        return future.isDone();
+    }
+
+    /**
+     * Registers a listener notified once the compilation is done, failed or cancelled. When that already happened the
+     * listener is notified right away on the calling thread.
+     */
+    public void addListener( ResultListener listener )
+    {
+        synchronized ( listeners )
+        {
+            if ( !completed )
+            {
+                listeners.add( listener );
+                return;
+            }
+        }
+
+        listener.completed( this );
+    }
+
+    void fireCompleted()
+    {
+        List<ResultListener> toNotify;
+        synchronized ( listeners )
+        {
+            completed = true;
+            toNotify = new ArrayList<ResultListener>( listeners );
+            listeners.clear();
+        }
+
+        for ( ResultListener listener : toNotify )
+        {
+            listener.completed( this );
+        }
+    }
+
+    public Exception getException()
+    {
+        return exception;
+    }
+
     public void setException( Exception exception )
     {
         this.exception = exception;
     }
 
-    public void setThread( Thread t )
+    public void setFuture( Future<?> future )
     {
-        this.thread = t;
+        this.future = future;
     }
 }
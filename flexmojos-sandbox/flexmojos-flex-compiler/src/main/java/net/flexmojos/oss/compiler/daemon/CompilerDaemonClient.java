@@ -0,0 +1,57 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.daemon;
+
+import java.io.IOException;
+
+import flex2.compiler.Logger;
+
+public interface CompilerDaemonClient
+{
+
+    String MXMLC = "mxmlc";
+
+    String COMPC = "compc";
+
+    String ASDOC = "asdoc";
+
+    /**
+     * @return settings used by compilations submitted by the current thread or null when compilations must run
+     *         in-process
+     */
+    CompilerDaemonSettings getSettings();
+
+    /**
+     * Sets the daemon used by compilations submitted by the current thread.
+     */
+    void setSettings( CompilerDaemonSettings settings );
+
+    /**
+     * Runs the tool on the daemon described by settings, starting it if necessary. Compiler messages are relayed to
+     * the given logger.
+     *
+     * @return number of errors reported by the compiler
+     * @throws IOException when the daemon can't be reached or refused the request, nothing was compiled and callers
+     *             should fallback to in-process compilation
+     * @throws IllegalStateException when the daemon failed after accepting the request, messages may already have
+     *             been relayed so callers must not fallback
+     */
+    int execute( CompilerDaemonSettings settings, String tool, String[] args, Logger logger )
+        throws IOException;
+
+}
@@ -0,0 +1,413 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.security.SecureRandom;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.flexmojos.oss.compiler.DefaultFlexCompiler;
+import net.flexmojos.oss.compiler.util.CompileContext;
+import net.flexmojos.oss.compiler.util.ThreadLocalToolkitHelper;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+
+import flex2.compiler.util.ThreadLocalToolkit;
+import flex2.tools.Compc;
+import flex2.tools.Mxmlc;
+import flex2.tools.oem.internal.OEMLogAdapter;
+
+/**
+ * Long lived process that keeps the flex compiler loaded (and JIT-warm) between maven invocations. Started on demand
+ * by {@link DefaultCompilerDaemonClient}, one per daemon key, and shuts itself down after being idle for a while.
+ * <p>
+ * Each request is served on its own thread, the compiler state that matters is kept on the thread locals of
+ * {@link ThreadLocalToolkit} and {@link CompileContext}, as it is when modules compile in parallel in-process.
+ * </p>
+ * <p>
+ * Only requests carrying the token published next to the port file are served, the loopback port is reachable by
+ * every user of the machine.
+ * </p>
+ */
+public final class CompilerDaemonServer
+{
+
+    /**
+     * Last argument of workers, they exit along with the build that forked them
+     */
+    static final String WORKER = "worker";
+
+    private final String key;
+
+    private final long idleTimeout;
+
+    private final File portFile;
+
+    private final String token;
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private volatile boolean broken;
+
+    CompilerDaemonServer( String key, String token, long idleTimeout, File portFile )
+    {
+        this.key = key;
+        this.token = token;
+        this.idleTimeout = idleTimeout;
+        this.portFile = portFile;
+    }
+
+    public static void main( String[] args )
+        throws Exception
+    {
+        if ( args.length != 3 && !( args.length == 4 && WORKER.equals( args[3] ) ) )
+        {
+            System.err.println( "Usage: " + CompilerDaemonServer.class.getName()
+                + " <key> <idleTimeout> <portFile> [" + WORKER + "]" );
+            System.exit( 1 );
+        }
+
+        if ( args.length == 4 )
+        {
+            exitWithParent();
+        }
+
+        String token = new BigInteger( 130, new SecureRandom() ).toString( 32 );
+        new CompilerDaemonServer( args[0], token, Long.parseLong( args[1] ), new File( args[2] ) ).run();
+
+        // flex compiler may leave non daemon threads behind
+        System.exit( 0 );
+    }
+
+    /**
+     * Workers are private to the build that forked them, the build holds their stdin open until it exits.
+     */
+    private static void exitWithParent()
+    {
+        Thread watcher = new Thread( "compiler-worker-parent" )
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    while ( System.in.read() != -1 )
+                    {
+                        // nothing is ever sent
+                    }
+                }
+                catch ( IOException e )
+                {
+                    // pipe broken, same as closed
+                }
+                System.exit( 0 );
+            }
+        };
+        watcher.setDaemon( true );
+        watcher.start();
+    }
+
+    private void run()
+        throws IOException
+    {
+        portFile.getParentFile().mkdirs();
+        DaemonProtocol.ownerOnly( portFile.getParentFile() );
+
+        // the client won't drain our output, so never write to the inherited streams
+        PrintStream log = new PrintStream( new FileOutputStream( DaemonProtocol.getLogFile( key ), true ), true );
+        System.setOut( log );
+        System.setErr( log );
+
+        ServerSocket server = new ServerSocket( 0, 50, InetAddress.getByName( "127.0.0.1" ) );
+        server.setSoTimeout( (int) Math.min( idleTimeout, Integer.MAX_VALUE ) );
+
+        warmUp();
+
+        int port = server.getLocalPort();
+        // token first, a client that finds the port must be able to authenticate
+        DaemonProtocol.writeOwnerOnly( DaemonProtocol.getTokenFile( key ), token );
+        publishPort( port );
+        log.println( new Date() + " - Compiler daemon '" + key + "' listening on port " + port );
+
+        try
+        {
+            while ( !broken )
+            {
+                Socket client;
+                try
+                {
+                    client = server.accept();
+                }
+                catch ( SocketTimeoutException e )
+                {
+                    if ( active.get() > 0 )
+                    {
+                        // a long compilation isn't idleness
+                        continue;
+                    }
+                    log.println( new Date() + " - Idle for " + idleTimeout + "ms, shutting down" );
+                    break;
+                }
+                catch ( SocketException e )
+                {
+                    if ( broken )
+                    {
+                        break;
+                    }
+                    throw e;
+                }
+
+                active.incrementAndGet();
+                Thread worker =
+                    new Thread( new Connection( client, server, log ), "compiler-daemon-" + client.getPort() );
+                worker.setDaemon( true );
+                worker.start();
+            }
+        }
+        finally
+        {
+            server.close();
+            unpublishPort( port );
+        }
+    }
+
+    /**
+     * Serves one client on its own thread, so a long compilation doesn't hold every other module of a parallel build.
+     */
+    private final class Connection
+        implements Runnable
+    {
+
+        private final Socket client;
+
+        private final ServerSocket server;
+
+        private final PrintStream log;
+
+        Connection( Socket client, ServerSocket server, PrintStream log )
+        {
+            this.client = client;
+            this.server = server;
+            this.log = log;
+        }
+
+        public void run()
+        {
+            try
+            {
+                serve( client );
+            }
+            catch ( OutOfMemoryError e )
+            {
+                // compiler static state can't be trusted anymore, clients will start a new VM
+                e.printStackTrace( log );
+                broken = true;
+                try
+                {
+                    // wakes up the accept loop
+                    server.close();
+                }
+                catch ( IOException ioe )
+                {
+                    // already closed
+                }
+            }
+            catch ( Throwable t )
+            {
+                t.printStackTrace( log );
+            }
+            finally
+            {
+                try
+                {
+                    IOUtil.close( client.getOutputStream() );
+                    client.close();
+                }
+                catch ( IOException e )
+                {
+                    // client already gone
+                }
+                active.decrementAndGet();
+            }
+        }
+
+    }
+
+    private void warmUp()
+    {
+        String[] classes = { "flex2.tools.Mxmlc", "flex2.tools.Compc", "flex2.tools.ASDoc" };
+        for ( String name : classes )
+        {
+            try
+            {
+                Class.forName( name );
+            }
+            catch ( Throwable t )
+            {
+                System.err.println( "Unable to preload " + name + ": " + t );
+            }
+        }
+    }
+
+    private void publishPort( int port )
+        throws IOException
+    {
+        // write and rename, so clients never read a half written file
+        File tmp = new File( portFile.getPath() + ".tmp" );
+        FileUtils.fileWrite( tmp.getAbsolutePath(), String.valueOf( port ) );
+        portFile.delete();
+        if ( !tmp.renameTo( portFile ) )
+        {
+            throw new IOException( "Unable to publish daemon port on " + portFile );
+        }
+    }
+
+    private void unpublishPort( int port )
+    {
+        try
+        {
+            // another daemon may have replaced us meanwhile
+            if ( String.valueOf( port ).equals( FileUtils.fileRead( portFile.getAbsolutePath() ).trim() ) )
+            {
+                portFile.delete();
+            }
+            if ( token.equals( DaemonProtocol.readToken( key ) ) )
+            {
+                DaemonProtocol.getTokenFile( key ).delete();
+            }
+        }
+        catch ( IOException e )
+        {
+            // already gone
+        }
+    }
+
+    /**
+     * Reads the request header and answers {@link DaemonProtocol#ACCEPTED} when it can be served. Nothing else is
+     * read from unauthenticated clients.
+     */
+    boolean accept( DataInputStream in, DataOutputStream out )
+        throws IOException
+    {
+        int version = in.readInt();
+        if ( version != DaemonProtocol.VERSION )
+        {
+            fail( out, "Daemon '" + key + "' speaks protocol " + DaemonProtocol.VERSION + ", not " + version );
+            return false;
+        }
+
+        String requestKey = DaemonProtocol.readString( in, 1024 );
+        String requestToken = DaemonProtocol.readString( in, 1024 );
+        if ( !key.equals( requestKey ) || !DaemonProtocol.isToken( token, requestToken ) )
+        {
+            fail( out, "Daemon '" + key + "' refused request for '" + requestKey + "'" );
+            return false;
+        }
+
+        synchronized ( out )
+        {
+            out.writeByte( DaemonProtocol.ACCEPTED );
+            out.flush();
+        }
+        return true;
+    }
+
+    private void serve( Socket client )
+        throws IOException
+    {
+        DataInputStream in = new DataInputStream( new BufferedInputStream( client.getInputStream() ) );
+        DataOutputStream out = new DataOutputStream( new BufferedOutputStream( client.getOutputStream() ) );
+
+        if ( !accept( in, out ) )
+        {
+            return;
+        }
+
+        String tool = DaemonProtocol.readString( in );
+        String[] args = DaemonProtocol.readStrings( in );
+        String[] resourceDirectories = DaemonProtocol.readStrings( in );
+
+        ThreadLocalToolkitHelper.setMavenLogger( new OEMLogAdapter( new DaemonLogger( out ) ) );
+        ThreadLocalToolkitHelper.setMavenResolver( new DaemonPathResolver( resourceDirectories ) );
+
+        try
+        {
+            if ( CompilerDaemonClient.MXMLC.equals( tool ) )
+            {
+                Mxmlc.mxmlc( args );
+            }
+            else if ( CompilerDaemonClient.COMPC.equals( tool ) )
+            {
+                Compc.compc( args );
+            }
+            else if ( CompilerDaemonClient.ASDOC.equals( tool ) )
+            {
+                DefaultFlexCompiler.runAsdoc( args );
+            }
+            else
+            {
+                fail( out, "Unknown tool: " + tool );
+                return;
+            }
+        }
+        catch ( OutOfMemoryError e )
+        {
+            fail( out, e.toString() );
+            throw e;
+        }
+        catch ( Throwable t )
+        {
+            fail( out, t.toString() );
+            return;
+        }
+
+        synchronized ( out )
+        {
+            out.writeByte( DaemonProtocol.DONE );
+            out.writeInt( ThreadLocalToolkit.errorCount() );
+            out.flush();
+        }
+    }
+
+    private void fail( DataOutputStream out, String message )
+        throws IOException
+    {
+        synchronized ( out )
+        {
+            out.writeByte( DaemonProtocol.FAILURE );
+            DaemonProtocol.writeString( out, message );
+            out.flush();
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.daemon;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes which compiler daemon a compilation should be handed to and how to start it when it isn't running yet.
+ */
+public final class CompilerDaemonSettings
+{
+
+    private final String key;
+
+    private final List<File> classpath;
+
+    private final long idleTimeout;
+
+    private final List<File> resourceDirectories;
+
+    private final List<String> jvmArgs;
+
+    private final int workers;
+
+    /**
+     * @param key identifies the daemon, one daemon is started per key (usually one per flex SDK version)
+     * @param classpath classpath used to start the daemon, must contain the flex compiler and flexmojos wrappers
+     * @param idleTimeout milliseconds the daemon stays alive without receiving any compilation
+     * @param resourceDirectories directories used to resolve absolute (/) paths on embedded assets
+     */
+    public CompilerDaemonSettings( String key, List<File> classpath, long idleTimeout, List<File> resourceDirectories )
+    {
+        this( key, classpath, idleTimeout, resourceDirectories, Collections.<String> emptyList(), 0 );
+    }
+
+    /**
+     * @param jvmArgs arguments of the forked VMs, ie heap size and garbage collector options
+     * @param workers when positive, compilations run on a pool of this many worker VMs owned by the current build
+     *            instead of the long lived daemon shared by every build
+     */
+    public CompilerDaemonSettings( String key, List<File> classpath, long idleTimeout, List<File> resourceDirectories,
+                                   List<String> jvmArgs, int workers )
+    {
+        super();
+        // VMs started with different options must not be mixed up
+        String vmKey = jvmArgs.isEmpty() ? key : key + "-" + Integer.toHexString( jvmArgs.hashCode() );
+        this.key = vmKey.replaceAll( "[^A-Za-z0-9._-]", "_" );
+        this.classpath = classpath;
+        this.idleTimeout = idleTimeout;
+        this.resourceDirectories = resourceDirectories;
+        this.jvmArgs = jvmArgs;
+        this.workers = workers;
+    }
+
+    public List<File> getClasspath()
+    {
+        return classpath;
+    }
+
+    public List<String> getJvmArgs()
+    {
+        return jvmArgs;
+    }
+
+    public long getIdleTimeout()
+    {
+        return idleTimeout;
+    }
+
+    public String getKey()
+    {
+        return key;
+    }
+
+    public List<File> getResourceDirectories()
+    {
+        return resourceDirectories;
+    }
+
+    public int getWorkers()
+    {
+        return workers;
+    }
+
+}
@@ -0,0 +1,68 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.daemon;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import flex2.tools.oem.Logger;
+import flex2.tools.oem.Message;
+
+/**
+ * Sends every compiler message back to the client that requested the compilation.
+ */
+class DaemonLogger
+    implements Logger
+{
+
+    private final DataOutputStream out;
+
+    DaemonLogger( DataOutputStream out )
+    {
+        this.out = out;
+    }
+
+    public void log( Message message, int errorCode, String source )
+    {
+        String text = message.toString();
+        if ( source != null )
+        {
+            text += source;
+        }
+
+        synchronized ( out )
+        {
+            try
+            {
+                out.writeByte( DaemonProtocol.MESSAGE );
+                DaemonProtocol.writeString( out, message.getLevel() );
+                DaemonProtocol.writeString( out, message.getPath() );
+                out.writeInt( message.getLine() );
+                out.writeInt( message.getColumn() );
+                DaemonProtocol.writeString( out, text );
+                out.flush();
+            }
+            catch ( IOException e )
+            {
+                // client is gone, nothing else to report to
+                System.err.println( "Unable to send message to client: " + text );
+            }
+        }
+    }
+
+}
@@ -0,0 +1,202 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Wire format shared by the daemon and its clients.
+ * <p>
+ * Request: version, key, token, tool, arguments, resource directories.<br>
+ * Response: {@link #ACCEPTED} or {@link #FAILURE} when the request is refused, then any number of {@link #MESSAGE}
+ * frames followed by a single {@link #DONE} or {@link #FAILURE} frame.
+ * </p>
+ * <p>
+ * The token is a random value the daemon writes to a file only its owner can read, so other users of the machine
+ * can't hand compilations to it.
+ * </p>
+ */
+final class DaemonProtocol
+{
+
+    static final int VERSION = 2;
+
+    static final byte ACCEPTED = 'A';
+
+    static final byte MESSAGE = 'M';
+
+    static final byte DONE = 'D';
+
+    static final byte FAILURE = 'F';
+
+    private static final String UTF_8 = "UTF-8";
+
+    private DaemonProtocol()
+    {
+        super();
+    }
+
+    static File getDaemonsDirectory()
+    {
+        return new File( System.getProperty( "user.home" ), ".flexmojos/daemons" );
+    }
+
+    static File getPortFile( String key )
+    {
+        return new File( getDaemonsDirectory(), key + ".port" );
+    }
+
+    static File getTokenFile( String key )
+    {
+        return new File( getDaemonsDirectory(), key + ".token" );
+    }
+
+    static String readToken( String key )
+        throws IOException
+    {
+        return FileUtils.fileRead( getTokenFile( key ).getAbsolutePath() ).trim();
+    }
+
+    static boolean isToken( String expected, String token )
+        throws IOException
+    {
+        // constant time, don't leak how much of the token matched
+        return token != null && MessageDigest.isEqual( expected.getBytes( UTF_8 ), token.getBytes( UTF_8 ) );
+    }
+
+    /**
+     * Restricts the file (or directory) to its owner, best effort on file systems without permissions
+     */
+    static void ownerOnly( File file )
+    {
+        file.setReadable( false, false );
+        file.setReadable( true, true );
+        file.setWritable( false, false );
+        file.setWritable( true, true );
+        if ( file.isDirectory() )
+        {
+            file.setExecutable( false, false );
+            file.setExecutable( true, true );
+        }
+    }
+
+    /**
+     * Writes the file atomically, restricted to its owner before any content is written
+     */
+    static void writeOwnerOnly( File file, String content )
+        throws IOException
+    {
+        File tmp = new File( file.getPath() + ".tmp" );
+        tmp.delete();
+        OutputStream out = new FileOutputStream( tmp );
+        try
+        {
+            ownerOnly( tmp );
+            out.write( content.getBytes( UTF_8 ) );
+        }
+        finally
+        {
+            IOUtil.close( out );
+        }
+
+        file.delete();
+        if ( !tmp.renameTo( file ) )
+        {
+            tmp.delete();
+            throw new IOException( "Unable to write " + file );
+        }
+    }
+
+    static File getLogFile( String key )
+    {
+        return new File( getDaemonsDirectory(), key + ".log" );
+    }
+
+    // writeUTF is limited to 64k, include-classes alone can be bigger than that
+    static void writeString( DataOutputStream out, String value )
+        throws IOException
+    {
+        if ( value == null )
+        {
+            out.writeInt( -1 );
+            return;
+        }
+
+        byte[] bytes = value.getBytes( UTF_8 );
+        out.writeInt( bytes.length );
+        out.write( bytes );
+    }
+
+    static String readString( DataInputStream in )
+        throws IOException
+    {
+        return readString( in, Integer.MAX_VALUE );
+    }
+
+    /**
+     * @param maxLength anything longer is refused, used before the request is authenticated
+     */
+    static String readString( DataInputStream in, int maxLength )
+        throws IOException
+    {
+        int length = in.readInt();
+        if ( length < 0 )
+        {
+            return null;
+        }
+        if ( length > maxLength )
+        {
+            throw new IOException( "Refusing " + length + " bytes long value" );
+        }
+
+        byte[] bytes = new byte[length];
+        in.readFully( bytes );
+        return new String( bytes, UTF_8 );
+    }
+
+    static void writeStrings( DataOutputStream out, String[] values )
+        throws IOException
+    {
+        out.writeInt( values.length );
+        for ( String value : values )
+        {
+            writeString( out, value );
+        }
+    }
+
+    static String[] readStrings( DataInputStream in )
+        throws IOException
+    {
+        String[] values = new String[in.readInt()];
+        for ( int i = 0; i < values.length; i++ )
+        {
+            values[i] = readString( in );
+        }
+        return values;
+    }
+
+}
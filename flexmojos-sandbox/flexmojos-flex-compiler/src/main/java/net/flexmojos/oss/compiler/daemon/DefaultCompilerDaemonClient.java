@@ -0,0 +1,332 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.flexmojos.oss.compiler.util.CompileContext;
+import net.flexmojos.oss.compiler.util.CompilerLoggers;
+
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.logging.AbstractLogEnabled;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.StringUtils;
+
+import flex2.compiler.Logger;
+
+@Component( role = CompilerDaemonClient.class )
+public class DefaultCompilerDaemonClient
+    extends AbstractLogEnabled
+    implements CompilerDaemonClient
+{
+
+    private static final int CONNECT_TIMEOUT = 2000;
+
+    private static final long STARTUP_TIMEOUT = 30000;
+
+    /**
+     * Workers belong to a single build, they don't wait for the next one like the shared daemon
+     */
+    private static final long WORKER_IDLE_TIMEOUT = 5 * 60 * 1000;
+
+    private final Map<String, WorkerPool> pools = new HashMap<String, WorkerPool>();
+
+    public CompilerDaemonSettings getSettings()
+    {
+        return CompileContext.current().getDaemonSettings();
+    }
+
+    public void setSettings( CompilerDaemonSettings settings )
+    {
+        CompileContext.current().withDaemonSettings( settings ).install();
+    }
+
+    public int execute( CompilerDaemonSettings settings, String tool, String[] args, Logger logger )
+        throws IOException
+    {
+        if ( settings.getWorkers() <= 0 )
+        {
+            return execute( settings, connect( settings ), settings.getKey(), tool, args, logger );
+        }
+
+        WorkerPool pool = getPool( settings );
+        int worker = pool.acquire();
+        try
+        {
+            String key = pool.getKey( worker );
+            Socket socket = tryConnect( key );
+            if ( socket == null )
+            {
+                // only the thread holding the worker may start it
+                Process process = spawn( settings, key );
+                pool.started( worker, process );
+                socket = waitStartup( key, process );
+            }
+            return execute( settings, socket, key, tool, args, logger );
+        }
+        finally
+        {
+            pool.release( worker );
+        }
+    }
+
+    private synchronized WorkerPool getPool( CompilerDaemonSettings settings )
+    {
+        String poolKey = settings.getKey() + ":" + settings.getWorkers();
+        WorkerPool pool = pools.get( poolKey );
+        if ( pool == null )
+        {
+            pool = new WorkerPool( settings );
+            pools.put( poolKey, pool );
+        }
+        return pool;
+    }
+
+    private int execute( CompilerDaemonSettings settings, Socket socket, String key, String tool, String[] args,
+                         Logger logger )
+        throws IOException
+    {
+        try
+        {
+            DataOutputStream out = new DataOutputStream( new BufferedOutputStream( socket.getOutputStream() ) );
+            out.writeInt( DaemonProtocol.VERSION );
+            DaemonProtocol.writeString( out, key );
+            DaemonProtocol.writeString( out, DaemonProtocol.readToken( key ) );
+            DaemonProtocol.writeString( out, tool );
+            DaemonProtocol.writeStrings( out, args );
+            List<String> directories = new ArrayList<String>();
+            for ( File directory : settings.getResourceDirectories() )
+            {
+                directories.add( directory.getAbsolutePath() );
+            }
+            DaemonProtocol.writeStrings( out, directories.toArray( new String[directories.size()] ) );
+            out.flush();
+
+            DataInputStream in = new DataInputStream( new BufferedInputStream( socket.getInputStream() ) );
+            byte frame = in.readByte();
+            if ( frame == DaemonProtocol.FAILURE )
+            {
+                throw new IOException( "Compiler daemon refused the request: " + DaemonProtocol.readString( in ) );
+            }
+            if ( frame != DaemonProtocol.ACCEPTED )
+            {
+                throw new IOException( "Unexpected compiler daemon response: " + frame );
+            }
+
+            // the daemon is compiling, running it again in-process would duplicate every message relayed so far
+            try
+            {
+                return read( in, logger );
+            }
+            catch ( IOException e )
+            {
+                throw new IllegalStateException( "Lost connection to compiler daemon " + key + ", see "
+                    + DaemonProtocol.getLogFile( key ), e );
+            }
+        }
+        finally
+        {
+            socket.close();
+        }
+    }
+
+    private int read( DataInputStream in, Logger logger )
+        throws IOException
+    {
+        while ( true )
+        {
+            byte frame = in.readByte();
+            if ( frame == DaemonProtocol.MESSAGE )
+            {
+                relay( in, logger );
+            }
+            else if ( frame == DaemonProtocol.DONE )
+            {
+                return in.readInt();
+            }
+            else if ( frame == DaemonProtocol.FAILURE )
+            {
+                throw new IllegalStateException( "Compiler daemon failed: " + DaemonProtocol.readString( in ) );
+            }
+            else
+            {
+                throw new IOException( "Unexpected compiler daemon response: " + frame );
+            }
+        }
+    }
+
+    private void relay( DataInputStream in, Logger logger )
+        throws IOException
+    {
+        String level = DaemonProtocol.readString( in );
+        String path = DaemonProtocol.readString( in );
+        int line = in.readInt();
+        int column = in.readInt();
+        String text = DaemonProtocol.readString( in );
+
+        CompilerLoggers.log( logger, level, path, line, column, text );
+    }
+
+    private Socket connect( CompilerDaemonSettings settings )
+        throws IOException
+    {
+        Socket socket = tryConnect( settings.getKey() );
+        if ( socket != null )
+        {
+            return socket;
+        }
+
+        // only one thread on this VM should spawn the daemon
+        synchronized ( this )
+        {
+            socket = tryConnect( settings.getKey() );
+            if ( socket != null )
+            {
+                return socket;
+            }
+
+            return waitStartup( settings.getKey(), spawn( settings, settings.getKey() ) );
+        }
+    }
+
+    private Socket waitStartup( String key, Process process )
+        throws IOException
+    {
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT;
+        while ( System.currentTimeMillis() < deadline )
+        {
+            Socket socket = tryConnect( key );
+            if ( socket != null )
+            {
+                return socket;
+            }
+
+            try
+            {
+                int exitValue = process.exitValue();
+                throw new IOException( "Compiler daemon died with exit code " + exitValue + ", see "
+                    + DaemonProtocol.getLogFile( key ) );
+            }
+            catch ( IllegalThreadStateException e )
+            {
+                // still starting
+            }
+
+            try
+            {
+                Thread.sleep( 100 );
+            }
+            catch ( InterruptedException e )
+            {
+                throw new IOException( "Interrupted while waiting compiler daemon" );
+            }
+        }
+
+        throw new IOException( "Compiler daemon didn't start after " + STARTUP_TIMEOUT + "ms, see "
+            + DaemonProtocol.getLogFile( key ) );
+    }
+
+    private Socket tryConnect( String key )
+    {
+        File portFile = DaemonProtocol.getPortFile( key );
+        if ( !portFile.exists() )
+        {
+            return null;
+        }
+
+        Socket socket = new Socket();
+        try
+        {
+            int port = Integer.parseInt( FileUtils.fileRead( portFile.getAbsolutePath() ).trim() );
+            socket.connect( new InetSocketAddress( "127.0.0.1", port ), CONNECT_TIMEOUT );
+            return socket;
+        }
+        catch ( Exception e )
+        {
+            // stale port file, daemon probably died
+            getLogger().debug( "Unable to connect to compiler daemon " + key + ": " + e );
+            try
+            {
+                socket.close();
+            }
+            catch ( IOException e1 )
+            {
+                // ignore
+            }
+            return null;
+        }
+    }
+
+    private Process spawn( CompilerDaemonSettings settings, String key )
+        throws IOException
+    {
+        List<String> classpath = new ArrayList<String>();
+        for ( File file : settings.getClasspath() )
+        {
+            classpath.add( file.getAbsolutePath() );
+        }
+
+        File java = new File( System.getProperty( "java.home" ), "bin/java" );
+
+        List<String> cmd = new ArrayList<String>();
+        cmd.add( java.getAbsolutePath() );
+        cmd.addAll( settings.getJvmArgs() );
+        cmd.add( "-cp" );
+        cmd.add( StringUtils.join( classpath.iterator(), File.pathSeparator ) );
+        cmd.add( CompilerDaemonServer.class.getName() );
+        cmd.add( key );
+        boolean worker = settings.getWorkers() > 0;
+        long idleTimeout = settings.getIdleTimeout();
+        if ( worker )
+        {
+            idleTimeout = Math.min( idleTimeout, WORKER_IDLE_TIMEOUT );
+        }
+        cmd.add( String.valueOf( idleTimeout ) );
+        cmd.add( DaemonProtocol.getPortFile( key ).getAbsolutePath() );
+        if ( worker )
+        {
+            cmd.add( CompilerDaemonServer.WORKER );
+        }
+
+        getLogger().info( "Starting compiler " + ( worker ? "worker " : "daemon " ) + key );
+        getLogger().debug( "Compiler daemon command: " + cmd );
+
+        Process process = new ProcessBuilder( cmd ).redirectErrorStream( true ).start();
+        // the daemon logs to its own file, must outlive this build
+        IOUtil.close( process.getInputStream() );
+        if ( !worker )
+        {
+            IOUtil.close( process.getOutputStream() );
+        }
+        // workers keep their stdin open, it is closed by the OS when this VM dies, even when killed
+        return process;
+    }
+
+}
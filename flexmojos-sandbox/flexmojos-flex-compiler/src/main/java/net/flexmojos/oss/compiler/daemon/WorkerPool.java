@@ -0,0 +1,134 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.daemon;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Compiler VMs forked by, and private to, the current build. Each worker serves a single compilation at a time, so
+ * compilations wait for an idle worker. Workers are reused by every mojo execution and killed when the build VM exits,
+ * a build killed before its shutdown hooks run is noticed by the workers themselves as their stdin gets closed.
+ */
+class WorkerPool
+{
+
+    /**
+     * Tells apart workers of builds running at the same time on this machine
+     */
+    private static final String BUILD_ID;
+
+    private static final List<WorkerPool> POOLS = new ArrayList<WorkerPool>();
+
+    static
+    {
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        BUILD_ID = ( runtime.getName() + "-" + runtime.getStartTime() ).replaceAll( "[^A-Za-z0-9._-]", "_" );
+
+        Runtime.getRuntime().addShutdownHook( new Thread( "flexmojos-compiler-workers-shutdown" )
+        {
+            @Override
+            public void run()
+            {
+                synchronized ( POOLS )
+                {
+                    for ( WorkerPool pool : POOLS )
+                    {
+                        pool.shutdown();
+                    }
+                }
+            }
+        } );
+    }
+
+    private final String key;
+
+    private final BlockingQueue<Integer> idle;
+
+    private final Map<Integer, Process> processes = new HashMap<Integer, Process>();
+
+    WorkerPool( CompilerDaemonSettings settings )
+    {
+        this.key = settings.getKey() + "-" + BUILD_ID;
+        this.idle = new ArrayBlockingQueue<Integer>( settings.getWorkers() );
+        for ( int i = 0; i < settings.getWorkers(); i++ )
+        {
+            idle.add( i );
+        }
+
+        synchronized ( POOLS )
+        {
+            POOLS.add( this );
+        }
+    }
+
+    /**
+     * Waits for an idle worker.
+     */
+    int acquire()
+        throws IOException
+    {
+        try
+        {
+            return idle.take();
+        }
+        catch ( InterruptedException e )
+        {
+            throw new IOException( "Interrupted while waiting for a compiler worker" );
+        }
+    }
+
+    void release( int worker )
+    {
+        idle.add( worker );
+    }
+
+    String getKey( int worker )
+    {
+        return key + "-w" + worker;
+    }
+
+    synchronized void started( int worker, Process process )
+    {
+        Process previous = processes.put( worker, process );
+        if ( previous != null )
+        {
+            // it stopped answering, don't leave it behind
+            previous.destroy();
+        }
+    }
+
+    synchronized void shutdown()
+    {
+        for ( Map.Entry<Integer, Process> worker : processes.entrySet() )
+        {
+            worker.getValue().destroy();
+            DaemonProtocol.getPortFile( getKey( worker.getKey() ) ).delete();
+            DaemonProtocol.getLogFile( getKey( worker.getKey() ) ).delete();
+        }
+        processes.clear();
+    }
+
+}
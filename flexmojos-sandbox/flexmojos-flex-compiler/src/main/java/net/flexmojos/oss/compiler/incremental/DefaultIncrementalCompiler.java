@@ -0,0 +1,226 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.incremental;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.flexmojos.oss.compiler.util.CompileContext;
+import net.flexmojos.oss.compiler.util.CompilerLoggerAdapter;
+
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.logging.AbstractLogEnabled;
+import org.codehaus.plexus.util.IOUtil;
+
+import flex2.compiler.Logger;
+import flex2.compiler.util.ThreadLocalToolkit;
+import flex2.tools.oem.Application;
+import flex2.tools.oem.Builder;
+import flex2.tools.oem.Configuration;
+import flex2.tools.oem.Library;
+
+@Component( role = IncrementalCompiler.class )
+public class DefaultIncrementalCompiler
+    extends AbstractLogEnabled
+    implements IncrementalCompiler
+{
+
+    /**
+     * Builders retain the whole compiler state of their output, the least recently used ones are dropped. Their next
+     * compilation reloads the state saved next to the output.
+     */
+    static final class Builders
+        extends LinkedHashMap<String, Builder>
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int max;
+
+        Builders( int max )
+        {
+            super( 16, 0.75f, true );
+            this.max = max;
+        }
+
+        @Override
+        protected boolean removeEldestEntry( Map.Entry<String, Builder> eldest )
+        {
+            return size() > max;
+        }
+
+    }
+
+    private static final String CACHE_SUFFIX = ".cache";
+
+    private static final int MAX_BUILDERS = 8;
+
+    private final Map<String, Builder> builders = new Builders( MAX_BUILDERS );
+
+    public boolean isEnabled()
+    {
+        return CompileContext.current().isIncremental();
+    }
+
+    public void setEnabled( boolean enabled )
+    {
+        CompileContext.current().withIncremental( enabled ).install();
+    }
+
+    public long compileSwf( File sourceFile, String[] args, File output, Logger logger )
+        throws IOException
+    {
+        // an output compiled from another source file gets its own builder, the old one ages out
+        String key = getKey( output ) + File.pathSeparator + sourceFile.getAbsolutePath();
+        Application application;
+        synchronized ( builders )
+        {
+            Builder builder = builders.get( key );
+            if ( builder instanceof Application )
+            {
+                application = (Application) builder;
+            }
+            else
+            {
+                application = new Application( sourceFile );
+                application.setOutput( output );
+                load( application, output );
+                builders.put( key, application );
+            }
+        }
+
+        return build( application, args, output, logger );
+    }
+
+    public long compileSwc( String[] args, File output, Logger logger )
+        throws IOException
+    {
+        String key = getKey( output );
+        Library library;
+        synchronized ( builders )
+        {
+            Builder builder = builders.get( key );
+            if ( builder instanceof Library )
+            {
+                library = (Library) builder;
+            }
+            else
+            {
+                library = new Library();
+                library.setOutput( output );
+                load( library, output );
+                builders.put( key, library );
+            }
+        }
+
+        return build( library, args, output, logger );
+    }
+
+    private long build( Builder builder, String[] args, File output, Logger logger )
+        throws IOException
+    {
+        // OEM builders aren't thread safe
+        synchronized ( builder )
+        {
+            Configuration configuration = builder.getDefaultConfiguration();
+            configuration.setConfiguration( args );
+            builder.setConfiguration( configuration );
+            builder.setLogger( new CompilerLoggerAdapter( logger ) );
+
+            int errors = logger.errorCount();
+            long size;
+            try
+            {
+                size = builder.build( true );
+            }
+            finally
+            {
+                // builder cleans thread locals once done, errorCount() must still work for the caller
+                ThreadLocalToolkit.setLogger( logger );
+            }
+
+            if ( size > 0 )
+            {
+                save( builder, output );
+            }
+            else if ( logger.errorCount() == errors )
+            {
+                logger.logError( "Incremental compilation of " + output + " failed" );
+            }
+            return size;
+        }
+    }
+
+    private void load( Builder builder, File output )
+    {
+        File cache = new File( output.getPath() + CACHE_SUFFIX );
+        if ( !cache.isFile() )
+        {
+            return;
+        }
+
+        InputStream in = null;
+        try
+        {
+            in = new BufferedInputStream( new FileInputStream( cache ) );
+            builder.load( in );
+        }
+        catch ( Exception e )
+        {
+            // stale or from another compiler, first build will be a full one
+            getLogger().debug( "Ignoring incremental cache " + cache + ": " + e.getMessage() );
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+    }
+
+    private void save( Builder builder, File output )
+    {
+        File cache = new File( output.getPath() + CACHE_SUFFIX );
+        OutputStream out = null;
+        try
+        {
+            out = new BufferedOutputStream( new FileOutputStream( cache ) );
+            builder.save( out );
+        }
+        catch ( IOException e )
+        {
+            getLogger().warn( "Unable to save incremental cache " + cache + ": " + e.getMessage() );
+        }
+        finally
+        {
+            IOUtil.close( out );
+        }
+    }
+
+    private static String getKey( File output )
+    {
+        return output.getAbsolutePath();
+    }
+
+}
@@ -0,0 +1,59 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.incremental;
+
+import java.io.File;
+import java.io.IOException;
+
+import flex2.compiler.Logger;
+
+/**
+ * Compiles using flex OEM builders that are kept alive between compilations, so only the compilation units affected
+ * by a change are recompiled. The incremental data is also saved next to the output (<tt>output.cache</tt>) and
+ * reloaded when a new VM compiles the same output.
+ * <p>
+ * Only the continuous compile goals recompile the same output on one VM often enough to pay for the memory, regular
+ * builds keep compiling through the daemon, workers and output cache even with <tt>incremental</tt> on.
+ * </p>
+ */
+public interface IncrementalCompiler
+{
+
+    /**
+     * @return size of the generated swf, 0 if compilation failed
+     */
+    long compileSwf( File sourceFile, String[] args, File output, Logger logger )
+        throws IOException;
+
+    /**
+     * @return size of the generated swc, 0 if compilation failed
+     */
+    long compileSwc( String[] args, File output, Logger logger )
+        throws IOException;
+
+    /**
+     * @return true when compilations submitted by the current thread should be handed to this compiler
+     */
+    boolean isEnabled();
+
+    /**
+     * Enables (or disables) this compiler for compilations submitted by the current thread.
+     */
+    void setEnabled( boolean enabled );
+
+}
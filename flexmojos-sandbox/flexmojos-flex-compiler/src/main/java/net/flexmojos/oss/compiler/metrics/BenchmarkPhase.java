@@ -0,0 +1,69 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.metrics;
+
+import java.util.Locale;
+
+/**
+ * Compiler phases reported by -benchmark, the parse/analyze/generate ones require -benchmark-compiler-details.
+ */
+public enum BenchmarkPhase
+{
+    PARSE( "parse" ), ANALYZE( "analyze" ), GENERATE( "generate" ), LINK( "link" ), OPTIMIZE( "optimiz" );
+
+    private final String keyword;
+
+    private BenchmarkPhase( String keyword )
+    {
+        this.keyword = keyword;
+    }
+
+    public String getName()
+    {
+        return name().toLowerCase( Locale.ENGLISH );
+    }
+
+    /**
+     * @param label text preceding the time on a benchmark line, ie 'Linking...' or 'parse1'
+     * @return matching phase or null if the line isn't about a phase
+     */
+    public static BenchmarkPhase match( String label )
+    {
+        String lower = label.toLowerCase( Locale.ENGLISH );
+        for ( BenchmarkPhase phase : values() )
+        {
+            if ( lower.contains( phase.keyword ) )
+            {
+                return phase;
+            }
+        }
+        return null;
+    }
+
+    public static BenchmarkPhase forName( String name )
+    {
+        for ( BenchmarkPhase phase : values() )
+        {
+            if ( phase.getName().equals( name ) )
+            {
+                return phase;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,247 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import net.flexmojos.oss.compiler.util.CompileContext;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Collects a {@link CompileRecord} for every compilation on this VM.
+ */
+public final class CompileMetrics
+    implements CompileMetricsMBean
+{
+
+    public static final String OBJECT_NAME = "net.flexmojos.oss:type=CompileMetrics";
+
+    /**
+     * Continuous compilation may run for days, keep only the latest records
+     */
+    private static final int MAX_RECORDS = 10000;
+
+    private static final CompileMetrics INSTANCE = new CompileMetrics();
+
+    static
+    {
+        try
+        {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName( OBJECT_NAME );
+            // plugin may be loaded by more than one classloader
+            if ( !server.isRegistered( name ) )
+            {
+                server.registerMBean( INSTANCE, name );
+            }
+        }
+        catch ( Exception e )
+        {
+            // metrics are still written to the report
+        }
+    }
+
+    private final LinkedList<CompileRecord> records = new LinkedList<CompileRecord>();
+
+    private CompileMetrics()
+    {
+        super();
+    }
+
+    public static CompileMetrics getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Tags compilations submitted by the current thread.
+     */
+    public static void setTags( CompileTags tags )
+    {
+        CompileContext.current().withTags( tags ).install();
+    }
+
+    public static CompileTags getTags()
+    {
+        return CompileContext.current().getTags();
+    }
+
+    /**
+     * Starts measuring a compilation, must be invoked on the thread that will compile.
+     */
+    public CompileRecord start( CompileTags tags )
+    {
+        return start( tags, false );
+    }
+
+    /**
+     * @param forked the compilation runs on a daemon or worker VM, the thread and heap of this VM don't tell what it
+     *            costs, so cpu time and allocated bytes are reported as -1
+     */
+    public CompileRecord start( CompileTags tags, boolean forked )
+    {
+        return new CompileRecord( tags, forked );
+    }
+
+    public void finish( CompileRecord record, int errors, int warnings, boolean failed )
+    {
+        record.finish( errors, warnings, failed );
+        synchronized ( records )
+        {
+            records.add( record );
+            if ( records.size() > MAX_RECORDS )
+            {
+                records.removeFirst();
+            }
+        }
+    }
+
+    public List<CompileRecord> getRecords( String project )
+    {
+        List<CompileRecord> result = new ArrayList<CompileRecord>();
+        synchronized ( records )
+        {
+            for ( CompileRecord record : records )
+            {
+                if ( record.getTags() != null && project.equals( record.getTags().getProject() ) )
+                {
+                    result.add( record );
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes records of the given project as a JSON array.
+     */
+    public void write( String project, File file )
+        throws IOException
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append( "[\n" );
+        List<CompileRecord> projectRecords = getRecords( project );
+        for ( int i = 0; i < projectRecords.size(); i++ )
+        {
+            sb.append( "  " ).append( projectRecords.get( i ).toJson() );
+            sb.append( i < projectRecords.size() - 1 ? ",\n" : "\n" );
+        }
+        sb.append( "]\n" );
+
+        file.getParentFile().mkdirs();
+        FileUtils.fileWrite( file.getAbsolutePath(), "UTF-8", sb.toString() );
+    }
+
+    private List<CompileRecord> snapshot()
+    {
+        synchronized ( records )
+        {
+            return new ArrayList<CompileRecord>( records );
+        }
+    }
+
+    public int getCompileCount()
+    {
+        synchronized ( records )
+        {
+            return records.size();
+        }
+    }
+
+    public int getFailedCount()
+    {
+        int count = 0;
+        for ( CompileRecord record : snapshot() )
+        {
+            if ( record.isFailed() || record.getErrors() > 0 )
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public long getTotalWallTime()
+    {
+        long total = 0;
+        for ( CompileRecord record : snapshot() )
+        {
+            total += record.getWallTime();
+        }
+        return total;
+    }
+
+    public long getTotalCpuTime()
+    {
+        long total = 0;
+        for ( CompileRecord record : snapshot() )
+        {
+            total += Math.max( 0, record.getCpuTime() );
+        }
+        return total;
+    }
+
+    public long getTotalAllocatedBytes()
+    {
+        long total = 0;
+        for ( CompileRecord record : snapshot() )
+        {
+            total += Math.max( 0, record.getAllocatedBytes() );
+        }
+        return total;
+    }
+
+    public long getPeakHeap()
+    {
+        long peak = 0;
+        for ( CompileRecord record : snapshot() )
+        {
+            peak = Math.max( peak, record.getPeakHeap() );
+        }
+        return peak;
+    }
+
+    public String[] getRecords()
+    {
+        List<CompileRecord> all = snapshot();
+        String[] json = new String[all.size()];
+        for ( int i = 0; i < json.length; i++ )
+        {
+            json[i] = all.get( i ).toJson();
+        }
+        return json;
+    }
+
+    public void reset()
+    {
+        synchronized ( records )
+        {
+            records.clear();
+        }
+    }
+
+}
@@ -0,0 +1,240 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+/**
+ * Resources used by a single compilation.
+ */
+public final class CompileRecord
+{
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static final Method ALLOCATED_BYTES = getAllocatedBytesMethod();
+
+    private final CompileTags tags;
+
+    private final long start;
+
+    private final long startNanos;
+
+    private final long startCpu;
+
+    private final long startAllocated;
+
+    private final boolean forked;
+
+    private long wallTime;
+
+    private long cpuTime = -1;
+
+    private long allocatedBytes = -1;
+
+    private long peakHeap;
+
+    private int errors;
+
+    private int warnings;
+
+    private boolean failed;
+
+    /**
+     * Must be created on the compiler thread, right before the compilation starts.
+     */
+    CompileRecord( CompileTags tags, boolean forked )
+    {
+        this.tags = tags;
+        this.forked = forked;
+        this.start = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+        this.startCpu = currentCpuTime();
+        this.startAllocated = currentAllocatedBytes();
+    }
+
+    /**
+     * Must be invoked on the same thread that created this record.
+     */
+    void finish( int errors, int warnings, boolean failed )
+    {
+        this.wallTime = ( System.nanoTime() - startNanos ) / 1000000;
+        long cpu = currentCpuTime();
+        if ( !forked && cpu >= 0 && startCpu >= 0 )
+        {
+            this.cpuTime = ( cpu - startCpu ) / 1000000;
+        }
+        long allocated = currentAllocatedBytes();
+        if ( !forked && allocated >= 0 && startAllocated >= 0 )
+        {
+            this.allocatedBytes = allocated - startAllocated;
+        }
+        this.peakHeap = currentPeakHeap();
+        this.errors = errors;
+        this.warnings = warnings;
+        this.failed = failed;
+    }
+
+    private static long currentCpuTime()
+    {
+        try
+        {
+            if ( THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled() )
+            {
+                return THREADS.getCurrentThreadCpuTime();
+            }
+        }
+        catch ( UnsupportedOperationException e )
+        {
+            // not available on this VM
+        }
+        return -1;
+    }
+
+    private static Method getAllocatedBytesMethod()
+    {
+        // com.sun.management.ThreadMXBean, only on Sun/Oracle VMs
+        try
+        {
+            Class<?> type = Class.forName( "com.sun.management.ThreadMXBean" );
+            if ( !type.isInstance( THREADS ) )
+            {
+                return null;
+            }
+            return type.getMethod( "getThreadAllocatedBytes", long.class );
+        }
+        catch ( Exception e )
+        {
+            return null;
+        }
+    }
+
+    private static long currentAllocatedBytes()
+    {
+        if ( ALLOCATED_BYTES == null )
+        {
+            return -1;
+        }
+
+        try
+        {
+            return ( (Long) ALLOCATED_BYTES.invoke( THREADS, Thread.currentThread().getId() ) ).longValue();
+        }
+        catch ( Exception e )
+        {
+            return -1;
+        }
+    }
+
+    /**
+     * Heap pools are shared by the whole VM, so this is the VM peak at the time the compilation finished.
+     */
+    private static long currentPeakHeap()
+    {
+        long peak = 0;
+        for ( MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans() )
+        {
+            if ( pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null )
+            {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    public long getAllocatedBytes()
+    {
+        return allocatedBytes;
+    }
+
+    public long getCpuTime()
+    {
+        return cpuTime;
+    }
+
+    public int getErrors()
+    {
+        return errors;
+    }
+
+    public long getPeakHeap()
+    {
+        return peakHeap;
+    }
+
+    public long getStart()
+    {
+        return start;
+    }
+
+    public CompileTags getTags()
+    {
+        return tags;
+    }
+
+    public long getWallTime()
+    {
+        return wallTime;
+    }
+
+    public int getWarnings()
+    {
+        return warnings;
+    }
+
+    public boolean isFailed()
+    {
+        return failed;
+    }
+
+    public String toJson()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append( '{' );
+        append( sb, "mojo", tags == null ? null : tags.getMojo() ).append( ',' );
+        append( sb, "module", tags == null ? null : tags.getModule() ).append( ',' );
+        append( sb, "locale", tags == null ? null : tags.getLocale() ).append( ',' );
+        sb.append( "\"start\":" ).append( start ).append( ',' );
+        sb.append( "\"wallTimeMs\":" ).append( wallTime ).append( ',' );
+        sb.append( "\"cpuTimeMs\":" ).append( cpuTime ).append( ',' );
+        sb.append( "\"allocatedBytes\":" ).append( allocatedBytes ).append( ',' );
+        sb.append( "\"peakHeapBytes\":" ).append( peakHeap ).append( ',' );
+        sb.append( "\"errors\":" ).append( errors ).append( ',' );
+        sb.append( "\"warnings\":" ).append( warnings ).append( ',' );
+        sb.append( "\"failed\":" ).append( failed );
+        sb.append( '}' );
+        return sb.toString();
+    }
+
+    private static StringBuilder append( StringBuilder sb, String name, String value )
+    {
+        Json.quote( sb, name ).append( ':' );
+        return Json.quote( sb, value );
+    }
+
+    @Override
+    public String toString()
+    {
+        return toJson();
+    }
+
+}
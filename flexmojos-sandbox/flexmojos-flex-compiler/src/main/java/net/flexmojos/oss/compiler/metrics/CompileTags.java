@@ -0,0 +1,75 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.metrics;
+
+/**
+ * Identifies who requested a compilation.
+ */
+public final class CompileTags
+{
+
+    private final String project;
+
+    private final String mojo;
+
+    private final String module;
+
+    private final String locale;
+
+    /**
+     * @param project maven project id, used to tell apart compilations of different reactor modules
+     * @param mojo mojo requesting the compilation
+     * @param module application module, or the artifact itself for the main compilation
+     * @param locale locales being compiled, may be null
+     */
+    public CompileTags( String project, String mojo, String module, String locale )
+    {
+        super();
+        this.project = project;
+        this.mojo = mojo;
+        this.module = module;
+        this.locale = locale;
+    }
+
+    public String getLocale()
+    {
+        return locale;
+    }
+
+    public String getModule()
+    {
+        return module;
+    }
+
+    public String getMojo()
+    {
+        return mojo;
+    }
+
+    public String getProject()
+    {
+        return project;
+    }
+
+    @Override
+    public String toString()
+    {
+        return mojo + " " + module + ( locale == null ? "" : " [" + locale + "]" );
+    }
+
+}
@@ -0,0 +1,293 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough JSON for the metrics reports: quoting strings on write, and reading back objects, arrays, strings,
+ * numbers, booleans and nulls.
+ */
+final class Json
+{
+
+    private final String text;
+
+    private int pos;
+
+    private Json( String text )
+    {
+        this.text = text;
+    }
+
+    /**
+     * Appends the value as a JSON string, or <code>null</code>.
+     */
+    static StringBuilder quote( StringBuilder sb, String value )
+    {
+        if ( value == null )
+        {
+            return sb.append( "null" );
+        }
+
+        sb.append( '"' );
+        for ( char c : value.toCharArray() )
+        {
+            if ( c == '"' || c == '\\' )
+            {
+                sb.append( '\\' ).append( c );
+            }
+            else if ( c < 0x20 )
+            {
+                sb.append( String.format( "\\u%04x", (int) c ) );
+            }
+            else
+            {
+                sb.append( c );
+            }
+        }
+        return sb.append( '"' );
+    }
+
+    /**
+     * @return a {@link Map} for objects (keeping the order of the keys), a {@link List} for arrays, {@link String},
+     *         {@link Long} or {@link Double}, {@link Boolean} or null
+     * @throws IllegalArgumentException if the text isn't valid JSON
+     */
+    static Object parse( String text )
+    {
+        Json json = new Json( text );
+        Object value = json.value();
+        json.skipWhitespace();
+        if ( json.pos < text.length() )
+        {
+            throw json.error( "Unexpected content" );
+        }
+        return value;
+    }
+
+    private Object value()
+    {
+        skipWhitespace();
+        if ( pos >= text.length() )
+        {
+            throw error( "Unexpected end" );
+        }
+
+        char c = text.charAt( pos );
+        if ( c == '{' )
+        {
+            return object();
+        }
+        if ( c == '[' )
+        {
+            return array();
+        }
+        if ( c == '"' )
+        {
+            return string();
+        }
+        if ( text.startsWith( "true", pos ) )
+        {
+            pos += 4;
+            return Boolean.TRUE;
+        }
+        if ( text.startsWith( "false", pos ) )
+        {
+            pos += 5;
+            return Boolean.FALSE;
+        }
+        if ( text.startsWith( "null", pos ) )
+        {
+            pos += 4;
+            return null;
+        }
+        return number();
+    }
+
+    private Map<String, Object> object()
+    {
+        Map<String, Object> object = new LinkedHashMap<String, Object>();
+        pos++;
+        skipWhitespace();
+        if ( consume( '}' ) )
+        {
+            return object;
+        }
+
+        do
+        {
+            skipWhitespace();
+            if ( pos >= text.length() || text.charAt( pos ) != '"' )
+            {
+                throw error( "Expected a name" );
+            }
+            String name = string();
+            skipWhitespace();
+            expect( ':' );
+            object.put( name, value() );
+            skipWhitespace();
+        }
+        while ( consume( ',' ) );
+
+        expect( '}' );
+        return object;
+    }
+
+    private List<Object> array()
+    {
+        List<Object> array = new ArrayList<Object>();
+        pos++;
+        skipWhitespace();
+        if ( consume( ']' ) )
+        {
+            return array;
+        }
+
+        do
+        {
+            array.add( value() );
+            skipWhitespace();
+        }
+        while ( consume( ',' ) );
+
+        expect( ']' );
+        return array;
+    }
+
+    private String string()
+    {
+        StringBuilder sb = new StringBuilder();
+        pos++;
+        while ( pos < text.length() )
+        {
+            char c = text.charAt( pos++ );
+            if ( c == '"' )
+            {
+                return sb.toString();
+            }
+            if ( c != '\\' )
+            {
+                sb.append( c );
+                continue;
+            }
+
+            if ( pos >= text.length() )
+            {
+                break;
+            }
+            char escaped = text.charAt( pos++ );
+            switch ( escaped )
+            {
+                case 'b':
+                    sb.append( '\b' );
+                    break;
+                case 'f':
+                    sb.append( '\f' );
+                    break;
+                case 'n':
+                    sb.append( '\n' );
+                    break;
+                case 'r':
+                    sb.append( '\r' );
+                    break;
+                case 't':
+                    sb.append( '\t' );
+                    break;
+                case 'u':
+                    if ( pos + 4 > text.length() )
+                    {
+                        throw error( "Bad unicode escape" );
+                    }
+                    try
+                    {
+                        sb.append( (char) Integer.parseInt( text.substring( pos, pos + 4 ), 16 ) );
+                    }
+                    catch ( NumberFormatException e )
+                    {
+                        throw error( "Bad unicode escape" );
+                    }
+                    pos += 4;
+                    break;
+                default:
+                    // \" \\ \/
+                    sb.append( escaped );
+            }
+        }
+        throw error( "Unterminated string" );
+    }
+
+    private Object number()
+    {
+        int start = pos;
+        while ( pos < text.length() && "+-0123456789.eE".indexOf( text.charAt( pos ) ) >= 0 )
+        {
+            pos++;
+        }
+
+        String number = text.substring( start, pos );
+        try
+        {
+            if ( number.indexOf( '.' ) < 0 && number.indexOf( 'e' ) < 0 && number.indexOf( 'E' ) < 0 )
+            {
+                return Long.valueOf( number );
+            }
+            return Double.valueOf( number );
+        }
+        catch ( NumberFormatException e )
+        {
+            pos = start;
+            throw error( "Unexpected value" );
+        }
+    }
+
+    private void skipWhitespace()
+    {
+        while ( pos < text.length() && Character.isWhitespace( text.charAt( pos ) ) )
+        {
+            pos++;
+        }
+    }
+
+    private boolean consume( char c )
+    {
+        if ( pos < text.length() && text.charAt( pos ) == c )
+        {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect( char c )
+    {
+        if ( !consume( c ) )
+        {
+            throw error( "Expected '" + c + "'" );
+        }
+    }
+
+    private IllegalArgumentException error( String message )
+    {
+        return new IllegalArgumentException( message + " at offset " + pos );
+    }
+
+}
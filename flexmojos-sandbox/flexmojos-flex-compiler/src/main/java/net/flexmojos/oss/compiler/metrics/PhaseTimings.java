@@ -0,0 +1,295 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Collects the per phase times printed by the flex compiler when -benchmark is on, grouped by project and module.
+ * <p>
+ * The report is a JSON object, one entry per module holding the milliseconds spent on each {@link BenchmarkPhase} plus
+ * the total time: <code>{"app [en_US]": {"parse": 120, "analyze": 300, ..., "total": 2100}}</code>
+ * </p>
+ */
+public final class PhaseTimings
+{
+
+    public static final String TOTAL = "total";
+
+    private static final PhaseTimings INSTANCE = new PhaseTimings();
+
+    /**
+     * 'label[:|...] 123ms', only the first time is used ('start loading swcs 11ms Running Total: 56ms')
+     */
+    private static final Pattern TIMING = Pattern.compile( "^\\s*(.*?)[\\s:.]+(\\d+)\\s*ms" );
+
+    private static final Pattern TOTAL_TIME = Pattern.compile( "^\\s*total time[\\s:.]*(\\d+)\\s*ms",
+                                                               Pattern.CASE_INSENSITIVE );
+
+    private final Map<String, Map<String, Map<String, Long>>> timings =
+        new LinkedHashMap<String, Map<String, Map<String, Long>>>();
+
+    private PhaseTimings()
+    {
+        super();
+    }
+
+    public static PhaseTimings getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Parses a compiler info message, lines that aren't benchmark timings are ignored.
+     *
+     * @return true when the message held a phase or total time
+     */
+    public boolean record( CompileTags tags, String message )
+    {
+        if ( tags == null || message == null )
+        {
+            return false;
+        }
+
+        boolean recorded = false;
+        for ( String line : message.split( "\r?\n" ) )
+        {
+            String phase = parsePhase( line );
+            if ( phase == null )
+            {
+                continue;
+            }
+
+            add( tags, phase, parseTime( line ) );
+            recorded = true;
+        }
+        return recorded;
+    }
+
+    static String parsePhase( String line )
+    {
+        if ( TOTAL_TIME.matcher( line ).find() )
+        {
+            return TOTAL;
+        }
+
+        Matcher m = TIMING.matcher( line );
+        if ( !m.find() )
+        {
+            return null;
+        }
+
+        BenchmarkPhase phase = BenchmarkPhase.match( m.group( 1 ) );
+        return phase == null ? null : phase.getName();
+    }
+
+    static long parseTime( String line )
+    {
+        Matcher m = TIMING.matcher( line );
+        m.find();
+        return Long.parseLong( m.group( 2 ) );
+    }
+
+    private void add( CompileTags tags, String phase, long time )
+    {
+        String key = tags.getModule() + ( tags.getLocale() == null ? "" : " [" + tags.getLocale() + "]" );
+        synchronized ( timings )
+        {
+            Map<String, Map<String, Long>> project = timings.get( tags.getProject() );
+            if ( project == null )
+            {
+                project = new TreeMap<String, Map<String, Long>>();
+                timings.put( tags.getProject(), project );
+            }
+
+            Map<String, Long> module = project.get( key );
+            if ( module == null )
+            {
+                module = newTimings();
+                project.put( key, module );
+            }
+
+            // a module may be compiled more than once per build (ie continuous compilation)
+            module.put( phase, module.get( phase ) + time );
+        }
+    }
+
+    private static Map<String, Long> newTimings()
+    {
+        Map<String, Long> module = new LinkedHashMap<String, Long>();
+        for ( BenchmarkPhase phase : BenchmarkPhase.values() )
+        {
+            module.put( phase.getName(), 0L );
+        }
+        module.put( TOTAL, 0L );
+        return module;
+    }
+
+    public Map<String, Map<String, Long>> getTimings( String project )
+    {
+        Map<String, Map<String, Long>> result = new TreeMap<String, Map<String, Long>>();
+        synchronized ( timings )
+        {
+            Map<String, Map<String, Long>> modules = timings.get( project );
+            if ( modules != null )
+            {
+                for ( Map.Entry<String, Map<String, Long>> entry : modules.entrySet() )
+                {
+                    result.put( entry.getKey(), new LinkedHashMap<String, Long>( entry.getValue() ) );
+                }
+            }
+        }
+        return result;
+    }
+
+    public void reset()
+    {
+        synchronized ( timings )
+        {
+            timings.clear();
+        }
+    }
+
+    public void write( String project, File file )
+        throws IOException
+    {
+        write( getTimings( project ), file );
+    }
+
+    public static void write( Map<String, Map<String, Long>> modules, File file )
+        throws IOException
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append( "{\n" );
+        for ( Iterator<Map.Entry<String, Map<String, Long>>> it = modules.entrySet().iterator(); it.hasNext(); )
+        {
+            Map.Entry<String, Map<String, Long>> entry = it.next();
+            sb.append( "  " );
+            Json.quote( sb, entry.getKey() ).append( ": {" );
+            for ( Iterator<Map.Entry<String, Long>> values = entry.getValue().entrySet().iterator(); values.hasNext(); )
+            {
+                Map.Entry<String, Long> value = values.next();
+                Json.quote( sb, value.getKey() ).append( ": " ).append( value.getValue() );
+                if ( values.hasNext() )
+                {
+                    sb.append( ", " );
+                }
+            }
+            sb.append( it.hasNext() ? "},\n" : "}\n" );
+        }
+        sb.append( "}\n" );
+
+        file.getParentFile().mkdirs();
+        FileUtils.fileWrite( file.getAbsolutePath(), "UTF-8", sb.toString() );
+    }
+
+    /**
+     * Reads a report written by {@link #write(Map, File)}.
+     */
+    public static Map<String, Map<String, Long>> read( File file )
+        throws IOException
+    {
+        Object report;
+        try
+        {
+            report = Json.parse( FileUtils.fileRead( file, "UTF-8" ) );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            throw new IOException( "Invalid benchmark report " + file + ": " + e.getMessage() );
+        }
+        if ( !( report instanceof Map ) )
+        {
+            throw new IOException( "Invalid benchmark report " + file + ": not an object" );
+        }
+
+        Map<String, Map<String, Long>> modules = new TreeMap<String, Map<String, Long>>();
+        for ( Map.Entry<?, ?> entry : ( (Map<?, ?>) report ).entrySet() )
+        {
+            if ( !( entry.getValue() instanceof Map ) )
+            {
+                continue;
+            }
+
+            Map<String, Long> module = new LinkedHashMap<String, Long>();
+            for ( Map.Entry<?, ?> value : ( (Map<?, ?>) entry.getValue() ).entrySet() )
+            {
+                if ( value.getValue() instanceof Number )
+                {
+                    module.put( (String) value.getKey(), ( (Number) value.getValue() ).longValue() );
+                }
+            }
+            modules.put( (String) entry.getKey(), module );
+        }
+        return modules;
+    }
+
+    /**
+     * Compares current timings against a baseline.
+     *
+     * @param threshold percentage a phase may grow before it is flagged
+     * @param minimum phases that grew less than this many milliseconds are never flagged, they are just noise
+     * @return a description of every phase regression found, empty when there is none
+     */
+    public static List<String> compare( Map<String, Map<String, Long>> baseline,
+                                        Map<String, Map<String, Long>> current, int threshold, long minimum )
+    {
+        List<String> regressions = new ArrayList<String>();
+        for ( Map.Entry<String, Map<String, Long>> module : current.entrySet() )
+        {
+            Map<String, Long> base = baseline.get( module.getKey() );
+            if ( base == null )
+            {
+                continue;
+            }
+
+            for ( Map.Entry<String, Long> phase : module.getValue().entrySet() )
+            {
+                Long before = base.get( phase.getKey() );
+                if ( before == null )
+                {
+                    continue;
+                }
+
+                long now = phase.getValue();
+                long delta = now - before;
+                if ( delta < minimum || delta * 100 <= before * threshold )
+                {
+                    continue;
+                }
+
+                String growth = before == 0 ? "new" : "+" + ( delta * 100 / before ) + "%";
+                regressions.add( module.getKey() + " " + phase.getKey() + ": " + before + "ms -> " + now + "ms ("
+                    + growth + ")" );
+            }
+        }
+        return regressions;
+    }
+
+}
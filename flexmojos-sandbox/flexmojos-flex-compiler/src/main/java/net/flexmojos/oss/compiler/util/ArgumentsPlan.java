@@ -0,0 +1,170 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.util;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import net.flexmojos.oss.compiler.IFlexArgument;
+import net.flexmojos.oss.compiler.IFlexConfiguration;
+import net.flexmojos.oss.generator.iface.StringUtil;
+
+/**
+ * Reflection data needed to render the arguments of a configuration interface. Looking up methods and converting
+ * their names is way more expensive than invoking them, and the same interfaces are rendered for every module and
+ * locale, so it is computed once per interface.
+ */
+final class ArgumentsPlan
+{
+
+    /**
+     * A getter of the configuration interface and the argument it renders to
+     */
+    static final class Accessor
+    {
+
+        private final Method method;
+
+        private final String name;
+
+        private final String configurationName;
+
+        private final Class<?> returnType;
+
+        private final Class<?> argumentType;
+
+        private volatile Method[] orderMethods;
+
+        Accessor( Method method )
+        {
+            this.method = method;
+            this.name = parseName( method.getName() );
+            this.returnType = method.getReturnType();
+            this.argumentType = returnType.isArray() ? returnType.getComponentType() : returnType;
+            if ( IFlexConfiguration.class.isAssignableFrom( returnType ) )
+            {
+                this.configurationName = parseConfigurationName( method.getName() );
+            }
+            else
+            {
+                this.configurationName = null;
+            }
+        }
+
+        Method getMethod()
+        {
+            return method;
+        }
+
+        String getName()
+        {
+            return name;
+        }
+
+        String getConfigurationName()
+        {
+            return configurationName == null ? parseConfigurationName( method.getName() ) : configurationName;
+        }
+
+        Class<?> getReturnType()
+        {
+            return returnType;
+        }
+
+        /**
+         * @return getters of the {@link IFlexArgument} returned by this accessor, in the order the compiler expects them
+         */
+        Method[] getOrderMethods()
+            throws Exception
+        {
+            Method[] methods = orderMethods;
+            if ( methods == null )
+            {
+                String[] order = (String[]) argumentType.getField( "ORDER" ).get( null );
+                methods = new Method[order.length];
+                for ( int i = 0; i < order.length; i++ )
+                {
+                    methods[i] = argumentType.getDeclaredMethod( order[i] );
+                }
+                orderMethods = methods;
+            }
+            return methods;
+        }
+
+    }
+
+    private final Class<?> configClass;
+
+    private final List<Accessor> accessors;
+
+    ArgumentsPlan( Class<?> configClass )
+    {
+        this.configClass = configClass;
+
+        List<Accessor> accessors = new ArrayList<Accessor>();
+        for ( Method method : configClass.getDeclaredMethods() )
+        {
+            if ( method.getParameterTypes().length != 0 || !Modifier.isPublic( method.getModifiers() ) )
+            {
+                continue;
+            }
+
+            accessors.add( new Accessor( method ) );
+        }
+        this.accessors = Collections.unmodifiableList( accessors );
+    }
+
+    Class<?> getConfigClass()
+    {
+        return configClass;
+    }
+
+    List<Accessor> getAccessors()
+    {
+        return accessors;
+    }
+
+    static String parseConfigurationName( String name )
+    {
+        name = parseName( name );
+        name = name.substring( 0, name.length() - 14 );
+        return name;
+    }
+
+    static String parseName( String name )
+    {
+        name = StringUtil.removePrefix( name );
+        String[] nodes = StringUtil.splitCamelCase( name );
+
+        StringBuilder finalName = new StringBuilder();
+        for ( String node : nodes )
+        {
+            if ( finalName.length() != 0 )
+            {
+                finalName.append( '-' );
+            }
+            finalName.append( node.toLowerCase() );
+        }
+
+        return finalName.toString();
+    }
+
+}
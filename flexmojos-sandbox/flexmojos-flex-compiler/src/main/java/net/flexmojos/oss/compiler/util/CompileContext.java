@@ -0,0 +1,180 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.util;
+
+import java.io.File;
+
+import net.flexmojos.oss.compiler.daemon.CompilerDaemonSettings;
+import net.flexmojos.oss.compiler.metrics.CompileTags;
+
+import flex2.compiler.Logger;
+import flex2.compiler.common.SinglePathResolver;
+
+/**
+ * Everything a compilation needs from the maven execution that requested it.
+ * <p>
+ * Each mojo execution installs its own context on the thread running it, so concurrent reactor modules (mvn -T) no
+ * longer share a logger or path resolver. Contexts are immutable: the context of the submitting thread is captured
+ * when a compilation is submitted and installed on the thread that compiles.
+ * </p>
+ */
+public final class CompileContext
+{
+
+    private static final CompileContext EMPTY = new CompileContext( null, null, null, null, null, null, false );
+
+    private static final ThreadLocal<CompileContext> CURRENT = new ThreadLocal<CompileContext>();
+
+    private final Logger logger;
+
+    private final SinglePathResolver resolver;
+
+    private final CompileTags tags;
+
+    private final CompilerDaemonSettings daemonSettings;
+
+    private final File cacheDirectory;
+
+    private final File configDirectory;
+
+    private final boolean incremental;
+
+    private CompileContext( Logger logger, SinglePathResolver resolver, CompileTags tags,
+                            CompilerDaemonSettings daemonSettings, File cacheDirectory, File configDirectory,
+                            boolean incremental )
+    {
+        this.logger = logger;
+        this.resolver = resolver;
+        this.tags = tags;
+        this.daemonSettings = daemonSettings;
+        this.cacheDirectory = cacheDirectory;
+        this.configDirectory = configDirectory;
+        this.incremental = incremental;
+    }
+
+    /**
+     * @return context installed on the current thread, never null
+     */
+    public static CompileContext current()
+    {
+        CompileContext context = CURRENT.get();
+        return context == null ? EMPTY : context;
+    }
+
+    /**
+     * Installs this context on the current thread.
+     *
+     * @return the context that was installed before, to be given back to {@link #restore(CompileContext)}
+     */
+    public CompileContext install()
+    {
+        CompileContext previous = current();
+        CURRENT.set( this );
+        return previous;
+    }
+
+    public static void restore( CompileContext previous )
+    {
+        if ( previous == null || previous == EMPTY )
+        {
+            CURRENT.remove();
+        }
+        else
+        {
+            CURRENT.set( previous );
+        }
+    }
+
+    public File getCacheDirectory()
+    {
+        return cacheDirectory;
+    }
+
+    public File getConfigDirectory()
+    {
+        return configDirectory;
+    }
+
+    public CompilerDaemonSettings getDaemonSettings()
+    {
+        return daemonSettings;
+    }
+
+    public boolean isIncremental()
+    {
+        return incremental;
+    }
+
+    public Logger getLogger()
+    {
+        return logger;
+    }
+
+    public SinglePathResolver getResolver()
+    {
+        return resolver;
+    }
+
+    public CompileTags getTags()
+    {
+        return tags;
+    }
+
+    public CompileContext withCacheDirectory( File cacheDirectory )
+    {
+        return new CompileContext( logger, resolver, tags, daemonSettings, cacheDirectory, configDirectory,
+                                   incremental );
+    }
+
+    public CompileContext withConfigDirectory( File configDirectory )
+    {
+        return new CompileContext( logger, resolver, tags, daemonSettings, cacheDirectory, configDirectory,
+                                   incremental );
+    }
+
+    public CompileContext withDaemonSettings( CompilerDaemonSettings daemonSettings )
+    {
+        return new CompileContext( logger, resolver, tags, daemonSettings, cacheDirectory, configDirectory,
+                                   incremental );
+    }
+
+    public CompileContext withIncremental( boolean incremental )
+    {
+        return new CompileContext( logger, resolver, tags, daemonSettings, cacheDirectory, configDirectory,
+                                   incremental );
+    }
+
+    public CompileContext withLogger( Logger logger )
+    {
+        return new CompileContext( logger, resolver, tags, daemonSettings, cacheDirectory, configDirectory,
+                                   incremental );
+    }
+
+    public CompileContext withResolver( SinglePathResolver resolver )
+    {
+        return new CompileContext( logger, resolver, tags, daemonSettings, cacheDirectory, configDirectory,
+                                   incremental );
+    }
+
+    public CompileContext withTags( CompileTags tags )
+    {
+        return new CompileContext( logger, resolver, tags, daemonSettings, cacheDirectory, configDirectory,
+                                   incremental );
+    }
+
+}
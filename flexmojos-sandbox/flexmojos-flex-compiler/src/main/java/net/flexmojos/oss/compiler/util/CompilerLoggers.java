@@ -0,0 +1,75 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.util;
+
+import flex2.compiler.Logger;
+import flex2.tools.oem.Message;
+
+/**
+ * Replays a compiler message on a {@link Logger}, picking the method that matches its level.
+ */
+public final class CompilerLoggers
+{
+
+    private CompilerLoggers()
+    {
+        super();
+    }
+
+    /**
+     * @param level one of {@link Message#ERROR}, {@link Message#WARNING}, anything else is logged as info
+     * @param path source of the message, <code>null</code> when it isn't bound to a file
+     */
+    public static void log( Logger logger, String level, String path, int line, int column, String text )
+    {
+        if ( Message.ERROR.equals( level ) )
+        {
+            if ( path == null )
+            {
+                logger.logError( text );
+            }
+            else
+            {
+                logger.logError( path, line, column, text );
+            }
+        }
+        else if ( Message.WARNING.equals( level ) )
+        {
+            if ( path == null )
+            {
+                logger.logWarning( text );
+            }
+            else
+            {
+                logger.logWarning( path, line, column, text );
+            }
+        }
+        else
+        {
+            if ( path == null )
+            {
+                logger.logInfo( text );
+            }
+            else
+            {
+                logger.logInfo( path, line, column, text );
+            }
+        }
+    }
+
+}
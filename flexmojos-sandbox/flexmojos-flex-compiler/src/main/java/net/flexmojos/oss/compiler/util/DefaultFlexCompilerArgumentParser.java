@@ -17,17 +17,21 @@
  */
 package net.flexmojos.oss.compiler.util;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
 import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.logging.AbstractLogEnabled;
@@ -37,7 +41,6 @@ import net.flexmojos.oss.compiler.IFlexConfiguration;
 import net.flexmojos.oss.compiler.IFontsConfiguration;
 import net.flexmojos.oss.compiler.IMetadataConfiguration;
 import net.flexmojos.oss.compiler.IRuntimeSharedLibraryPath;
-import net.flexmojos.oss.generator.iface.StringUtil;
 
 @Component( role = FlexCompilerArgumentParser.class )
 public class DefaultFlexCompilerArgumentParser
@@ -45,6 +48,13 @@ public class DefaultFlexCompilerArgumentParser
     implements FlexCompilerArgumentParser
 {
 
+    /**
+     * Plans hold the classes of their loader, softly referenced so the loader (a finished build on a daemon) can
+     * still be collected
+     */
+    private final Map<ClassLoader, SoftReference<Map<String, ArgumentsPlan>>> plans =
+        new WeakHashMap<ClassLoader, SoftReference<Map<String, ArgumentsPlan>>>();
+
     public <E> String[] parseArguments( E cfg, Class<? extends E> configClass )
     {
         return parseArguments( cfg, configClass, Thread.currentThread().getContextClassLoader() );
@@ -63,16 +73,49 @@ public class DefaultFlexCompilerArgumentParser
 
     public <E> List<String> getArgumentsList( E cfg, Class<? extends E> configClass, ClassLoader classLoader )
     {
-        List<Entry<String, List<String>>> charArgs;
+        return toArguments( getEntries( cfg, configClass, classLoader ) );
+    }
+
+    public <E> List<String> getArgumentsList( E cfg, Class<? extends E> configClass, File configDirectory )
+        throws IOException
+    {
+        List<Entry<String, List<String>>> entries =
+            getEntries( cfg, configClass, Thread.currentThread().getContextClassLoader() );
+        File config = LoadConfigWriter.write( entries, configDirectory );
+
+        List<String> args = toArguments( entries );
+        if ( config != null )
+        {
+            args.add( "-load-config+=" + config.getAbsolutePath() );
+        }
+        return args;
+    }
+
+    public File getConfigDirectory()
+    {
+        return CompileContext.current().getConfigDirectory();
+    }
+
+    public void setConfigDirectory( File configDirectory )
+    {
+        CompileContext.current().withConfigDirectory( configDirectory ).install();
+    }
+
+    private <E> List<Entry<String, List<String>>> getEntries( E cfg, Class<? extends E> configClass,
+                                                              ClassLoader classLoader )
+    {
         try
         {
-            charArgs = doGetArgs( cfg, configClass, classLoader );
+            return doGetArgs( cfg, configClass, classLoader );
         }
         catch ( Exception e )
         {
             throw new RuntimeException( e );
         }
+    }
 
+    private static List<String> toArguments( List<Entry<String, List<String>>> charArgs )
+    {
         List<String> args = new ArrayList<String>();
         for ( Entry<String, List<String>> arg : charArgs )
         {
@@ -95,33 +138,25 @@ public class DefaultFlexCompilerArgumentParser
             return Collections.emptyList();
         }
 
-        configClass = (Class<? extends E>) classLoader.loadClass( configClass.getName() );
-
         List<Entry<String, List<String>>> args = new LinkedList<Entry<String, List<String>>>();
 
-        Method[] methods = configClass.getDeclaredMethods();
-        for ( Method method : methods )
+        for ( ArgumentsPlan.Accessor accessor : getPlan( configClass, classLoader ).getAccessors() )
         {
-            if ( method.getParameterTypes().length != 0 || !Modifier.isPublic( method.getModifiers() ) )
-            {
-                continue;
-            }
-
-            Object value = method.invoke( cfg );
+            Object value = accessor.getMethod().invoke( cfg );
 
             if ( value == null )
             {
                 continue;
             }
 
-            Class<?> returnType = method.getReturnType();
+            Class<?> returnType = accessor.getReturnType();
 
-            String name = parseName( method.getName() );
+            String name = accessor.getName();
 
             if ( value instanceof IFlexConfiguration )
             {
                 List<Entry<String, List<String>>> subArgs = doGetArgs( value, returnType, classLoader );
-                String configurationName = parseConfigurationName( method.getName() );
+                String configurationName = accessor.getConfigurationName();
                 for ( Entry<String, List<String>> arg : subArgs )
                 {
                     args.add( new Entry<String, List<String>>( configurationName + "." + arg.getName(), arg.getValue() ) );
@@ -176,25 +211,22 @@ public class DefaultFlexCompilerArgumentParser
             else if ( value instanceof IFlexArgument || value instanceof IFlexArgument[] )
             {
                 IFlexArgument[] values;
-                Class<?> type = returnType;
-                if ( type.isArray() )
+                if ( returnType.isArray() )
                 {
                     values = (IFlexArgument[]) value;
-                    type = returnType.getComponentType();
                 }
                 else
                 {
                     values = new IFlexArgument[] { (IFlexArgument) value };
-                    type = returnType;
                 }
 
+                Method[] orderMethods = accessor.getOrderMethods();
                 for ( IFlexArgument iFlexArgument : values )
                 {
-                    String[] order = (String[]) type.getField( "ORDER" ).get( iFlexArgument );
                     List<String> subArg = new LinkedList<String>();
-                    for ( String argMethodName : order )
+                    for ( Method argMethod : orderMethods )
                     {
-                        Object argValue = type.getDeclaredMethod( argMethodName ).invoke( iFlexArgument );
+                        Object argValue = argMethod.invoke( iFlexArgument );
                         if ( argValue == null )
                         {
                             continue;
@@ -286,28 +318,40 @@ public class DefaultFlexCompilerArgumentParser
         return args;
     }
 
-    private static String parseConfigurationName( String name )
+    /**
+     * Plans are kept per class loader, the same configuration interface may be loaded by more than one
+     */
+    private ArgumentsPlan getPlan( Class<?> configClass, ClassLoader classLoader )
+        throws ClassNotFoundException
     {
-        name = parseName( name );
-        name = name.substring( 0, name.length() - 14 );
-        return name;
-    }
-
-    private static String parseName( String name )
-    {
-        name = StringUtil.removePrefix( name );
-        String[] nodes = StringUtil.splitCamelCase( name );
-
-        StringBuilder finalName = new StringBuilder();
-        for ( String node : nodes )
+        synchronized ( plans )
         {
-            if ( finalName.length() != 0 )
+            SoftReference<Map<String, ArgumentsPlan>> reference = plans.get( classLoader );
+            Map<String, ArgumentsPlan> loaderPlans = reference == null ? null : reference.get();
+            if ( loaderPlans == null )
+            {
+                loaderPlans = new HashMap<String, ArgumentsPlan>();
+                plans.put( classLoader, new SoftReference<Map<String, ArgumentsPlan>>( loaderPlans ) );
+            }
+
+            ArgumentsPlan plan = loaderPlans.get( configClass.getName() );
+            if ( plan == null )
             {
-                finalName.append( '-' );
+                plan = new ArgumentsPlan( classLoader.loadClass( configClass.getName() ) );
+                loaderPlans.put( configClass.getName(), plan );
             }
-            finalName.append( node.toLowerCase() );
+            return plan;
         }
+    }
 
-        return finalName.toString();
+    /**
+     * Forgets every computed plan, only used to measure how much they save
+     */
+    void clearPlans()
+    {
+        synchronized ( plans )
+        {
+            plans.clear();
+        }
     }
 }
@@ -0,0 +1,115 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * SHA-1 helpers shared by the caches and journals that name entries after their content.
+ */
+public final class Digests
+{
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private Digests()
+    {
+        super();
+    }
+
+    public static MessageDigest newSha1()
+    {
+        try
+        {
+            return MessageDigest.getInstance( "SHA-1" );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            // every JRE must support it
+            throw new IllegalStateException( e );
+        }
+    }
+
+    /**
+     * @return hex SHA-1 of the UTF-8 bytes of value
+     */
+    public static String sha1( String value )
+    {
+        try
+        {
+            return toHex( newSha1().digest( value.getBytes( "UTF-8" ) ) );
+        }
+        catch ( UnsupportedEncodingException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    /**
+     * @return hex SHA-1 of the file content
+     */
+    public static String sha1( File file )
+        throws IOException
+    {
+        MessageDigest md = newSha1();
+        update( md, file );
+        return toHex( md.digest() );
+    }
+
+    public static String toHex( byte[] bytes )
+    {
+        char[] chars = new char[bytes.length * 2];
+        for ( int i = 0; i < bytes.length; i++ )
+        {
+            chars[i * 2] = HEX[( bytes[i] >> 4 ) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String( chars );
+    }
+
+    /**
+     * Feeds the file content to the digest
+     */
+    public static void update( MessageDigest md, File file )
+        throws IOException
+    {
+        InputStream in = new FileInputStream( file );
+        try
+        {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ( ( read = in.read( buffer ) ) != -1 )
+            {
+                md.update( buffer, 0, read );
+            }
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+    }
+
+}
@@ -17,6 +17,8 @@
  */
 package net.flexmojos.oss.compiler.util;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
 
 public interface FlexCompilerArgumentParser
@@ -30,4 +32,20 @@ public interface FlexCompilerArgumentParser
 
     public abstract <E> List<String> getArgumentsList( E cfg, Class<? extends E> configClass, ClassLoader classLoader );
 
+    /**
+     * Same as {@link #getArgumentsList(Object, Class)}, but options holding long lists (library paths, source paths,
+     * classes...) are written to a flex-config file on configDirectory and loaded with -load-config+=. Files are named
+     * after the hash of their content, so identical configurations share the same file.
+     */
+    public abstract <E> List<String> getArgumentsList( E cfg, Class<? extends E> configClass, File configDirectory )
+        throws IOException;
+
+    /**
+     * @return directory where compilations submitted by the current thread write their flex-config files, or null
+     *         when all arguments go on the command line
+     */
+    public abstract File getConfigDirectory();
+
+    public abstract void setConfigDirectory( File configDirectory );
+
 }
\ No newline at end of file
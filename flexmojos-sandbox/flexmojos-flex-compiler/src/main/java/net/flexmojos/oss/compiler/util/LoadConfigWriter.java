@@ -0,0 +1,215 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.xml.PrettyPrintXMLWriter;
+import org.codehaus.plexus.util.xml.XMLWriter;
+
+/**
+ * Moves the list options that grow with the size of the project (library paths, source paths, classes...) out of the
+ * command line into a flex-config file. The compiler command line parser gets really slow with thousands of
+ * <code>-library-path+=</code> arguments, the config file loader doesn't.
+ */
+final class LoadConfigWriter
+{
+
+    /**
+     * Option name and the element name of each of its values on flex-config.xml
+     */
+    private static final Map<String, String> LIST_OPTIONS = new HashMap<String, String>();
+
+    static
+    {
+        LIST_OPTIONS.put( "compiler.external-library-path", "path-element" );
+        LIST_OPTIONS.put( "compiler.include-libraries", "library" );
+        LIST_OPTIONS.put( "compiler.keep-as3-metadata", "name" );
+        LIST_OPTIONS.put( "compiler.library-path", "path-element" );
+        LIST_OPTIONS.put( "compiler.locale", "locale-element" );
+        LIST_OPTIONS.put( "compiler.source-path", "path-element" );
+        LIST_OPTIONS.put( "compiler.theme", "filename" );
+        LIST_OPTIONS.put( "externs", "symbol" );
+        LIST_OPTIONS.put( "include-classes", "class" );
+        LIST_OPTIONS.put( "include-namespaces", "uri" );
+        LIST_OPTIONS.put( "include-resource-bundles", "bundle" );
+        LIST_OPTIONS.put( "include-sources", "path-element" );
+        LIST_OPTIONS.put( "includes", "symbol" );
+        LIST_OPTIONS.put( "runtime-shared-libraries", "url" );
+    }
+
+    private static class ListOption
+    {
+        private boolean append;
+
+        private final List<String> values = new ArrayList<String>();
+    }
+
+    private LoadConfigWriter()
+    {
+        super();
+    }
+
+    /**
+     * @param args rendered arguments, list options are removed from it
+     * @return the flex-config file holding the removed options or null when there was nothing to move
+     */
+    static File write( List<Entry<String, List<String>>> args, File directory )
+        throws IOException
+    {
+        Map<String, ListOption> options = new LinkedHashMap<String, ListOption>();
+        for ( Iterator<Entry<String, List<String>>> it = args.iterator(); it.hasNext(); )
+        {
+            Entry<String, List<String>> arg = it.next();
+            int eq = arg.getName().indexOf( '=' );
+            if ( arg.getValue() != null || eq < 1 )
+            {
+                // not a simple option
+                continue;
+            }
+
+            boolean append = arg.getName().charAt( eq - 1 ) == '+';
+            String name = arg.getName().substring( 0, append ? eq - 1 : eq );
+            if ( !LIST_OPTIONS.containsKey( name ) )
+            {
+                continue;
+            }
+
+            ListOption option = options.get( name );
+            if ( option == null || !append )
+            {
+                // '=' replaces whatever was defined before
+                option = new ListOption();
+                option.append = append;
+                options.put( name, option );
+            }
+
+            // an empty list (ie -library-path=) is moved as well, command line is applied after the file
+            String value = arg.getName().substring( eq + 1 );
+            if ( value.length() == 0 )
+            {
+                it.remove();
+                continue;
+            }
+
+            if ( "include-classes".equals( name ) )
+            {
+                // rendered as a single comma separated argument
+                for ( String className : value.split( "," ) )
+                {
+                    option.values.add( className );
+                }
+            }
+            else
+            {
+                option.values.add( value );
+            }
+            it.remove();
+        }
+
+        if ( options.isEmpty() )
+        {
+            return null;
+        }
+
+        String xml = toXml( options );
+        File file = new File( directory, Digests.sha1( xml ) + ".xml" );
+        if ( !file.exists() )
+        {
+            // identical configurations (module and locale clones) may be written concurrently
+            directory.mkdirs();
+            File tmp = File.createTempFile( file.getName(), ".tmp", directory );
+            FileUtils.fileWrite( tmp.getAbsolutePath(), "UTF-8", xml );
+            if ( !tmp.renameTo( file ) )
+            {
+                tmp.delete();
+                if ( !file.exists() )
+                {
+                    throw new IOException( "Unable to write " + file );
+                }
+            }
+        }
+        return file;
+    }
+
+    private static String toXml( Map<String, ListOption> options )
+    {
+        StringWriter xml = new StringWriter();
+        // same line separator everywhere, the file is named after its content
+        XMLWriter writer = new PrettyPrintXMLWriter( new PrintWriter( xml ), "  ", "\n", "UTF-8", null );
+        writer.startElement( "flex-config" );
+
+        boolean compiler = false;
+        for ( Map.Entry<String, ListOption> entry : options.entrySet() )
+        {
+            if ( entry.getKey().startsWith( "compiler." ) )
+            {
+                if ( !compiler )
+                {
+                    writer.startElement( "compiler" );
+                    compiler = true;
+                }
+                write( writer, entry.getKey(), entry.getValue() );
+            }
+        }
+        if ( compiler )
+        {
+            writer.endElement();
+        }
+
+        for ( Map.Entry<String, ListOption> entry : options.entrySet() )
+        {
+            if ( !entry.getKey().startsWith( "compiler." ) )
+            {
+                write( writer, entry.getKey(), entry.getValue() );
+            }
+        }
+
+        writer.endElement();
+        return xml.append( '\n' ).toString();
+    }
+
+    private static void write( XMLWriter writer, String option, ListOption values )
+    {
+        writer.startElement( option.startsWith( "compiler." ) ? option.substring( 9 ) : option );
+        if ( values.append )
+        {
+            writer.addAttribute( "append", "true" );
+        }
+
+        String element = LIST_OPTIONS.get( option );
+        for ( String value : values.values )
+        {
+            writer.startElement( element );
+            writer.writeText( value );
+            writer.endElement();
+        }
+        writer.endElement();
+    }
+
+}
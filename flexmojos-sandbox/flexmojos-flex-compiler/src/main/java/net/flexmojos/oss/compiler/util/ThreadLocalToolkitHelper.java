@@ -21,21 +21,22 @@ import flex2.compiler.Logger;
 import flex2.compiler.common.PathResolver;
 import flex2.compiler.common.SinglePathResolver;
 
+/**
+ * Bridges the flex compiler thread locals to the {@link CompileContext} of the current thread.
+ */
 public class ThreadLocalToolkitHelper
 {
     // only used to unit test this
     public static boolean invoked = false;
 
-    private static Logger mavenLogger;
-
-    private static SinglePathResolver mavenResolver;
-
     public static Logger fixLogger( Logger logger )
     {
         invoked = true;
 
-        if ( "flex2.compiler.util.ConsoleLogger".equals( logger.getClass().getName() ) )
+        // OEM builders clear the logger once done
+        if ( logger != null && "flex2.compiler.util.ConsoleLogger".equals( logger.getClass().getName() ) )
         {
+            Logger mavenLogger = getMavenLogger();
             if ( mavenLogger == null )
             {
                 throw new IllegalStateException( "ThreadLocalToolkitHelper.mavenLogger was not initialized correctly" );
@@ -52,6 +53,7 @@ public class ThreadLocalToolkitHelper
 
         if ( r != null )
         {
+            SinglePathResolver mavenResolver = CompileContext.current().getResolver();
             if ( mavenResolver == null )
             {
                 throw new IllegalStateException( "ThreadLocalToolkitHelper.mavenResolver was not initialized correctly" );
@@ -62,14 +64,25 @@ public class ThreadLocalToolkitHelper
         return r;
     }
 
+    public static Logger getMavenLogger()
+    {
+        return CompileContext.current().getLogger();
+    }
+
+    /**
+     * Sets the logger of the current thread compile context
+     */
     public static void setMavenLogger( Logger mavenLogger )
     {
-        ThreadLocalToolkitHelper.mavenLogger = mavenLogger;
+        CompileContext.current().withLogger( mavenLogger ).install();
     }
 
+    /**
+     * Sets the path resolver of the current thread compile context
+     */
     public static void setMavenResolver( SinglePathResolver mavenResolver )
     {
-        ThreadLocalToolkitHelper.mavenResolver = mavenResolver;
+        CompileContext.current().withResolver( mavenResolver ).install();
     }
 
 }
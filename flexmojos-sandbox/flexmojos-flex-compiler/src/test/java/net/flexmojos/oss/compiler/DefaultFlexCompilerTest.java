@@ -17,15 +17,23 @@
  */
 package net.flexmojos.oss.compiler;
 
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static net.flexmojos.oss.compiler.test.MockitoConstraints.RETURNS_NULL;
 
 import java.io.File;
 
+import net.flexmojos.oss.compiler.incremental.IncrementalCompiler;
+
+import org.codehaus.plexus.util.ReflectionUtils;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import flex2.compiler.Logger;
+
 
 public class DefaultFlexCompilerTest extends AbstractBaseTest
 {
@@ -68,4 +76,30 @@ public class DefaultFlexCompilerTest extends AbstractBaseTest
 
         Assert.assertTrue( output.exists(), logger.getLogs().toString() );
     }
+
+    @Test
+    public void incrementalOptionAloneKeepsRegularCompilation()
+        throws Exception
+    {
+        File output = new File( as3, "incremental.swf" );
+
+        DefaultFlexCompiler compiler = (DefaultFlexCompiler) plexus.lookup( FlexCompiler.class );
+        IncrementalCompiler incrementalCompiler = mock( IncrementalCompiler.class );
+        ReflectionUtils.setVariableValueInObject( compiler, "incrementalCompiler", incrementalCompiler );
+
+        ICommandLineConfiguration cfg = mock( ICommandLineConfiguration.class, RETURNS_NULL );
+        ICompilerConfiguration compilerCfg = getBaseCompilerCfg();
+        when( compilerCfg.getIncremental() ).thenReturn( true );
+        when( cfg.getLoadConfig() ).thenReturn( new String[] {} );
+        when( cfg.getOutput() ).thenReturn( output.getAbsolutePath() );
+        when( cfg.getCompilerConfiguration() ).thenReturn( compilerCfg );
+        Assert.assertEquals(
+                             compiler.compileSwf( new MxmlcConfigurationHolder( cfg, new File( as3, "main.as" ) ), true ).getExitCode(),
+                             0 );
+
+        // only the continuous goals enable the in memory builders
+        Assert.assertTrue( output.exists() );
+        verify( incrementalCompiler, never() ).compileSwf( any( File.class ), any( String[].class ),
+                                                           any( File.class ), any( Logger.class ) );
+    }
 }
@@ -0,0 +1,194 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.cache;
+
+import java.io.File;
+import java.util.Collections;
+
+import net.flexmojos.oss.compiler.daemon.CompilerDaemonSettings;
+import net.flexmojos.oss.compiler.util.CompileContext;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DefaultCompilerOutputCacheTest
+{
+
+    private File dir;
+
+    private DefaultCompilerOutputCache cache;
+
+    @BeforeMethod
+    public void setUp()
+        throws Exception
+    {
+        dir = new File( "target/output-cache-test" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( dir );
+        dir.mkdirs();
+        cache = new DefaultCompilerOutputCache();
+    }
+
+    private File checkout( String name, String content )
+        throws Exception
+    {
+        File src = new File( dir, name + "/src" );
+        src.mkdirs();
+        FileUtils.fileWrite( new File( src, "Main.as" ).getAbsolutePath(), content );
+        return src;
+    }
+
+    private String[] args( File src, File output )
+    {
+        return new String[] { "-compiler.source-path=" + src.getAbsolutePath(),
+            "-output=" + output.getAbsolutePath(), new File( src, "Main.as" ).getAbsolutePath() };
+    }
+
+    @Test
+    public void keyDependsOnContentOnly()
+        throws Exception
+    {
+        File cacheDir = new File( dir, "cache" );
+        File a = checkout( "a", "package { class Main {} }" );
+        File b = checkout( "b", "package { class Main {} }" );
+        File c = checkout( "c", "package { class Main { var x; } }" );
+
+        String keyA = cache.getKey( cacheDir, "mxmlc", args( a, new File( dir, "a/out.swf" ) ) );
+        String keyB = cache.getKey( cacheDir, "mxmlc", args( b, new File( dir, "b/out.swf" ) ) );
+        String keyC = cache.getKey( cacheDir, "mxmlc", args( c, new File( dir, "c/out.swf" ) ) );
+
+        Assert.assertEquals( keyA, keyB );
+        Assert.assertFalse( keyA.equals( keyC ) );
+        Assert.assertFalse( keyA.equals( cache.getKey( cacheDir, "compc", args( a, new File( dir, "a/out.swf" ) ) ) ) );
+    }
+
+    @Test
+    public void storeAndRestore()
+        throws Exception
+    {
+        File cacheDir = new File( dir, "cache" );
+        File src = checkout( "a", "package { class Main {} }" );
+        File output = new File( dir, "a/target/out.swf" );
+        String[] args = args( src, output );
+        String key = cache.getKey( cacheDir, "mxmlc", args );
+
+        Assert.assertFalse( cache.restore( cacheDir, key, args ) );
+
+        output.getParentFile().mkdirs();
+        FileUtils.fileWrite( output.getAbsolutePath(), "swf" );
+        cache.store( cacheDir, key, args );
+        output.delete();
+
+        Assert.assertTrue( cache.restore( cacheDir, key, args ) );
+        Assert.assertEquals( FileUtils.fileRead( output ), "swf" );
+    }
+
+    @Test
+    public void keyIgnoresMetadataDate()
+        throws Exception
+    {
+        File cacheDir = new File( dir, "cache" );
+        File src = checkout( "a", "package { class Main {} }" );
+        String[] args = args( src, new File( dir, "a/out.swf" ) );
+
+        String[] monday = new String[args.length + 1];
+        System.arraycopy( args, 0, monday, 1, args.length );
+        String[] tuesday = monday.clone();
+        monday[0] = "-metadata.date=Mon Oct 12 2026 10:00";
+        tuesday[0] = "-metadata.date=Tue Oct 13 2026 10:01";
+
+        Assert.assertEquals( cache.getKey( cacheDir, "mxmlc", monday ), cache.getKey( cacheDir, "mxmlc", tuesday ) );
+    }
+
+    @Test
+    public void recentlyModifiedFilesAreDigestedAgain()
+        throws Exception
+    {
+        File cacheDir = new File( dir, "cache" );
+        File src = checkout( "a", "package { class Main {} }" );
+        File main = new File( src, "Main.as" );
+        String[] args = args( src, new File( dir, "a/out.swf" ) );
+        long lastModified = main.lastModified();
+        String key = cache.getKey( cacheDir, "mxmlc", args );
+
+        // same size and timestamp, as a coarse grained file system would report
+        FileUtils.fileWrite( main.getAbsolutePath(), "package { class Niam {} }" );
+        main.setLastModified( lastModified );
+
+        Assert.assertFalse( key.equals( cache.getKey( cacheDir, "mxmlc", args ) ) );
+    }
+
+    @Test
+    public void keyDependsOnCompiler()
+        throws Exception
+    {
+        File cacheDir = new File( dir, "cache" );
+        File src = checkout( "a", "package { class Main {} }" );
+        String[] args = args( src, new File( dir, "a/out.swf" ) );
+        File compiler = new File( dir, "mxmlc.jar" );
+
+        FileUtils.fileWrite( compiler.getAbsolutePath(), "4.5" );
+        String key = getKey( cacheDir, args, compiler );
+        FileUtils.fileWrite( compiler.getAbsolutePath(), "4.6" );
+
+        Assert.assertFalse( key.equals( getKey( cacheDir, args, compiler ) ) );
+    }
+
+    private String getKey( File cacheDir, String[] args, File compiler )
+        throws Exception
+    {
+        CompilerDaemonSettings settings =
+            new CompilerDaemonSettings( "flex", Collections.singletonList( compiler ), 0,
+                                        Collections.<File> emptyList() );
+        CompileContext previous = CompileContext.current().withDaemonSettings( settings ).install();
+        try
+        {
+            return cache.getKey( cacheDir, "mxmlc", args );
+        }
+        finally
+        {
+            CompileContext.restore( previous );
+        }
+    }
+
+    @Test
+    public void entryMissingAnOutputIsAMiss()
+        throws Exception
+    {
+        File cacheDir = new File( dir, "cache" );
+        File src = checkout( "a", "package { class Main {} }" );
+        File output = new File( dir, "a/target/out.swf" );
+        File report = new File( dir, "a/target/link-report.xml" );
+        String[] args = args( src, output );
+        String[] withReport = new String[args.length + 1];
+        System.arraycopy( args, 0, withReport, 0, args.length );
+        withReport[args.length] = "-link-report=" + report.getAbsolutePath();
+        String key = cache.getKey( cacheDir, "mxmlc", args );
+
+        output.getParentFile().mkdirs();
+        FileUtils.fileWrite( output.getAbsolutePath(), "swf" );
+        cache.store( cacheDir, key, args );
+        output.delete();
+
+        // same key, the report isn't on the entry
+        Assert.assertFalse( cache.restore( cacheDir, key, withReport ) );
+        Assert.assertFalse( output.exists() );
+    }
+
+}
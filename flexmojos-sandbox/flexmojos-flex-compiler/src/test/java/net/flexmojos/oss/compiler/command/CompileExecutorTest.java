@@ -0,0 +1,123 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.command;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class CompileExecutorTest
+{
+
+    @Test
+    public void limitConcurrency()
+        throws Exception
+    {
+        CompileExecutor executor = new CompileExecutor( 2 );
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for ( int i = 0; i < 10; i++ )
+        {
+            futures.add( executor.submit( new Runnable()
+            {
+                public void run()
+                {
+                    int now = running.incrementAndGet();
+                    synchronized ( peak )
+                    {
+                        peak.set( Math.max( peak.get(), now ) );
+                    }
+                    try
+                    {
+                        Thread.sleep( 20 );
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        // done
+                    }
+                    running.decrementAndGet();
+                }
+            }, false ) );
+        }
+
+        for ( Future<?> future : futures )
+        {
+            future.get( 10, TimeUnit.SECONDS );
+        }
+
+        Assert.assertEquals( peak.get(), 2 );
+    }
+
+    @Test( timeOut = 10000 )
+    public void nestedSynchronousRunsInline()
+        throws Exception
+    {
+        final CompileExecutor executor = new CompileExecutor( 1 );
+        final CountDownLatch nested = new CountDownLatch( 1 );
+
+        // a single thread pool would deadlock if the nested task was queued
+        executor.submit( new Runnable()
+        {
+            public void run()
+            {
+                executor.submit( new Runnable()
+                {
+                    public void run()
+                    {
+                        nested.countDown();
+                    }
+                }, true );
+            }
+        }, false ).get();
+
+        Assert.assertEquals( nested.getCount(), 0 );
+    }
+
+    @Test
+    public void reserveOnlyGrowsWithinSession()
+    {
+        CompileExecutor executor = new CompileExecutor( 1 );
+        Object session = new Object();
+
+        executor.reserve( session, 2 );
+        Assert.assertEquals( executor.getMaxThreads(), 2 );
+        executor.reserve( session, 4 );
+        executor.reserve( session, 1 );
+        Assert.assertEquals( executor.getMaxThreads(), 4 );
+
+        executor.reserve( new Object(), 1 );
+        Assert.assertEquals( executor.getMaxThreads(), 1 );
+    }
+
+    @Test
+    public void estimateIsBounded()
+    {
+        Assert.assertTrue( CompileExecutor.estimateMaxThreads( null ) >= 1 );
+        Assert.assertTrue( CompileExecutor.estimateMaxThreads( null ) <= Runtime.getRuntime().availableProcessors() );
+        Assert.assertEquals( CompileExecutor.estimateMaxThreads( Integer.MAX_VALUE ), 1 );
+    }
+
+}
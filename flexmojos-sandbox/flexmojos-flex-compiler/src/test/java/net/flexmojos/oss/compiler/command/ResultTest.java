@@ -0,0 +1,163 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.command;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ResultTest
+{
+
+    private int maxThreads;
+
+    private CountDownLatch release;
+
+    @BeforeMethod
+    public void singleThread()
+    {
+        maxThreads = CommandUtil.getExecutor().getMaxThreads();
+        CommandUtil.getExecutor().setMaxThreads( 1 );
+        release = new CountDownLatch( 1 );
+    }
+
+    @AfterMethod
+    public void restore()
+    {
+        release.countDown();
+        CommandUtil.getExecutor().setMaxThreads( maxThreads );
+    }
+
+    private Command blocking()
+    {
+        return new Command()
+        {
+            public void command()
+                throws Exception
+            {
+                release.await();
+            }
+        };
+    }
+
+    @Test( timeOut = 10000 )
+    public void listenerNotified()
+        throws Exception
+    {
+        final AtomicInteger notified = new AtomicInteger();
+        ResultListener listener = new ResultListener()
+        {
+            public void completed( Result result )
+            {
+                notified.incrementAndGet();
+            }
+        };
+
+        Result result = CommandUtil.execute( blocking(), false );
+        result.addListener( listener );
+        Assert.assertEquals( notified.get(), 0 );
+
+        release.countDown();
+        Assert.assertEquals( result.getExitCode(), 0 );
+        // listeners run right after waiters are released
+        while ( notified.get() == 0 )
+        {
+            Thread.sleep( 10 );
+        }
+
+        // late listeners are notified right away
+        result.addListener( listener );
+        Assert.assertEquals( notified.get(), 2 );
+    }
+
+    @Test( timeOut = 10000, expectedExceptions = TimeoutException.class )
+    public void timeout()
+        throws Exception
+    {
+        CommandUtil.execute( blocking(), false ).getExitCode( 50, TimeUnit.MILLISECONDS );
+    }
+
+    @Test( timeOut = 10000 )
+    public void cancelQueued()
+        throws Exception
+    {
+        CommandUtil.execute( blocking(), false );
+        Result queued = CommandUtil.execute( blocking(), false );
+
+        Assert.assertTrue( queued.cancel() );
+        Assert.assertTrue( queued.isCancelled() );
+        Assert.assertTrue( queued.isDone() );
+        try
+        {
+            queued.getExitCode();
+            Assert.fail( "Cancelled compilation has no exit code" );
+        }
+        catch ( CancellationException e )
+        {
+            // expected
+        }
+    }
+
+    @Test( timeOut = 10000 )
+    public void joinWaitsCancelledCompilation()
+        throws Exception
+    {
+        final CountDownLatch started = new CountDownLatch( 1 );
+        final AtomicInteger stopped = new AtomicInteger();
+        Result running = CommandUtil.execute( new Command()
+        {
+            public void command()
+            {
+                started.countDown();
+                // compiler doesn't answer interruptions
+                while ( release.getCount() > 0 )
+                {
+                    try
+                    {
+                        release.await();
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        // keep going
+                    }
+                }
+                stopped.incrementAndGet();
+            }
+        }, false );
+        Result queued = CommandUtil.execute( blocking(), false );
+        started.await();
+
+        Assert.assertTrue( running.cancel() );
+        Assert.assertTrue( queued.cancel() );
+        Assert.assertTrue( running.isDone() );
+        Assert.assertEquals( stopped.get(), 0 );
+
+        queued.join();
+        release.countDown();
+        running.join();
+        Assert.assertEquals( stopped.get(), 1 );
+    }
+
+}
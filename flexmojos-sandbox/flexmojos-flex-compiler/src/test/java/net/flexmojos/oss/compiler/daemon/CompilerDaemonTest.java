@@ -0,0 +1,215 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.daemon;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Collections;
+
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.codehaus.plexus.util.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class CompilerDaemonTest
+{
+
+    private static final String KEY = "flex-test";
+
+    private static final String TOKEN = "secret";
+
+    private String userHome;
+
+    private ServerSocket server;
+
+    private DefaultCompilerDaemonClient client;
+
+    @BeforeMethod
+    public void setUp()
+        throws Exception
+    {
+        File home = new File( "target/daemon-test" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( home );
+        userHome = System.getProperty( "user.home" );
+        System.setProperty( "user.home", home.getAbsolutePath() );
+
+        DaemonProtocol.getDaemonsDirectory().mkdirs();
+        server = new ServerSocket( 0, 50, InetAddress.getByName( "127.0.0.1" ) );
+        FileUtils.fileWrite( DaemonProtocol.getPortFile( KEY ).getAbsolutePath(),
+                             String.valueOf( server.getLocalPort() ) );
+
+        client = new DefaultCompilerDaemonClient();
+        client.enableLogging( new ConsoleLogger( Logger.LEVEL_DISABLED, "test" ) );
+    }
+
+    @AfterMethod
+    public void tearDown()
+        throws Exception
+    {
+        server.close();
+        System.setProperty( "user.home", userHome );
+    }
+
+    private DataInputStream request( String key, String token )
+        throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream( bytes );
+        out.writeInt( DaemonProtocol.VERSION );
+        DaemonProtocol.writeString( out, key );
+        DaemonProtocol.writeString( out, token );
+        return new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+    }
+
+    private byte accept( DataInputStream in )
+        throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new CompilerDaemonServer( KEY, TOKEN, 0, null ).accept( in, new DataOutputStream( bytes ) );
+        return bytes.toByteArray()[0];
+    }
+
+    @Test
+    public void serverAcceptsOnlyValidToken()
+        throws Exception
+    {
+        Assert.assertEquals( accept( request( KEY, TOKEN ) ), DaemonProtocol.ACCEPTED );
+        Assert.assertEquals( accept( request( KEY, "forged" ) ), DaemonProtocol.FAILURE );
+        Assert.assertEquals( accept( request( KEY, null ) ), DaemonProtocol.FAILURE );
+        Assert.assertEquals( accept( request( "flex-other", TOKEN ) ), DaemonProtocol.FAILURE );
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new DataOutputStream( bytes ).writeInt( DaemonProtocol.VERSION - 1 );
+        Assert.assertEquals( accept( new DataInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ) ),
+                             DaemonProtocol.FAILURE );
+    }
+
+    /**
+     * Serves one connection, accepting it with the real handshake then answering with the given frames
+     */
+    private void serve( final byte[] frames )
+    {
+        new Thread()
+        {
+            public void run()
+            {
+                try
+                {
+                    Socket socket = server.accept();
+                    try
+                    {
+                        DataInputStream in = new DataInputStream( new BufferedInputStream( socket.getInputStream() ) );
+                        DataOutputStream out =
+                            new DataOutputStream( new BufferedOutputStream( socket.getOutputStream() ) );
+                        if ( new CompilerDaemonServer( KEY, TOKEN, 0, null ).accept( in, out ) )
+                        {
+                            DaemonProtocol.readString( in );
+                            DaemonProtocol.readStrings( in );
+                            DaemonProtocol.readStrings( in );
+                            out.write( frames );
+                            out.flush();
+                        }
+                    }
+                    finally
+                    {
+                        socket.close();
+                    }
+                }
+                catch ( IOException e )
+                {
+                    // test closed the server
+                }
+            }
+        }.start();
+    }
+
+    private int execute( String token, flex2.compiler.Logger logger )
+        throws IOException
+    {
+        DaemonProtocol.writeOwnerOnly( DaemonProtocol.getTokenFile( KEY ), token );
+        CompilerDaemonSettings settings =
+            new CompilerDaemonSettings( KEY, Collections.<File> emptyList(), 0, Collections.<File> emptyList() );
+        return client.execute( settings, CompilerDaemonClient.MXMLC, new String[] { "-output=a.swf" }, logger );
+    }
+
+    @Test
+    public void returnsErrorCount()
+        throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream( bytes );
+        out.writeByte( DaemonProtocol.DONE );
+        out.writeInt( 3 );
+        serve( bytes.toByteArray() );
+
+        Assert.assertEquals( execute( TOKEN, mock( flex2.compiler.Logger.class ) ), 3 );
+    }
+
+    @Test( expectedExceptions = IOException.class )
+    public void refusedRequestFallsBack()
+        throws Exception
+    {
+        serve( new byte[0] );
+
+        execute( "forged", mock( flex2.compiler.Logger.class ) );
+    }
+
+    @Test
+    public void acceptedRequestNeverFallsBack()
+        throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream( bytes );
+        out.writeByte( DaemonProtocol.MESSAGE );
+        DaemonProtocol.writeString( out, "error" );
+        DaemonProtocol.writeString( out, null );
+        out.writeInt( -1 );
+        out.writeInt( -1 );
+        DaemonProtocol.writeString( out, "boom" );
+        // connection lost before DONE
+        serve( bytes.toByteArray() );
+
+        flex2.compiler.Logger logger = mock( flex2.compiler.Logger.class );
+        try
+        {
+            execute( TOKEN, logger );
+            Assert.fail( "relayed messages would be duplicated by an in-process compilation" );
+        }
+        catch ( IllegalStateException e )
+        {
+            // expected
+        }
+        verify( logger ).logError( "boom" );
+    }
+
+}
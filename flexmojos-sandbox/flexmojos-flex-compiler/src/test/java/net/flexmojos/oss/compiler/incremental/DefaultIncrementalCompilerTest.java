@@ -0,0 +1,77 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.incremental;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import flex2.tools.oem.Builder;
+
+public class DefaultIncrementalCompilerTest
+{
+
+    @Test
+    public void leastRecentlyUsedBuildersAreDropped()
+    {
+        Map<String, Builder> builders = new DefaultIncrementalCompiler.Builders( 2 );
+        builders.put( "a", mock( Builder.class ) );
+        builders.put( "b", mock( Builder.class ) );
+        builders.get( "a" );
+        builders.put( "c", mock( Builder.class ) );
+
+        Assert.assertEquals( builders.size(), 2 );
+        Assert.assertTrue( builders.containsKey( "a" ) );
+        Assert.assertFalse( builders.containsKey( "b" ) );
+        Assert.assertTrue( builders.containsKey( "c" ) );
+    }
+
+    @Test
+    public void enabledOnlyForTheCurrentThread()
+        throws Exception
+    {
+        final DefaultIncrementalCompiler compiler = new DefaultIncrementalCompiler();
+        Assert.assertFalse( compiler.isEnabled() );
+
+        compiler.setEnabled( true );
+        try
+        {
+            final boolean[] other = new boolean[1];
+            Thread thread = new Thread()
+            {
+                public void run()
+                {
+                    other[0] = compiler.isEnabled();
+                }
+            };
+            thread.start();
+            thread.join();
+
+            Assert.assertTrue( compiler.isEnabled() );
+            Assert.assertFalse( other[0] );
+        }
+        finally
+        {
+            compiler.setEnabled( false );
+        }
+    }
+
+}
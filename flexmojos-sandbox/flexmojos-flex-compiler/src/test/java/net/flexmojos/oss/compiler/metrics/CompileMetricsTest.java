@@ -0,0 +1,70 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.metrics;
+
+import java.io.File;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class CompileMetricsTest
+{
+
+    @Test
+    public void recordAndWrite()
+        throws Exception
+    {
+        CompileMetrics metrics = CompileMetrics.getInstance();
+        CompileTags tags = new CompileTags( "g:metrics-test:swf:1.0", "MxmlcMojo", "metrics-test:\"module\"", "en_US" );
+
+        CompileRecord record = metrics.start( tags );
+        byte[][] garbage = new byte[100][];
+        for ( int i = 0; i < garbage.length; i++ )
+        {
+            garbage[i] = new byte[1024];
+        }
+        metrics.finish( record, 1, 2, false );
+
+        Assert.assertTrue( record.getWallTime() >= 0 );
+        Assert.assertTrue( record.getPeakHeap() > 0 );
+        Assert.assertEquals( record.getErrors(), 1 );
+        Assert.assertEquals( record.getWarnings(), 2 );
+        Assert.assertEquals( metrics.getRecords( "g:metrics-test:swf:1.0" ).size(), 1 );
+        Assert.assertTrue( metrics.getRecords( "other" ).isEmpty() );
+
+        File report = new File( "target/metrics-test/flexmojos-compile-metrics.json" );
+        metrics.write( "g:metrics-test:swf:1.0", report );
+        String json = FileUtils.fileRead( report );
+        Assert.assertTrue( json.contains( "\"module\":\"metrics-test:\\\"module\\\"\"" ), json );
+        Assert.assertTrue( json.contains( "\"locale\":\"en_US\"" ), json );
+    }
+
+    @Test
+    public void forkedCompilationHasNoLocalCost()
+    {
+        CompileMetrics metrics = CompileMetrics.getInstance();
+        CompileRecord record = metrics.start( new CompileTags( "g:forked:swf:1.0", "MxmlcMojo", "forked", null ), true );
+        metrics.finish( record, 0, 0, false );
+
+        Assert.assertEquals( record.getCpuTime(), -1 );
+        Assert.assertEquals( record.getAllocatedBytes(), -1 );
+        Assert.assertTrue( record.getWallTime() >= 0 );
+    }
+
+}
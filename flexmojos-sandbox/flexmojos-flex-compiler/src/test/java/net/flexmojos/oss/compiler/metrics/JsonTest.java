@@ -0,0 +1,61 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.metrics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class JsonTest
+{
+
+    @Test
+    public void quoteAndParseBack()
+    {
+        String value = "a \"b\" c:\\d\n{e}";
+        String quoted = Json.quote( new StringBuilder(), value ).toString();
+
+        Assert.assertEquals( quoted, "\"a \\\"b\\\" c:\\\\d\\u000a{e}\"" );
+        Assert.assertEquals( Json.parse( quoted ), value );
+        Assert.assertEquals( Json.quote( new StringBuilder(), null ).toString(), "null" );
+    }
+
+    @Test
+    public void parseDocument()
+    {
+        Map<?, ?> object =
+            (Map<?, ?>) Json.parse( " {\"a}\": {\"x\": 1, \"y\": -2.5}, \"b\": [true, false, null, \"s\"], \"c\": {}} " );
+
+        Assert.assertEquals( object.keySet().toArray(), new Object[] { "a}", "b", "c" } );
+        Map<?, ?> a = (Map<?, ?>) object.get( "a}" );
+        Assert.assertEquals( a.get( "x" ), 1L );
+        Assert.assertEquals( a.get( "y" ), -2.5 );
+        Assert.assertEquals( (List<?>) object.get( "b" ), Arrays.asList( true, false, null, "s" ) );
+        Assert.assertTrue( ( (Map<?, ?>) object.get( "c" ) ).isEmpty() );
+    }
+
+    @Test( expectedExceptions = IllegalArgumentException.class )
+    public void rejectsTruncated()
+    {
+        Json.parse( "{\"a\": {\"x\": 1}" );
+    }
+
+}
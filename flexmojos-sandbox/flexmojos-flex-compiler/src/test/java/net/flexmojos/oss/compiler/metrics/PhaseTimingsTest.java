@@ -0,0 +1,81 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.metrics;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PhaseTimingsTest
+{
+
+    @Test
+    public void parseLines()
+    {
+        Assert.assertEquals( PhaseTimings.parsePhase( "Linking... 44ms" ), "link" );
+        Assert.assertEquals( PhaseTimings.parsePhase( "Optimizing... 113ms" ), "optimize" );
+        Assert.assertEquals( PhaseTimings.parsePhase( "  parse1: 1234ms" ), "parse" );
+        Assert.assertEquals( PhaseTimings.parsePhase( "analyze3 : 12 ms" ), "analyze" );
+        Assert.assertEquals( PhaseTimings.parsePhase( "Total time: 4858ms" ), PhaseTimings.TOTAL );
+        Assert.assertNull( PhaseTimings.parsePhase( "Files: 151 Time: 3251ms" ) );
+        Assert.assertNull( PhaseTimings.parsePhase( "start loading swcs 11ms Running Total: 56ms" ) );
+        Assert.assertNull( PhaseTimings.parsePhase( "Linking the application" ) );
+
+        Assert.assertEquals( PhaseTimings.parseTime( "parse1: 1234ms" ), 1234 );
+        Assert.assertEquals( PhaseTimings.parseTime( "Total time: 4858ms" ), 4858 );
+    }
+
+    @Test
+    public void recordWriteAndCompare()
+        throws Exception
+    {
+        PhaseTimings timings = PhaseTimings.getInstance();
+        CompileTags tags = new CompileTags( "g:timings-test:swf:1.0", "MxmlcMojo", "timings-test", "en_US" );
+
+        Assert.assertFalse( timings.record( tags, "Loaded 48 SWCs: 1022ms" ) );
+        Assert.assertTrue( timings.record( tags, "parse1: 100ms\nparse2: 50ms" ) );
+        Assert.assertTrue( timings.record( tags, "Linking... 200ms" ) );
+        Assert.assertTrue( timings.record( tags, "Total time: 1000ms" ) );
+
+        File report = new File( "target/timings-test/flexmojos-benchmark.json" );
+        timings.write( "g:timings-test:swf:1.0", report );
+
+        Map<String, Map<String, Long>> current = PhaseTimings.read( report );
+        Map<String, Long> module = current.get( "timings-test [en_US]" );
+        Assert.assertNotNull( module, current.toString() );
+        Assert.assertEquals( module.get( "parse" ).longValue(), 150 );
+        Assert.assertEquals( module.get( "link" ).longValue(), 200 );
+        Assert.assertEquals( module.get( "optimize" ).longValue(), 0 );
+        Assert.assertEquals( module.get( PhaseTimings.TOTAL ).longValue(), 1000 );
+
+        Map<String, Map<String, Long>> baseline = PhaseTimings.read( report );
+        baseline.get( "timings-test [en_US]" ).put( "link", 100L );
+        baseline.get( "timings-test [en_US]" ).put( "parse", 140L );
+
+        List<String> regressions = PhaseTimings.compare( baseline, current, 10, 20 );
+        Assert.assertEquals( regressions.size(), 1, regressions.toString() );
+        Assert.assertTrue( regressions.get( 0 ).startsWith( "timings-test [en_US] link: 100ms -> 200ms" ),
+                           regressions.get( 0 ) );
+
+        Assert.assertTrue( PhaseTimings.compare( baseline, current, 150, 20 ).isEmpty() );
+    }
+
+}
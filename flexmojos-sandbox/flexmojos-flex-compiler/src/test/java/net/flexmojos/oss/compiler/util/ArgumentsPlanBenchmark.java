@@ -0,0 +1,107 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import net.flexmojos.oss.compiler.ICompcConfiguration;
+import net.flexmojos.oss.compiler.IFlexConfiguration;
+
+/**
+ * Measures how long rendering compc arguments takes with and without the cached {@link ArgumentsPlan}s, which is
+ * what the parser used to pay on every call.
+ * <p>
+ * Usage: java -cp target/test-classes:target/classes:&lt;dependencies&gt;
+ * net.flexmojos.oss.compiler.util.ArgumentsPlanBenchmark [iterations]
+ * </p>
+ */
+public class ArgumentsPlanBenchmark
+{
+
+    public static void main( String[] args )
+    {
+        int iterations = args.length > 0 ? Integer.parseInt( args[0] ) : 20000;
+
+        DefaultFlexCompilerArgumentParser parser = new DefaultFlexCompilerArgumentParser();
+        ICompcConfiguration cfg = proxy( ICompcConfiguration.class );
+
+        // warm up the JIT on both paths
+        run( parser, cfg, iterations, true );
+        run( parser, cfg, iterations, false );
+
+        long uncached = run( parser, cfg, iterations, true );
+        long cached = run( parser, cfg, iterations, false );
+
+        System.out.println( "arguments rendered: " + parser.parseArguments( cfg, ICompcConfiguration.class ).length );
+        System.out.println( "without plans: " + ( uncached / iterations ) + " ns/op" );
+        System.out.println( "with plans:    " + ( cached / iterations ) + " ns/op" );
+    }
+
+    private static long run( DefaultFlexCompilerArgumentParser parser, ICompcConfiguration cfg, int iterations,
+                             boolean clear )
+    {
+        long start = System.nanoTime();
+        for ( int i = 0; i < iterations; i++ )
+        {
+            if ( clear )
+            {
+                parser.clearPlans();
+            }
+            parser.parseArguments( cfg, ICompcConfiguration.class );
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * A configuration with every boolean and string option set and every nested configuration populated
+     */
+    private static <T> T proxy( Class<T> type )
+    {
+        return type.cast( Proxy.newProxyInstance( type.getClassLoader(), new Class<?>[] { type },
+                                                  new PopulatedConfiguration() ) );
+    }
+
+    private static Object valueFor( Class<?> type )
+    {
+        if ( Boolean.class.equals( type ) )
+        {
+            return Boolean.TRUE;
+        }
+        if ( String.class.equals( type ) )
+        {
+            return "value";
+        }
+        if ( IFlexConfiguration.class.isAssignableFrom( type ) )
+        {
+            return proxy( type );
+        }
+        return null;
+    }
+
+    private static class PopulatedConfiguration
+        implements InvocationHandler
+    {
+        public Object invoke( Object proxy, Method method, Object[] args )
+        {
+            return valueFor( method.getReturnType() );
+        }
+    }
+
+}
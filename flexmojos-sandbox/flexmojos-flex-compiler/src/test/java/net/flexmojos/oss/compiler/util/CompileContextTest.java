@@ -0,0 +1,117 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import net.flexmojos.oss.compiler.command.Command;
+import net.flexmojos.oss.compiler.command.CommandUtil;
+import net.flexmojos.oss.compiler.command.Result;
+import net.flexmojos.oss.compiler.metrics.CompileTags;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class CompileContextTest
+{
+
+    @Test
+    public void installAndRestore()
+    {
+        CompileTags tags = new CompileTags( "g:a:swf:1", "MxmlcMojo", "a", null );
+        CompileContext previous = CompileContext.current().withTags( tags ).install();
+        Assert.assertSame( CompileContext.current().getTags(), tags );
+
+        CompileContext.restore( previous );
+        Assert.assertNull( CompileContext.current().getTags() );
+    }
+
+    @Test
+    public void capturedOnSubmit()
+        throws Exception
+    {
+        final CountDownLatch submitted = new CountDownLatch( 4 );
+        final List<String> mismatches = new ArrayList<String>();
+        final List<Result> results = new ArrayList<Result>();
+
+        List<Thread> modules = new ArrayList<Thread>();
+        for ( int i = 0; i < 4; i++ )
+        {
+            final CompileTags tags = new CompileTags( "g:module" + i + ":swf:1", "MxmlcMojo", "module" + i, null );
+            modules.add( new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    CompileContext previous = CompileContext.current().withTags( tags ).install();
+                    try
+                    {
+                        Result result = CommandUtil.execute( new Command()
+                        {
+                            public void command()
+                                throws Exception
+                            {
+                                // let every module submit before checking
+                                submitted.await();
+                                if ( CompileContext.current().getTags() != tags )
+                                {
+                                    synchronized ( mismatches )
+                                    {
+                                        mismatches.add( tags.getModule() );
+                                    }
+                                }
+                            }
+                        }, false );
+                        synchronized ( results )
+                        {
+                            results.add( result );
+                        }
+                    }
+                    catch ( Exception e )
+                    {
+                        throw new RuntimeException( e );
+                    }
+                    finally
+                    {
+                        CompileContext.restore( previous );
+                        submitted.countDown();
+                    }
+                }
+            } );
+        }
+
+        for ( Thread module : modules )
+        {
+            module.start();
+        }
+        for ( Thread module : modules )
+        {
+            module.join();
+        }
+        for ( Result result : results )
+        {
+            Assert.assertEquals( result.getExitCode(), 0 );
+        }
+
+        Assert.assertEquals( results.size(), 4 );
+        Assert.assertTrue( mismatches.isEmpty(), mismatches.toString() );
+    }
+
+}
@@ -0,0 +1,77 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.compiler.util;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class LoadConfigWriterTest
+{
+
+    private static List<Entry<String, List<String>>> args( String... names )
+    {
+        List<Entry<String, List<String>>> args = new ArrayList<Entry<String, List<String>>>();
+        for ( String name : names )
+        {
+            args.add( new Entry<String, List<String>>( name, null ) );
+        }
+        return args;
+    }
+
+    @Test
+    public void moveListOptions()
+        throws Exception
+    {
+        File dir = new File( "target/load-config" );
+        FileUtils.deleteDirectory( dir );
+
+        List<Entry<String, List<String>>> args =
+            args( "compiler.library-path=", "compiler.library-path+=/libs/a.swc",
+                  "compiler.library-path+=/libs/b&c.swc", "include-classes=a.A,b.B", "compiler.debug=true" );
+        File config = LoadConfigWriter.write( args, dir );
+
+        Assert.assertEquals( args.size(), 1 );
+        Assert.assertEquals( args.get( 0 ).getName(), "compiler.debug=true" );
+
+        String xml = FileUtils.fileRead( config, "UTF-8" );
+        // cleared before appending, so the file replaces the default library path
+        Assert.assertTrue( xml.contains( "<library-path>" ), xml );
+        Assert.assertTrue( xml.contains( "<path-element>/libs/b&amp;c.swc</path-element>" ), xml );
+        Assert.assertTrue( xml.contains( "<class>b.B</class>" ), xml );
+
+        // identical configurations share the same file
+        File same = LoadConfigWriter.write( args( "compiler.library-path=", "compiler.library-path+=/libs/a.swc",
+                                                  "compiler.library-path+=/libs/b&c.swc", "include-classes=a.A,b.B" ),
+                                            dir );
+        Assert.assertEquals( same, config );
+        Assert.assertEquals( dir.list().length, 1 );
+    }
+
+    @Test
+    public void nothingToMove()
+        throws Exception
+    {
+        Assert.assertNull( LoadConfigWriter.write( args( "compiler.debug=true" ), new File( "target/load-config" ) ) );
+    }
+
+}
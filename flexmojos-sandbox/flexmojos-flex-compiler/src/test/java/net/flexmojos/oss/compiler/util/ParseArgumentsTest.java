@@ -71,9 +71,7 @@ public class ParseArgumentsTest
         Assert.assertEquals( args.get( 0 ), "-debug-password=dbgPw" );
     }
 
-    @Test
-    public void compilerCfgParse()
-        throws Exception
+    private ICompcConfiguration newFullCfg()
     {
         ICompcConfiguration cfg = mock( ICompcConfiguration.class, RETURNS_NULL );
         ICompilerConfiguration compilerCfg = mock( ICompilerConfiguration.class, RETURNS_NULL );
@@ -122,6 +120,15 @@ public class ParseArgumentsTest
         when( define.name() ).thenReturn( "CFG::AAA" );
         when( define.value() ).thenReturn( "true" );
 
+        return cfg;
+    }
+
+    @Test
+    public void compilerCfgParse()
+        throws Exception
+    {
+        ICompcConfiguration cfg = newFullCfg();
+
         List<String> args = parser.getArgumentsList( cfg, ICompcConfiguration.class );
 
         Assert.assertNotNull( args );
@@ -157,4 +164,17 @@ public class ParseArgumentsTest
         Assert.assertEquals( args.size(), 1, args.toString() );
         Assert.assertTrue( args.contains( "-load-config=" ) );
     }
+
+    @Test
+    public void cachedPlanRendersLikeFreshReflection()
+        throws Exception
+    {
+        ICompcConfiguration cfg = newFullCfg();
+
+        ( (DefaultFlexCompilerArgumentParser) parser ).clearPlans();
+        List<String> reflective = parser.getArgumentsList( cfg, ICompcConfiguration.class );
+        List<String> cached = parser.getArgumentsList( cfg, ICompcConfiguration.class );
+
+        Assert.assertEquals( cached, reflective );
+    }
 }
@@ -0,0 +1,59 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.tests.concept;
+
+import java.io.File;
+
+import net.flexmojos.oss.test.FMVerifier;
+import org.codehaus.plexus.util.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ParallelReactorTest
+    extends AbstractConceptTest
+{
+
+    private static final String[] MODULES = { "app-a", "app-b", "app-c", "app-d" };
+
+    @Test
+    public void parallelBuild()
+        throws Exception
+    {
+        FMVerifier v = standardConceptTester( "parallel-reactor", "-T", "4" );
+        File basedir = new File( v.getBasedir() );
+        for ( int i = 0; i < MODULES.length; i++ )
+        {
+            String module = MODULES[i];
+            v.assertArtifactPresent( "info.rvin.itest.parallel", module, "1.0-SNAPSHOT", "swf" );
+
+            // compilations must be accounted to the module that requested them
+            String metrics =
+                FileUtils.fileRead( new File( basedir, module + "/target/flexmojos-compile-metrics.json" ) );
+            for ( String other : MODULES )
+            {
+                Assert.assertEquals( metrics.contains( "\"module\":\"" + other + "\"" ), other.equals( module ),
+                                     module + ": " + metrics );
+            }
+
+            // app-a declares one untyped variable, app-b two... warnings of concurrent modules must not mix
+            Assert.assertTrue( metrics.contains( "\"errors\":0,\"warnings\":" + ( i + 1 ) + "," ), module + ": "
+                + metrics );
+        }
+    }
+
+}
@@ -18,6 +18,7 @@
 package net.flexmojos.oss.test;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
 
 import org.codehaus.plexus.component.annotations.Component;
@@ -25,8 +26,8 @@ import org.codehaus.plexus.component.annotations.Requirement;
 import org.codehaus.plexus.logging.AbstractLogEnabled;
 import net.flexmojos.oss.test.launcher.AsVmLauncher;
 import net.flexmojos.oss.test.launcher.LaunchFlashPlayerException;
-import net.flexmojos.oss.test.monitor.AsVmPing;
-import net.flexmojos.oss.test.monitor.ResultHandler;
+import net.flexmojos.oss.test.monitor.MonitorSession;
+import net.flexmojos.oss.test.monitor.TestMonitor;
 
 @Component( role = TestRunner.class, instantiationStrategy = "per-lookup" )
 public class DefaultTestRunner
@@ -34,15 +35,12 @@ public class DefaultTestRunner
     implements TestRunner
 {
 
-    @Requirement( role = AsVmPing.class )
-    private AsVmPing pinger;
-
-    @Requirement( role = ResultHandler.class )
-    private ResultHandler resultHandler;
-
     @Requirement( role = AsVmLauncher.class )
     private AsVmLauncher launcher;
 
+    @Requirement( role = TestMonitor.class )
+    private TestMonitor monitor;
+
     public List<String> run( TestRequest testRequest )
         throws TestRunnerException, LaunchFlashPlayerException
     {
@@ -59,15 +57,21 @@ public class DefaultTestRunner
 
         getLogger().info( "Running tests " + swf );
 
+        // Open the ports where flashplayer is pinged and the FlexUnit results are received.
+        MonitorSession session;
         try
         {
-            // Start a thread that pings flashplayer to be sure if it still alive.
-            pinger.start( testRequest.getTestControlPort(), testRequest.getFirstConnectionTimeout(),
-                          testRequest.getTestTimeout() );
-
-            // Start a thread that receives the FlexUnit results.
-            resultHandler.start( testRequest.getTestPort() );
+            session = monitor.open( testRequest );
+        }
+        catch ( IOException e )
+        {
+            throw new TestRunnerException( "Unable to open test ports: " + e.getMessage() + " - " + swf, e );
+        }
 
+        ControlledThread pinger = session.getControl();
+        ControlledThread resultHandler = session.getResults();
+        try
+        {
             // Start the browser and run the FlexUnit tests.
             launcher.start( testRequest );
 
@@ -90,7 +94,7 @@ public class DefaultTestRunner
                     {
                         if ( hasDone( resultHandler ) && hasDone( pinger ) )
                         {
-                            List<String> results = resultHandler.getTestReportData();
+                            List<String> results = session.getTestReportData();
                             return results; // expected exit!
                         }
                         sleep( 500 );
@@ -107,6 +111,7 @@ public class DefaultTestRunner
         finally
         {
             stop( launcher, pinger, resultHandler );
+            session.close();
         }
     }
 
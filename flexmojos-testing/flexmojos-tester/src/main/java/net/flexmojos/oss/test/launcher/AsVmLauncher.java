@@ -21,10 +21,14 @@ import static net.flexmojos.oss.util.CollectionUtils.*;
 import java.awt.GraphicsEnvironment;
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.Field;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
 import org.codehaus.plexus.util.cli.StreamConsumer;
 import org.codehaus.plexus.util.cli.StreamPumper;
 import net.flexmojos.oss.test.AbstractControlledThread;
@@ -67,12 +71,25 @@ public class AsVmLauncher
 
     }
 
+    /**
+     * Headless runtimes still alive on this VM, the Xvfb cleanup must not kill the ones other runners are using
+     */
+    private static final AtomicInteger HEADLESS_RUNNERS = new AtomicInteger();
+
+    /**
+     * Set when a headless runtime was destroyed without knowing its pid, its Xvfb and player are left behind until
+     * the last headless runtime stops
+     */
+    private static final AtomicBoolean ORPHANS = new AtomicBoolean();
+
     private boolean allowHeadlessMode;
 
     private String[] asvmCommand;
 
     private StringBuffer consoleLog = new StringBuffer();
 
+    private final AtomicBoolean headless = new AtomicBoolean();
+
     private File log;
 
     private Process process;
@@ -82,6 +99,95 @@ public class AsVmLauncher
         return this.consoleLog.toString();
     }
 
+    /**
+     * Kills the processes started by pid, and the ones they started in turn, pid itself is left alone.
+     * 
+     * @return false when the children couldn't be listed
+     */
+    private boolean killChildren( int pid )
+    {
+        if ( pid <= 0 )
+        {
+            return false;
+        }
+
+        try
+        {
+            Process pgrep = Runtime.getRuntime().exec( new String[] { "pgrep", "-P", String.valueOf( pid ) } );
+            String children = IOUtil.toString( pgrep.getInputStream() );
+            pgrep.waitFor();
+
+            for ( String child : children.trim().split( "\\s+" ) )
+            {
+                if ( child.length() == 0 )
+                {
+                    continue;
+                }
+
+                killChildren( Integer.parseInt( child ) );
+                getLogger().debug( "[LAUNCHER] killing " + child );
+                Runtime.getRuntime().exec( new String[] { "kill", child } ).waitFor();
+            }
+            return true;
+        }
+        catch ( IOException e )
+        {
+            getLogger().error( "Error killing children of " + pid, e );
+            return false;
+        }
+        catch ( InterruptedException e )
+        {
+            // ignore, process wake up call
+            return true;
+        }
+    }
+
+    private void killXvfb()
+    {
+        try
+        {
+            getLogger().debug( "[LAUNCHER] killing Xvfb" );
+            Runtime.getRuntime().exec( new String[] { "killall", "Xvfb" } ).waitFor();
+            Runtime.getRuntime().exec( new String[] { "killall", "xvfb-run" } ).waitFor();
+            Runtime.getRuntime().exec( new String[] { "killall", new File( asvmCommand[0] ).getName() } ).waitFor();
+        }
+        catch ( IOException e )
+        {
+            getLogger().error( "Error killing Xvfb", e );
+        }
+        catch ( InterruptedException e )
+        {
+            // ignore, process wake up call
+        }
+    }
+
+    /**
+     * @return process id, or -1 when the VM doesn't expose it
+     */
+    private static int getPid( Process process )
+    {
+        try
+        {
+            // Process.pid() on java 9 and newer
+            return ( (Number) Process.class.getMethod( "pid" ).invoke( process ) ).intValue();
+        }
+        catch ( Exception e )
+        {
+            // java.lang.UNIXProcess keeps it private
+        }
+
+        try
+        {
+            Field pid = process.getClass().getDeclaredField( "pid" );
+            pid.setAccessible( true );
+            return pid.getInt( process );
+        }
+        catch ( Exception e )
+        {
+            return -1;
+        }
+    }
+
     private void processExitCode( int returnCode )
     {
 
@@ -222,6 +328,12 @@ public class AsVmLauncher
             getLogger().debug( "[LAUNCHER] Executing command: " + Arrays.toString( cmdArray ) );
 
             process = Runtime.getRuntime().exec( cmdArray );
+
+            // only counted once xvfb-run is really running, and once per launcher
+            if ( !headless.getAndSet( true ) )
+            {
+                HEADLESS_RUNNERS.incrementAndGet();
+            }
         }
         catch ( IOException e )
         {
@@ -310,6 +422,8 @@ public class AsVmLauncher
 
     public void stop()
     {
+        // released once, even when stopped again or concurrently
+        boolean wasHeadless = headless.getAndSet( false );
 
         if ( process != null )
         {
@@ -320,28 +434,30 @@ public class AsVmLauncher
             catch ( IllegalThreadStateException ex )
             {
                 getLogger().debug( "[LAUNCHER] process has not been finished, destroying" );
+
+                // destroying xvfb-run leaves its Xvfb and player running, take them down first
+                if ( wasHeadless && !killChildren( getPid( process ) ) )
+                {
+                    ORPHANS.set( true );
+                }
                 process.destroy();
             }
         }
 
-        if ( useXvfb() )
+        if ( wasHeadless )
         {
-            try
+            if ( HEADLESS_RUNNERS.decrementAndGet() > 0 )
             {
-                getLogger().debug( "[LAUNCHER] killing Xvfb" );
-                Runtime.getRuntime().exec( new String[] { "killall", "Xvfb" } ).waitFor();
-                Runtime.getRuntime().exec( new String[] { "killall", "xvfb-run" } ).waitFor();
-                Runtime.getRuntime().exec( new String[] { "killall", new File( asvmCommand[0] ).getName() } ).waitFor();
+                getLogger().debug( "[LAUNCHER] other headless runners still alive" );
             }
-            catch ( IOException e )
+            else if ( ORPHANS.getAndSet( false ) )
             {
-                getLogger().error( "Error killing Xvfb", e );
-            }
-            catch ( InterruptedException e )
-            {
-                // ignore, process wake up call
+                killXvfb();
             }
+        }
 
+        if ( useXvfb() )
+        {
             if ( log != null && log.exists() )
             {
                 try
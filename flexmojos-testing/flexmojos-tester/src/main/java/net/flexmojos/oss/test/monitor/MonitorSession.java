@@ -0,0 +1,556 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.test.monitor;
+
+import static net.flexmojos.oss.test.monitor.CommConstraints.ACK_OF_TEST_RESULT;
+import static net.flexmojos.oss.test.monitor.CommConstraints.END_OF_TEST_RUN;
+import static net.flexmojos.oss.test.monitor.CommConstraints.END_OF_TEST_SUITE;
+import static net.flexmojos.oss.test.monitor.CommConstraints.EOL;
+import static net.flexmojos.oss.test.monitor.CommConstraints.FINISHED;
+import static net.flexmojos.oss.test.monitor.CommConstraints.NULL_BYTE;
+import static net.flexmojos.oss.test.monitor.CommConstraints.OK;
+import static net.flexmojos.oss.test.monitor.CommConstraints.STATUS;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import net.flexmojos.oss.test.ControlledThread;
+import net.flexmojos.oss.test.ThreadStatus;
+
+import org.codehaus.plexus.logging.Logger;
+
+/**
+ * The control and result connections of one running test swf, driven by the {@link TestMonitor} selector thread. Each
+ * connection reports its progress as a {@link ControlledThread}.
+ */
+public class MonitorSession
+{
+
+    /**
+     * One of the session server sockets and, once the player connects, its client connection
+     */
+    abstract class Channel
+        implements ControlledThread
+    {
+
+        private SocketChannel client;
+
+        protected volatile Throwable error;
+
+        private final ByteBuffer input = ByteBuffer.allocate( 8192 );
+
+        private SelectionKey key;
+
+        private ByteBuffer output;
+
+        private final int port;
+
+        private ServerSocketChannel server;
+
+        protected volatile ThreadStatus status;
+
+        private final String tag;
+
+        Channel( String tag, int port )
+        {
+            this.tag = tag;
+            this.port = port;
+        }
+
+        private void accept( long now )
+            throws IOException
+        {
+            SocketChannel accepted = server.accept();
+            if ( accepted == null )
+            {
+                return;
+            }
+
+            closeServer();
+            client = accepted;
+            client.configureBlocking( false );
+            key = client.register( key.selector(), SelectionKey.OP_READ, this );
+
+            logger.debug( "[" + tag + "] accepting data from client on port " + port );
+            status = ThreadStatus.RUNNING;
+
+            connected( now );
+        }
+
+        protected void close()
+        {
+            closeServer();
+            if ( client != null )
+            {
+                try
+                {
+                    client.close();
+                }
+                catch ( IOException e )
+                {
+                    // ignore
+                }
+            }
+        }
+
+        private void closeServer()
+        {
+            if ( server != null )
+            {
+                try
+                {
+                    server.close();
+                }
+                catch ( IOException e )
+                {
+                    // ignore
+                }
+            }
+        }
+
+        protected abstract void connected( long now )
+            throws IOException;
+
+        protected synchronized void done()
+        {
+            if ( !isFinished() )
+            {
+                status = ThreadStatus.DONE;
+            }
+            close();
+        }
+
+        protected synchronized void fail( Throwable e )
+        {
+            if ( !isFinished() )
+            {
+                logger.debug( "[" + tag + "] " + e.getMessage() );
+
+                error = e;
+                status = ThreadStatus.ERROR;
+            }
+            close();
+        }
+
+        public Throwable getError()
+        {
+            return error;
+        }
+
+        public ThreadStatus getStatus()
+        {
+            return status;
+        }
+
+        boolean isFinished()
+        {
+            return ThreadStatus.DONE.equals( status ) || ThreadStatus.ERROR.equals( status );
+        }
+
+        public void lock()
+        {
+            // nothing to lock, the selector thread owns the channel
+        }
+
+        void open()
+            throws IOException
+        {
+            server = ServerSocketChannel.open();
+            server.socket().bind( new InetSocketAddress( port ) );
+            server.configureBlocking( false );
+
+            logger.debug( "[" + tag + "] opened server socket on port " + port );
+            status = ThreadStatus.STARTED;
+        }
+
+        /**
+         * Selector thread: the channel is ready for the operations of its key
+         */
+        void ready( long now )
+        {
+            try
+            {
+                if ( key.isAcceptable() )
+                {
+                    accept( now );
+                    return;
+                }
+
+                if ( key.isWritable() )
+                {
+                    write();
+                }
+
+                if ( key.isValid() && key.isReadable() )
+                {
+                    input.clear();
+                    if ( client.read( input ) == -1 )
+                    {
+                        closed();
+                        return;
+                    }
+                    input.flip();
+                    received( input, now );
+                }
+            }
+            catch ( Exception e )
+            {
+                fail( e );
+            }
+        }
+
+        protected abstract void closed();
+
+        protected abstract void received( ByteBuffer bytes, long now )
+            throws IOException;
+
+        void register( Selector selector )
+            throws IOException
+        {
+            key = server.register( selector, SelectionKey.OP_ACCEPT, this );
+        }
+
+        protected void send( String message )
+            throws IOException
+        {
+            output = ByteBuffer.wrap( message.getBytes( US_ASCII ) );
+            write();
+        }
+
+        protected void sent()
+        {
+        }
+
+        public void stop()
+        {
+            fail( new SocketException( "Socket closed" ) );
+        }
+
+        abstract void tick( long now );
+
+        public void unlock()
+        {
+        }
+
+        private void write()
+            throws IOException
+        {
+            if ( output == null )
+            {
+                return;
+            }
+
+            client.write( output );
+            if ( output.hasRemaining() )
+            {
+                key.interestOps( SelectionKey.OP_READ | SelectionKey.OP_WRITE );
+                return;
+            }
+
+            output = null;
+            key.interestOps( SelectionKey.OP_READ );
+            sent();
+        }
+
+    }
+
+    /**
+     * Polls the player status on the control port, see {@link CommConstraints}
+     */
+    private class ControlChannel
+        extends Channel
+    {
+
+        private long acceptDeadline;
+
+        private int errorCount;
+
+        private final StringBuilder line = new StringBuilder();
+
+        private long nextPing;
+
+        private long readDeadline;
+
+        ControlChannel( int port )
+        {
+            super( "CONTROL", port );
+        }
+
+        @Override
+        protected void closed()
+        {
+            // connection closed without an answer, the player is gone
+            fail( new Error( "Invalid virtual machine status: null" ) );
+        }
+
+        @Override
+        protected void connected( long now )
+            throws IOException
+        {
+            acceptDeadline = 0;
+            ping( now );
+        }
+
+        private void ping( long now )
+            throws IOException
+        {
+            nextPing = 0;
+            readDeadline = testTimeout > 0 ? now + testTimeout : 0;
+            send( STATUS + EOL );
+        }
+
+        @Override
+        protected void received( ByteBuffer bytes, long now )
+            throws IOException
+        {
+            while ( bytes.hasRemaining() && !isFinished() )
+            {
+                char c = (char) bytes.get();
+                if ( c == EOL )
+                {
+                    status( line.toString(), now );
+                    line.setLength( 0 );
+                }
+                else if ( c != '\r' )
+                {
+                    line.append( c );
+                }
+            }
+        }
+
+        private void status( String result, long now )
+            throws IOException
+        {
+            logger.debug( "[CONTROL] status is: " + result );
+            readDeadline = 0;
+
+            if ( FINISHED.equals( result ) )
+            {
+                logger.debug( "[CONTROL] FINISHED received, closing the control connection" );
+                done();
+            }
+            else if ( OK.equals( result ) )
+            {
+                errorCount = 0;
+                nextPing = now + PING_INTERVAL;
+            }
+            else if ( ++errorCount >= 3 )
+            {
+                fail( new Error( "Invalid virtual machine status: " + result ) );
+            }
+            else
+            {
+                ping( now );
+            }
+        }
+
+        @Override
+        void tick( long now )
+        {
+            if ( isFinished() )
+            {
+                return;
+            }
+
+            try
+            {
+                if ( acceptDeadline != 0 && now > acceptDeadline )
+                {
+                    fail( new SocketTimeoutException( "Accept timed out" ) );
+                }
+                else if ( readDeadline != 0 && now > readDeadline )
+                {
+                    fail( new SocketTimeoutException( "Read timed out" ) );
+                }
+                else if ( nextPing != 0 && now >= nextPing )
+                {
+                    ping( now );
+                }
+            }
+            catch ( IOException e )
+            {
+                fail( e );
+            }
+        }
+
+    }
+
+    /**
+     * Collects the NULL byte terminated test reports sent on the result port
+     */
+    private class ResultChannel
+        extends Channel
+    {
+
+        private final NullByteFrameReader frames = new NullByteFrameReader();
+
+        ResultChannel( int port )
+        {
+            super( "RESULT", port );
+        }
+
+        @Override
+        protected void closed()
+        {
+            done();
+        }
+
+        @Override
+        protected void connected( long now )
+        {
+        }
+
+        @Override
+        protected void received( ByteBuffer bytes, long now )
+            throws IOException
+        {
+            frames.feed( bytes );
+
+            String data;
+            while ( ( data = frames.nextFrame() ) != null )
+            {
+                if ( data.endsWith( END_OF_TEST_SUITE ) )
+                {
+                    logger.debug( "[RESULT] End test suite" );
+
+                    testReportData.add( data );
+                }
+                else if ( data.equals( END_OF_TEST_RUN ) )
+                {
+                    logger.debug( "[RESULT] End test run - sending ACK: " + ACK_OF_TEST_RESULT );
+
+                    send( ACK_OF_TEST_RESULT + NULL_BYTE );
+                    return;
+                }
+            }
+        }
+
+        @Override
+        protected void sent()
+        {
+            // only message ever sent is the acknowledgement
+            done();
+        }
+
+        @Override
+        void tick( long now )
+        {
+        }
+
+    }
+
+    static final long PING_INTERVAL = 2000;
+
+    private static final Charset US_ASCII = Charset.forName( "US-ASCII" );
+
+    private final ControlChannel control;
+
+    private final Logger logger;
+
+    private final ResultChannel results;
+
+    private final List<String> testReportData = Collections.synchronizedList( new ArrayList<String>() );
+
+    private final int testTimeout;
+
+    MonitorSession( Logger logger, int testPort, int testControlPort, int firstConnectionTimeout, int testTimeout,
+                    long now )
+        throws IOException
+    {
+        this.logger = logger;
+        this.testTimeout = testTimeout;
+
+        control = new ControlChannel( testControlPort );
+        control.acceptDeadline = firstConnectionTimeout > 0 ? now + firstConnectionTimeout : 0;
+        results = new ResultChannel( testPort );
+
+        try
+        {
+            control.open();
+            results.open();
+        }
+        catch ( IOException e )
+        {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Releases both ports, unfinished connections are flagged as failed
+     */
+    public void close()
+    {
+        control.stop();
+        results.stop();
+    }
+
+    /**
+     * @return the status of the control (ping) connection
+     */
+    public ControlledThread getControl()
+    {
+        return control;
+    }
+
+    /**
+     * @return the status of the result connection
+     */
+    public ControlledThread getResults()
+    {
+        return results;
+    }
+
+    public List<String> getTestReportData()
+    {
+        synchronized ( testReportData )
+        {
+            return new ArrayList<String>( testReportData );
+        }
+    }
+
+    boolean isFinished()
+    {
+        return control.isFinished() && results.isFinished();
+    }
+
+    void register( Selector selector )
+        throws IOException
+    {
+        control.register( selector );
+        results.register( selector );
+    }
+
+    void tick( long now )
+    {
+        control.tick( now );
+        results.tick( now );
+    }
+
+}
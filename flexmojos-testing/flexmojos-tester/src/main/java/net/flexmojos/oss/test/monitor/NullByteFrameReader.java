@@ -0,0 +1,114 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.test.monitor;
+
+import static net.flexmojos.oss.test.monitor.CommConstraints.NULL_BYTE;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Decodes the NULL byte terminated messages sent by the flash XMLSocket. Received bytes are pushed through
+ * {@link #feed(ByteBuffer)} and messages pulled with {@link #nextFrame()}, each message is decoded (UTF-8) once, when
+ * its terminator arrives.
+ */
+class NullByteFrameReader
+{
+
+    private static final Charset UTF_8 = Charset.forName( "UTF-8" );
+
+    private byte[] chunk;
+
+    private int chunkLength;
+
+    private int chunkPosition;
+
+    private byte[] frame;
+
+    private int frameLength;
+
+    public NullByteFrameReader()
+    {
+        this( 8192 );
+    }
+
+    NullByteFrameReader( int chunkSize )
+    {
+        this.chunk = new byte[chunkSize];
+        this.frame = new byte[chunkSize];
+    }
+
+    private void append( int offset, int length )
+    {
+        if ( frameLength + length > frame.length )
+        {
+            byte[] grown = new byte[Math.max( frame.length * 2, frameLength + length )];
+            System.arraycopy( frame, 0, grown, 0, frameLength );
+            frame = grown;
+        }
+        System.arraycopy( chunk, offset, frame, frameLength, length );
+        frameLength += length;
+    }
+
+    /**
+     * Queues received bytes, {@link #nextFrame()} must have drained the previous ones
+     */
+    public void feed( ByteBuffer bytes )
+    {
+        if ( bytes.remaining() > chunk.length )
+        {
+            chunk = new byte[bytes.remaining()];
+        }
+        chunkPosition = 0;
+        chunkLength = bytes.remaining();
+        bytes.get( chunk, 0, chunkLength );
+    }
+
+    /**
+     * @return the next complete message on the received bytes, or null when more bytes are needed
+     */
+    public String nextFrame()
+    {
+        for ( int i = chunkPosition; i < chunkLength; i++ )
+        {
+            if ( chunk[i] == NULL_BYTE )
+            {
+                String data;
+                if ( frameLength == 0 )
+                {
+                    // whole message on this chunk, no need to copy it around
+                    data = new String( chunk, chunkPosition, i - chunkPosition, UTF_8 );
+                }
+                else
+                {
+                    append( chunkPosition, i - chunkPosition );
+                    data = new String( frame, 0, frameLength, UTF_8 );
+                    frameLength = 0;
+                }
+                chunkPosition = i + 1;
+                return data;
+            }
+        }
+
+        append( chunkPosition, chunkLength - chunkPosition );
+        chunkPosition = 0;
+        chunkLength = 0;
+        return null;
+    }
+
+}
@@ -1,126 +0,0 @@
-/**
- * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
- * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
- *
- * This program is free software: you can redistribute it and/or modify
- * it under the terms of the GNU General Public License as published by
- * the Free Software Foundation, either version 3 of the License, or
- * (at your option) any later version.
- *
- * This program is distributed in the hope that it will be useful,
- * but WITHOUT ANY WARRANTY; without even the implied warranty of
- * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
- * GNU General Public License for more details.
- *
- * You should have received a copy of the GNU General Public License
- * along with this program.  If not, see <http://www.gnu.org/licenses/>.
- */
-package net.flexmojos.oss.test.monitor;
-
-import static net.flexmojos.oss.test.monitor.CommConstraints.ACK_OF_TEST_RESULT;
-import static net.flexmojos.oss.test.monitor.CommConstraints.END_OF_TEST_RUN;
-import static net.flexmojos.oss.test.monitor.CommConstraints.END_OF_TEST_SUITE;
-import static net.flexmojos.oss.test.monitor.CommConstraints.NULL_BYTE;
-
-import java.io.BufferedWriter;
-import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.net.SocketException;
-import java.util.ArrayList;
-import java.util.List;
-
-import org.codehaus.plexus.component.annotations.Component;
-import net.flexmojos.oss.test.ControlledThread;
-
-/**
- * Create a server socket for receiving the test reports from FlexUnit. We read the test reports inside of a Thread.
- */
-@Component( role = ResultHandler.class, instantiationStrategy = "per-lookup" )
-public class ResultHandler
-    extends AbstractSocketThread
-    implements ControlledThread
-{
-    public static final String ROLE = ResultHandler.class.getName();
-
-    private int testReportPort;
-
-    protected List<String> testReportData;
-
-    public List<String> getTestReportData()
-    {
-        return testReportData;
-    }
-
-    protected void handleRequest()
-        throws SocketException, IOException
-    {
-        StringBuffer buffer = new StringBuffer();
-        int bite = -1;
-
-        while ( ( bite = in.read() ) != -1 )
-        {
-            final char chr = (char) bite;
-
-            if ( chr == NULL_BYTE )
-            {
-                final String data = buffer.toString();
-                getLogger().debug( "[RESULT] Recivied data: " + data );
-                buffer = new StringBuffer();
-
-                if ( data.endsWith( END_OF_TEST_SUITE ) )
-                {
-                    getLogger().debug( "[RESULT] End test suite" );
-
-                    this.testReportData.add( data );
-                }
-                else if ( data.equals( END_OF_TEST_RUN ) )
-                {
-                    getLogger().debug( "[RESULT] End test run - sending ACK: " + ACK_OF_TEST_RESULT );
-
-                    // Sending the acknowledgement to testrunner
-
-                    BufferedWriter out = new BufferedWriter( new OutputStreamWriter( super.out ) );
-                    out.write( ACK_OF_TEST_RESULT + NULL_BYTE );
-                    out.flush();
-                    break;
-                }
-            }
-            else
-            {
-                buffer.append( chr );
-            }
-        }
-
-        getLogger().debug( "[RESULT] Socket buffer " + buffer );
-    }
-
-    public void start(int testPort)
-    {
-        reset();
-
-        testReportPort = testPort;
-        testReportData = new ArrayList<String>();
-
-        launch();
-    }
-
-    @Override
-    protected void reset()
-    {
-        super.reset();
-
-        testReportData = null;
-    }
-
-    @Override
-    protected int getTestPort()
-    {
-        return testReportPort;
-    }
-
-    @Override
-    protected int getFirstConnectionTimeout()
-    {
-        return 0; // no timeout
-    }
-}
@@ -0,0 +1,227 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.test.monitor;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import net.flexmojos.oss.test.TestRequest;
+
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.logging.AbstractLogEnabled;
+
+/**
+ * Watches the control and result connections of every running test swf from a single selector thread. The thread is
+ * started with the first session and stops once no session is left.
+ */
+@Component( role = TestMonitor.class )
+public class TestMonitor
+    extends AbstractLogEnabled
+    implements Runnable
+{
+
+    private static final long TICK = 250;
+
+    private Selector selector;
+
+    private final List<MonitorSession> sessions = new ArrayList<MonitorSession>();
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+
+    private Thread thread;
+
+    private void closeSelector()
+    {
+        try
+        {
+            selector.close();
+        }
+        catch ( IOException e )
+        {
+            // ignore
+        }
+        selector = null;
+        thread = null;
+    }
+
+    private synchronized void execute( Runnable task )
+        throws IOException
+    {
+        if ( thread == null )
+        {
+            start();
+        }
+
+        tasks.add( task );
+        selector.wakeup();
+    }
+
+    /**
+     * Opens the request ports, the swf can be launched once this returns
+     */
+    public MonitorSession open( TestRequest request )
+        throws IOException
+    {
+        final MonitorSession session =
+            new MonitorSession( getLogger(), request.getTestPort(), request.getTestControlPort(),
+                                request.getFirstConnectionTimeout(), request.getTestTimeout(),
+                                System.currentTimeMillis() );
+
+        try
+        {
+            execute( new Runnable()
+            {
+                public void run()
+                {
+                    sessions.add( session );
+                    try
+                    {
+                        session.register( selector );
+                    }
+                    catch ( IOException e )
+                    {
+                        // closed before the selector got to it
+                        session.close();
+                    }
+                }
+            } );
+        }
+        catch ( IOException e )
+        {
+            session.close();
+            throw e;
+        }
+
+        return session;
+    }
+
+    public void run()
+    {
+        try
+        {
+            while ( true )
+            {
+                try
+                {
+                    serve();
+                }
+                catch ( RuntimeException e )
+                {
+                    getLogger().error( "[MONITOR] unexpected failure", e );
+                }
+
+                synchronized ( this )
+                {
+                    if ( sessions.isEmpty() && tasks.isEmpty() )
+                    {
+                        closeSelector();
+                        return;
+                    }
+                }
+            }
+        }
+        finally
+        {
+            synchronized ( this )
+            {
+                if ( thread == Thread.currentThread() )
+                {
+                    // died, sessions left behind would never finish
+                    getLogger().error( "[MONITOR] monitor thread died, failing " + sessions.size() + " sessions" );
+                    for ( MonitorSession session : sessions )
+                    {
+                        session.close();
+                    }
+                    sessions.clear();
+                    closeSelector();
+
+                    if ( !tasks.isEmpty() )
+                    {
+                        try
+                        {
+                            start();
+                        }
+                        catch ( IOException e )
+                        {
+                            getLogger().error( "[MONITOR] unable to restart", e );
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Selector thread: one round of queued tasks, ready channels and timeouts
+     */
+    private void serve()
+    {
+        try
+        {
+            selector.select( TICK );
+        }
+        catch ( IOException e )
+        {
+            getLogger().error( "[MONITOR] selector failure", e );
+        }
+
+        Runnable task;
+        while ( ( task = tasks.poll() ) != null )
+        {
+            task.run();
+        }
+
+        long now = System.currentTimeMillis();
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while ( keys.hasNext() )
+        {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if ( key.isValid() )
+            {
+                ( (MonitorSession.Channel) key.attachment() ).ready( now );
+            }
+        }
+
+        for ( Iterator<MonitorSession> it = sessions.iterator(); it.hasNext(); )
+        {
+            MonitorSession session = it.next();
+            session.tick( now );
+            if ( session.isFinished() )
+            {
+                it.remove();
+            }
+        }
+    }
+
+    private void start()
+        throws IOException
+    {
+        selector = Selector.open();
+        thread = new Thread( this, "flexmojos-test-monitor" );
+        thread.setDaemon( true );
+        thread.start();
+    }
+
+}
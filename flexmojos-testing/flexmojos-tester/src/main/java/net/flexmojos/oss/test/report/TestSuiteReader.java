@@ -0,0 +1,184 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.test.report;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streaming counterpart of {@link TestCaseReport}. Only the testsuite element is read when created, the test cases are
+ * skipped over while looking for coverage data, so no DOM is ever built for the report.
+ */
+public class TestSuiteReader
+{
+
+    public interface CoverageHandler
+    {
+        void coverage( String classname, Integer[] touchs );
+    }
+
+    private static final XMLInputFactory FACTORY;
+
+    static
+    {
+        FACTORY = XMLInputFactory.newInstance();
+        FACTORY.setProperty( XMLInputFactory.SUPPORT_DTD, Boolean.FALSE );
+    }
+
+    private int errors;
+
+    private int failures;
+
+    private String name;
+
+    private final XMLStreamReader reader;
+
+    private int tests;
+
+    private double time;
+
+    public TestSuiteReader( Reader in )
+        throws XMLStreamException
+    {
+        reader = FACTORY.createXMLStreamReader( in );
+        reader.nextTag();
+        reader.require( XMLStreamConstants.START_ELEMENT, null, "testsuite" );
+
+        name = reader.getAttributeValue( null, "name" );
+        tests = intAttribute( "tests" );
+        failures = intAttribute( "failures" );
+        errors = intAttribute( "errors" );
+        String value = reader.getAttributeValue( null, "time" );
+        time = value == null ? 0 : Double.parseDouble( value );
+    }
+
+    public void close()
+    {
+        try
+        {
+            reader.close();
+        }
+        catch ( XMLStreamException e )
+        {
+            // ignore
+        }
+    }
+
+    public int getErrors()
+    {
+        return errors;
+    }
+
+    public int getFailures()
+    {
+        return failures;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public int getTests()
+    {
+        return tests;
+    }
+
+    public double getTime()
+    {
+        return time;
+    }
+
+    private int intAttribute( String attribute )
+    {
+        String value = reader.getAttributeValue( null, attribute );
+        return value == null ? 0 : Integer.parseInt( value );
+    }
+
+    /**
+     * Streams the rest of the suite, handing each coverage element to the handler.
+     */
+    public void readCoverage( CoverageHandler handler )
+        throws XMLStreamException
+    {
+        int depth = 1;
+        while ( depth > 0 && reader.hasNext() )
+        {
+            int event = reader.next();
+            if ( event == XMLStreamConstants.END_ELEMENT )
+            {
+                depth--;
+            }
+            else if ( event == XMLStreamConstants.START_ELEMENT )
+            {
+                if ( depth == 1 && "coverage".equals( reader.getLocalName() ) )
+                {
+                    String classname = reader.getAttributeValue( null, "classname" );
+                    handler.coverage( classname, readTouchs() );
+                }
+                else
+                {
+                    depth++;
+                }
+            }
+        }
+    }
+
+    private Integer[] readTouchs()
+        throws XMLStreamException
+    {
+        List<Integer> touchs = new ArrayList<Integer>();
+        while ( reader.nextTag() == XMLStreamConstants.START_ELEMENT )
+        {
+            if ( "touch".equals( reader.getLocalName() ) )
+            {
+                touchs.add( Integer.valueOf( reader.getElementText().trim() ) );
+            }
+            else
+            {
+                skipElement();
+            }
+        }
+        return touchs.toArray( new Integer[0] );
+    }
+
+    private void skipElement()
+        throws XMLStreamException
+    {
+        int depth = 1;
+        while ( depth > 0 )
+        {
+            int event = reader.next();
+            if ( event == XMLStreamConstants.START_ELEMENT )
+            {
+                depth++;
+            }
+            else if ( event == XMLStreamConstants.END_ELEMENT )
+            {
+                depth--;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.test.monitor;
+
+import static java.util.Arrays.asList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+public class NullByteFrameReaderTest
+{
+
+    /**
+     * Feeds data in chunkSize slices, the way the selector receives it
+     */
+    private List<String> frames( NullByteFrameReader frames, String data, int chunkSize )
+        throws Exception
+    {
+        byte[] bytes = data.getBytes( "UTF-8" );
+        List<String> decoded = new ArrayList<String>();
+        for ( int offset = 0; offset < bytes.length; offset += chunkSize )
+        {
+            frames.feed( ByteBuffer.wrap( bytes, offset, Math.min( chunkSize, bytes.length - offset ) ) );
+            String frame;
+            while ( ( frame = frames.nextFrame() ) != null )
+            {
+                decoded.add( frame );
+            }
+        }
+        return decoded;
+    }
+
+    @Test
+    public void framesOnSingleChunk()
+        throws Exception
+    {
+        NullByteFrameReader frames = new NullByteFrameReader( 1024 );
+
+        assertEquals( frames( frames, "<a/>\u0000<b/>\u0000", 1024 ), asList( "<a/>", "<b/>" ) );
+        assertNull( frames.nextFrame() );
+    }
+
+    @Test
+    public void framesSpanningChunks()
+        throws Exception
+    {
+        NullByteFrameReader frames = new NullByteFrameReader( 3 );
+
+        assertEquals( frames( frames, "<testsuite name=\"\u00e7\u00e3o\"/>\u0000\u0000<x/>\u0000<partial", 3 ),
+                      asList( "<testsuite name=\"\u00e7\u00e3o\"/>", "", "<x/>" ) );
+        assertEquals( frames( frames, "/>\u0000", 3 ), asList( "<partial/>" ) );
+    }
+
+}
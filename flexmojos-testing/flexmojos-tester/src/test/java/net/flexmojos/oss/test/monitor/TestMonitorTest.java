@@ -0,0 +1,231 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.test.monitor;
+
+import static net.flexmojos.oss.test.monitor.CommConstraints.ACK_OF_TEST_RESULT;
+import static net.flexmojos.oss.test.monitor.CommConstraints.END_OF_TEST_RUN;
+import static net.flexmojos.oss.test.monitor.CommConstraints.END_OF_TEST_SUITE;
+import static net.flexmojos.oss.test.monitor.CommConstraints.EOL;
+import static net.flexmojos.oss.test.monitor.CommConstraints.FINISHED;
+import static net.flexmojos.oss.test.monitor.CommConstraints.NULL_BYTE;
+import static net.flexmojos.oss.test.monitor.CommConstraints.OK;
+import static net.flexmojos.oss.test.monitor.CommConstraints.STATUS;
+import static org.testng.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.codehaus.plexus.PlexusTestNGCase;
+import net.flexmojos.oss.test.ControlledThread;
+import net.flexmojos.oss.test.TestRequest;
+import net.flexmojos.oss.test.ThreadStatus;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TestMonitorTest
+    extends PlexusTestNGCase
+{
+
+    private TestMonitor monitor;
+
+    private static int freePort()
+        throws Exception
+    {
+        ServerSocket ss = new ServerSocket( 0 );
+        int port = ss.getLocalPort();
+        ss.close();
+        return port;
+    }
+
+    private static TestRequest request( int firstConnectionTimeout )
+        throws Exception
+    {
+        TestRequest request = new TestRequest();
+        request.setTestPort( freePort() );
+        request.setTestControlPort( freePort() );
+        request.setFirstConnectionTimeout( firstConnectionTimeout );
+        request.setTestTimeout( 1000 );
+        return request;
+    }
+
+    private static void await( ControlledThread channel, ThreadStatus status )
+        throws Exception
+    {
+        while ( !status.equals( channel.getStatus() ) )
+        {
+            Thread.sleep( 50 );
+        }
+    }
+
+    /**
+     * What the test runner swf does: answer the status query and send its reports
+     */
+    private static void play( TestRequest request, String report )
+        throws Exception
+    {
+        Socket control = new Socket( "localhost", request.getTestControlPort() );
+        BufferedReader query = new BufferedReader( new InputStreamReader( control.getInputStream() ) );
+        assertEquals( query.readLine(), STATUS );
+
+        Socket result = new Socket( "localhost", request.getTestPort() );
+        OutputStream out = result.getOutputStream();
+        out.write( ( report + NULL_BYTE + END_OF_TEST_RUN + NULL_BYTE ).getBytes( "UTF-8" ) );
+        out.flush();
+
+        InputStream in = result.getInputStream();
+        StringBuilder ack = new StringBuilder();
+        int c;
+        while ( ( c = in.read() ) != -1 && c != NULL_BYTE )
+        {
+            ack.append( (char) c );
+        }
+        assertEquals( ack.toString(), ACK_OF_TEST_RESULT );
+
+        control.getOutputStream().write( ( FINISHED + EOL ).getBytes( "UTF-8" ) );
+        control.getOutputStream().flush();
+
+        result.close();
+        control.close();
+    }
+
+    @BeforeMethod
+    public void setUp()
+        throws Exception
+    {
+        monitor = lookup( TestMonitor.class );
+    }
+
+    @Test( timeOut = 20000 )
+    public void concurrentSessions()
+        throws Exception
+    {
+        List<TestRequest> requests = new ArrayList<TestRequest>();
+        List<MonitorSession> sessions = new ArrayList<MonitorSession>();
+        for ( int i = 0; i < 4; i++ )
+        {
+            TestRequest request = request( 5000 );
+            requests.add( request );
+            sessions.add( monitor.open( request ) );
+        }
+
+        for ( int i = 0; i < requests.size(); i++ )
+        {
+            play( requests.get( i ), "<testsuite name=\"Suite" + i + "\">" + END_OF_TEST_SUITE );
+        }
+
+        for ( int i = 0; i < sessions.size(); i++ )
+        {
+            MonitorSession session = sessions.get( i );
+            await( session.getControl(), ThreadStatus.DONE );
+            await( session.getResults(), ThreadStatus.DONE );
+            assertEquals( session.getTestReportData(),
+                          Arrays.asList( "<testsuite name=\"Suite" + i + "\">" + END_OF_TEST_SUITE ) );
+            session.close();
+        }
+    }
+
+    @Test( timeOut = 10000 )
+    public void firstConnectionTimeout()
+        throws Exception
+    {
+        MonitorSession session = monitor.open( request( 500 ) );
+
+        await( session.getControl(), ThreadStatus.ERROR );
+        assertEquals( session.getControl().getError().getClass(), SocketTimeoutException.class );
+
+        session.close();
+        assertEquals( session.getResults().getStatus(), ThreadStatus.ERROR );
+    }
+
+    @Test( timeOut = 20000, invocationCount = 10 )
+    public void ping()
+        throws Exception
+    {
+        TestRequest request = request( 5000 );
+        MonitorSession session = monitor.open( request );
+
+        Socket control = new Socket( "localhost", request.getTestControlPort() );
+        BufferedReader query = new BufferedReader( new InputStreamReader( control.getInputStream() ) );
+        OutputStream out = control.getOutputStream();
+        for ( int i = 0; i < 3; i++ )
+        {
+            assertEquals( query.readLine(), STATUS );
+            out.write( ( OK + EOL ).getBytes( "UTF-8" ) );
+            out.flush();
+        }
+        assertEquals( query.readLine(), STATUS );
+        out.write( ( FINISHED + EOL ).getBytes( "UTF-8" ) );
+        out.flush();
+
+        await( session.getControl(), ThreadStatus.DONE );
+
+        control.close();
+        session.close();
+    }
+
+    @Test( timeOut = 10000 )
+    public void pingTimeout()
+        throws Exception
+    {
+        TestRequest request = request( 5000 );
+        MonitorSession session = monitor.open( request );
+
+        Socket control = new Socket( "localhost", request.getTestControlPort() );
+        BufferedReader query = new BufferedReader( new InputStreamReader( control.getInputStream() ) );
+        assertEquals( query.readLine(), STATUS );
+
+        // no answer within the test timeout
+        await( session.getControl(), ThreadStatus.ERROR );
+        assertEquals( session.getControl().getError().getClass(), SocketTimeoutException.class );
+
+        control.close();
+        session.close();
+    }
+
+    @Test( timeOut = 10000 )
+    public void invalidStatus()
+        throws Exception
+    {
+        TestRequest request = request( 5000 );
+        MonitorSession session = monitor.open( request );
+
+        Socket control = new Socket( "localhost", request.getTestControlPort() );
+        BufferedReader query = new BufferedReader( new InputStreamReader( control.getInputStream() ) );
+        for ( int i = 0; i < 3; i++ )
+        {
+            assertEquals( query.readLine(), STATUS );
+            control.getOutputStream().write( ( "BROKEN" + EOL ).getBytes( "UTF-8" ) );
+            control.getOutputStream().flush();
+        }
+
+        await( session.getControl(), ThreadStatus.ERROR );
+        assertEquals( session.getControl().getError().getMessage(), "Invalid virtual machine status: BROKEN" );
+
+        control.close();
+        session.close();
+    }
+
+}
@@ -0,0 +1,66 @@
+/**
+ * Flexmojos is a set of maven goals to allow maven users to compile, optimize and test Flex SWF, Flex SWC, Air SWF and Air SWC.
+ * Copyright (C) 2008-2012  Marvin Froeder <marvin@flexmojos.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.flexmojos.oss.test.report;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+public class TestSuiteReaderTest
+{
+
+    private static final String XML =
+        "<testsuite errors=\"1\" skipped=\"0\" tests=\"3\" time=\"0.312\" failures=\"1\" name=\"com::Test\">"
+            + "<testcase classname=\"com.Test\" time=\"0.1\" name=\"ok\"/>"
+            + "<testcase classname=\"com.Test\" time=\"0.1\" name=\"fail\">"
+            + "<failure message=\"boom\" type=\"Error\"><coverage classname=\"nested\"/></failure>" + "</testcase>"
+            + "<coverage classname=\"com.Foo\"><touch>1</touch><touch>3</touch></coverage>"
+            + "<coverage classname=\"com.Bar\"></coverage>" + "</testsuite>";
+
+    @Test
+    public void readSuite()
+        throws Exception
+    {
+        TestSuiteReader suite = new TestSuiteReader( new StringReader( XML ) );
+
+        assertEquals( suite.getName(), "com::Test" );
+        assertEquals( suite.getTests(), 3 );
+        assertEquals( suite.getFailures(), 1 );
+        assertEquals( suite.getErrors(), 1 );
+        assertEquals( suite.getTime(), 0.312 );
+
+        final Map<String, Integer[]> coverage = new LinkedHashMap<String, Integer[]>();
+        suite.readCoverage( new TestSuiteReader.CoverageHandler()
+        {
+            public void coverage( String classname, Integer[] touchs )
+            {
+                coverage.put( classname, touchs );
+            }
+        } );
+        suite.close();
+
+        assertEquals( coverage.size(), 2 );
+        assertEquals( coverage.get( "com.Foo" ), new Integer[] { 1, 3 } );
+        assertEquals( coverage.get( "com.Bar" ).length, 0 );
+    }
+
+}